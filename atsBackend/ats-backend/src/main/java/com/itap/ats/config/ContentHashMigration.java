@@ -0,0 +1,134 @@
+package com.itap.ats.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves job description text out of resume_scan into job_description, one row per
+ * SHA-256 of the text, and links scans to it by job_description_hash. Older deployments
+ * stored the full JD on every scan; a batch of 300 scans held 300 copies.
+ *
+ * The backfill runs in chunks so no single statement rewrites the whole table. Each chunk
+ * inserts the job_description rows its scans need in the same statement that links them,
+ * so a linked scan always has its parent, including scans an older instance writes during
+ * a rolling deploy. The old column is kept, and rows written after this start are linked
+ * on the next one, until {@code ats.db.drop-legacy-job-description} is set. Then the table
+ * is locked, the rows that arrived since are linked, and the column is dropped, all in one
+ * transaction, so a failure leaves the column and its text in place. Postgres reclaims the
+ * space on the next VACUUM FULL (or pg_repack); until then new rows simply reuse it. Resume
+ * files can only be recorded for new scans, since older rows never kept the PDF hash.
+ *
+ * The foreign keys are added here too, since ddl-auto=update does not create them for
+ * plain hash columns. Every step is a no-op when already applied. Needs Postgres 11+
+ * for sha256().
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ContentHashMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentHashMigration.class);
+
+    private static final int CHUNK_ROWS = 5000;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final boolean dropLegacyColumn;
+
+    public ContentHashMigration(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                @Value("${ats.db.migrate:true}") boolean enabled,
+                                @Value("${ats.db.drop-legacy-job-description:false}") boolean dropLegacyColumn) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.dropLegacyColumn = dropLegacyColumn;
+    }
+
+    private static String jdHash(String column) {
+        return "encode(sha256(convert_to(" + column + ", 'UTF8')), 'hex')";
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) return;
+        String product = jdbc.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) return;
+
+        Map<String, String> nullable = new HashMap<>();
+        jdbc.query("SELECT column_name, is_nullable FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND table_name = 'resume_scan'",
+                rs -> { nullable.put(rs.getString(1), rs.getString(2)); });
+        if (nullable.isEmpty()) return;
+
+        boolean legacyColumn = nullable.containsKey("job_description");
+        if (legacyColumn) {
+            // New rows no longer write the column while the backfill runs.
+            if ("NO".equals(nullable.get("job_description"))) {
+                jdbc.execute("ALTER TABLE resume_scan ALTER COLUMN job_description DROP NOT NULL");
+            }
+            long scans = 0;
+            int n;
+            do {
+                n = jdbc.update("WITH chunk AS ("
+                        + "SELECT id, job_description, created_at FROM resume_scan WHERE job_description_hash IS NULL "
+                        + "AND job_description IS NOT NULL LIMIT " + CHUNK_ROWS + "), "
+                        + "jds AS (INSERT INTO job_description (hash, text, created_at) "
+                        + "SELECT " + jdHash("job_description") + ", job_description, min(created_at) FROM chunk "
+                        + "GROUP BY job_description ON CONFLICT (hash) DO NOTHING) "
+                        + "UPDATE resume_scan s SET job_description_hash = " + jdHash("chunk.job_description")
+                        + " FROM chunk WHERE s.id = chunk.id");
+                scans += n;
+            } while (n > 0);
+            if (scans > 0) log.info("Linked {} scans to job_description", scans);
+
+            if (dropLegacyColumn) {
+                tx.executeWithoutResult(status -> {
+                    // Holds off writers still on the old column until it is gone.
+                    jdbc.execute("LOCK TABLE resume_scan IN ACCESS EXCLUSIVE MODE");
+                    jdbc.update("INSERT INTO job_description (hash, text, created_at) "
+                            + "SELECT " + jdHash("job_description") + ", job_description, min(created_at) "
+                            + "FROM resume_scan WHERE job_description IS NOT NULL AND job_description_hash IS NULL "
+                            + "GROUP BY job_description ON CONFLICT (hash) DO NOTHING");
+                    int late = jdbc.update("UPDATE resume_scan SET job_description_hash = " + jdHash("job_description")
+                            + " WHERE job_description_hash IS NULL AND job_description IS NOT NULL");
+                    jdbc.execute("ALTER TABLE resume_scan DROP COLUMN job_description");
+                    log.info("Dropped resume_scan.job_description after linking {} more scans", late);
+                });
+                legacyColumn = false;
+            }
+        }
+
+        // While the old column is kept, an older instance may still insert scans without a hash.
+        if (!legacyColumn && "YES".equals(nullable.get("job_description_hash"))) {
+            Integer unlinked = jdbc.queryForObject(
+                    "SELECT count(*) FROM resume_scan WHERE job_description_hash IS NULL", Integer.class);
+            if (unlinked != null && unlinked == 0) {
+                jdbc.execute("ALTER TABLE resume_scan ALTER COLUMN job_description_hash SET NOT NULL");
+            }
+        }
+
+        addForeignKey("fk_resume_scan_job_description", "job_description_hash", "job_description");
+        addForeignKey("fk_resume_scan_resume_file", "resume_hash", "resume_file");
+    }
+
+    private void addForeignKey(String name, String column, String table) {
+        Integer exists = jdbc.queryForObject("SELECT count(*) FROM pg_constraint WHERE conname = ?",
+                Integer.class, name);
+        if (exists != null && exists > 0) return;
+        // NOT VALID then VALIDATE checks existing rows without blocking writes meanwhile.
+        jdbc.execute("ALTER TABLE resume_scan ADD CONSTRAINT " + name + " FOREIGN KEY (" + column
+                + ") REFERENCES " + table + " (hash) NOT VALID");
+        jdbc.execute("ALTER TABLE resume_scan VALIDATE CONSTRAINT " + name);
+    }
+}
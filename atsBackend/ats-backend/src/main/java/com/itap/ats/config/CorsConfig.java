@@ -14,7 +14,8 @@ public class CorsConfig {
                 registry.addMapping("/api/**")
                         .allowedOriginPatterns("https://ats-resume-score-1-de3f.onrender.com")
                         .allowedMethods("GET", "POST", "OPTIONS")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        .exposedHeaders("X-Next-Cursor", "Retry-After");
             }
         };
     }
@@ -0,0 +1,38 @@
+package com.itap.ats.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(name = "scanExecutor")
+    public ThreadPoolTaskExecutor scanExecutor(
+            @Value("${ats.batch.threads:0}") int threads,
+            @Value("${ats.batch.queue-capacity:1000}") int queueCapacity) {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(n);
+        executor.setMaxPoolSize(n);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scan-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /** Named like the PDF pool's gauges, so both queues sit side by side on a dashboard. */
+    @Bean
+    public MeterBinder scanExecutorMetrics(@Qualifier("scanExecutor") ThreadPoolTaskExecutor executor) {
+        return registry -> {
+            Gauge.builder("ats.batch.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                    .register(registry);
+            Gauge.builder("ats.batch.active", executor, ThreadPoolTaskExecutor::getActiveCount).register(registry);
+        };
+    }
+}
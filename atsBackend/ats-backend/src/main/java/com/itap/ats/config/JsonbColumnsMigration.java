@@ -0,0 +1,67 @@
+package com.itap.ats.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings an existing resume_scan table up to the jsonb layout. ddl-auto=update creates
+ * new tables with jsonb columns but never changes the type of existing ones, so TEXT
+ * columns from older deployments are converted here, and the GIN indexes used for
+ * keyword lookups are added. Runs once at startup, before the web server accepts
+ * requests; every step is a no-op when already applied.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class JsonbColumnsMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonbColumnsMigration.class);
+
+    private static final List<String> JSON_COLUMNS = List.of(
+            "matched_keywords_json", "missing_keywords_json", "section_checks_json", "suggestions_json");
+
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+
+    public JsonbColumnsMigration(JdbcTemplate jdbc, @Value("${ats.db.migrate:true}") boolean enabled) {
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) return;
+        String product = jdbc.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) return;
+
+        Map<String, String> types = new HashMap<>();
+        jdbc.query("SELECT column_name, data_type FROM information_schema.columns "
+                        + "WHERE table_schema = current_schema() AND table_name = 'resume_scan'",
+                rs -> { types.put(rs.getString(1), rs.getString(2)); });
+        if (types.isEmpty()) return;
+
+        for (String column : JSON_COLUMNS) {
+            String type = types.get(column);
+            if (type == null || "jsonb".equals(type)) continue;
+
+            log.info("Converting resume_scan.{} from {} to jsonb", column, type);
+            jdbc.execute("ALTER TABLE resume_scan ALTER COLUMN " + column
+                    + " TYPE jsonb USING NULLIF(" + column + ", '')::jsonb");
+        }
+
+        // jsonb_path_ops serves the @> containment lookups in ResumeScanJsonQueries.
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_resume_scan_missing_keywords "
+                + "ON resume_scan USING GIN (missing_keywords_json jsonb_path_ops)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_resume_scan_matched_keywords "
+                + "ON resume_scan USING GIN (matched_keywords_json jsonb_path_ops)");
+    }
+}
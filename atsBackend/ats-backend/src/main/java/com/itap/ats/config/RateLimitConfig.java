@@ -0,0 +1,26 @@
+package com.itap.ats.config;
+
+import com.itap.ats.controller.RateLimitInterceptor;
+import com.itap.ats.service.RateLimiter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimiter limiter;
+
+    public RateLimitConfig(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limiter.isEnabled()) return;
+        registry.addInterceptor(new RateLimitInterceptor(limiter, RateLimiter.Tier.AI))
+                .addPathPatterns("/api/ai-suggestions", "/api/ai-suggestions/stream");
+        registry.addInterceptor(new RateLimitInterceptor(limiter, RateLimiter.Tier.SCAN))
+                .addPathPatterns("/api/scan", "/api/scans/batch", "/api/score", "/api/score/delta", "/api/score/rank");
+    }
+}
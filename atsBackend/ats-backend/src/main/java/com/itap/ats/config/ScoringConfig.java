@@ -0,0 +1,37 @@
+package com.itap.ats.config;
+
+import com.itap.ats.util.Synonyms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Configuration
+public class ScoringConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringConfig.class);
+
+    /**
+     * The synonym dictionary shared by job profiles and the resume index, compiled once at
+     * startup. {@code ats.scoring.synonyms} is a resource location ({@code classpath:} or
+     * {@code file:}); empty turns mapping off.
+     */
+    @Bean
+    public Synonyms synonyms(ResourceLoader loader,
+                             @Value("${ats.scoring.synonyms:classpath:synonyms.txt}") String location) throws IOException {
+        if (location == null || location.isBlank()) return Synonyms.NONE;
+        Resource resource = loader.getResource(location);
+        if (!resource.exists()) throw new IllegalStateException("ats.scoring.synonyms not found: " + location);
+        try (InputStream in = resource.getInputStream()) {
+            Synonyms synonyms = Synonyms.load(in);
+            log.info("Loaded {} synonyms from {}", synonyms.size(), location);
+            return synonyms;
+        }
+    }
+}
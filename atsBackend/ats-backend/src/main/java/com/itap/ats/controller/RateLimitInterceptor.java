@@ -0,0 +1,64 @@
+package com.itap.ats.controller;
+
+import com.itap.ats.service.RateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Turns away POSTs over the client's budget with 429 and Retry-After before any work is
+ * queued. Runs as an interceptor rather than a filter so the CORS headers are already on
+ * the response and the browser can read Retry-After.
+ *
+ * The multipart body is not parsed yet when this runs, because uploads are resolved lazily
+ * ({@code spring.servlet.multipart.resolve-lazily=true}): a refused client never gets its
+ * files read. So admission only needs one token; a batch is charged for the rest of its
+ * resumes once admitted, which is when its parts are parsed and counted.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final RateLimiter limiter;
+    private final RateLimiter.Tier tier;
+
+    public RateLimitInterceptor(RateLimiter limiter, RateLimiter.Tier tier) {
+        this.limiter = limiter;
+        this.tier = tier;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // Streamed responses come back through the dispatcher once they complete.
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !"POST".equals(request.getMethod())) return true;
+
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        int retryAfter = limiter.acquire(tier, apiKey, request.getRemoteAddr(), 1);
+        if (retryAfter == 0) {
+            int rest = cost(request) - 1;
+            if (rest > 0) limiter.charge(tier, apiKey, request.getRemoteAddr(), rest);
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry in " + retryAfter + "s");
+        return false;
+    }
+
+    // A batch is charged one token per resume. Parses the upload.
+    private static int cost(HttpServletRequest request) {
+        if (request instanceof MultipartHttpServletRequest multipart) {
+            return Math.max(1, multipart.getFiles("resumes").size());
+        }
+        return 1;
+    }
+}
@@ -1,102 +1,202 @@
 package com.itap.ats.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.dto.DeltaScoreRequest;
+import com.itap.ats.dto.RankRequest;
+import com.itap.ats.dto.ScanPage;
 import com.itap.ats.dto.ScanResponse;
-import com.itap.ats.model.ResumeScan;
-import com.itap.ats.repo.ResumeScanRepository;
+import com.itap.ats.dto.ScanSummary;
+import com.itap.ats.dto.ScoreRequest;
+import com.itap.ats.dto.ScoreResult;
+import com.itap.ats.service.BatchScanService;
 import com.itap.ats.service.ScanService;
+import com.itap.ats.service.ScoreService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.itap.ats.service.OpenAiClient;
-import com.itap.ats.service.PdfTextExtractor;
-import java.io.InputStream;
+import com.itap.ats.service.ResumeTextCache;
 
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api")
 public class ScanController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ScanService scanService;
-    private final ResumeScanRepository repo;
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final PdfTextExtractor pdfTextExtractor;
+    private final ResumeTextCache resumeTextCache;
     private final OpenAiClient openAiClient;
+    private final BatchScanService batchScanService;
+    private final ScoreService scoreService;
+    private final long batchTimeoutMs;
+    private final long aiTimeoutMs;
 
 
-    public ScanController(ScanService scanService, ResumeScanRepository repo, PdfTextExtractor pdfTextExtractor, OpenAiClient openAiClient) {
+    public ScanController(ScanService scanService, ResumeTextCache resumeTextCache, OpenAiClient openAiClient,
+                          BatchScanService batchScanService, ScoreService scoreService,
+                          @Value("${ats.batch.timeout:10m}") java.time.Duration batchTimeout,
+                          @Value("${spring.mvc.async.request-timeout:180s}") java.time.Duration aiTimeout) {
         this.scanService = scanService;
-        this.repo = repo;
-        this.pdfTextExtractor = pdfTextExtractor;
+        this.resumeTextCache = resumeTextCache;
         this.openAiClient = openAiClient;
+        this.batchScanService = batchScanService;
+        this.scoreService = scoreService;
+        this.batchTimeoutMs = batchTimeout.toMillis();
+        this.aiTimeoutMs = aiTimeout.toMillis();
     }
 
-    private InputStream toInputStream(MultipartFile f) {
+    private byte[] toBytes(MultipartFile f) {
         try {
-            return f.getInputStream();
+            return f.getBytes();
         } catch (Exception e) {
             throw new RuntimeException("Could not read uploaded file", e);
         }
     }
 
 
+    /**
+     * Completes asynchronously: the request thread is released while the model answers.
+     */
     @PostMapping("/ai-suggestions")
-    public com.itap.ats.dto.AiSuggestionsResponse aiSuggestions(
+    public CompletableFuture<com.itap.ats.dto.AiSuggestionsResponse> aiSuggestions(
             @RequestParam("resume") MultipartFile resume,
             @RequestParam("jobDescription") String jobDescription
     ) {
         if (resume == null || resume.isEmpty()) throw new RuntimeException("Resume file is required.");
         if (jobDescription == null || jobDescription.trim().isEmpty()) throw new RuntimeException("Job description is required.");
 
-        String resumeText = pdfTextExtractor.extractText(toInputStream(resume));
+        String resumeText = resumeTextCache.getOrExtract(toBytes(resume));
         return openAiClient.getSuggestions(resumeText, jobDescription);
     }
 
+    /**
+     * Same as /ai-suggestions, but streamed: one SSE event per response field, named after
+     * the field (improvedSummary, skillsSuggestions, ...), sent as soon as the model has
+     * written it; then a "done" event with the full response, or an "error" event.
+     */
+    @PostMapping(value = "/ai-suggestions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter aiSuggestionsStream(@RequestParam("resume") MultipartFile resume,
+                                          @RequestParam("jobDescription") String jobDescription) {
+        if (resume == null || resume.isEmpty()) throw new RuntimeException("Resume file is required.");
+        if (jobDescription == null || jobDescription.trim().isEmpty()) throw new RuntimeException("Job description is required.");
+
+        String resumeText = resumeTextCache.getOrExtract(toBytes(resume));
+        SseEmitter emitter = new SseEmitter(aiTimeoutMs);
+        openAiClient.streamSuggestions(resumeText, jobDescription, (name, value) -> {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(value, MediaType.APPLICATION_JSON));
+            } catch (Exception ignored) {
+                // Client went away; the answer is still cached when it completes.
+            }
+        }).whenComplete((resp, err) -> {
+            try {
+                if (err == null) {
+                    emitter.send(SseEmitter.event().name("done").data(resp, MediaType.APPLICATION_JSON));
+                } else {
+                    Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                    emitter.send(SseEmitter.event().name("error").data(String.valueOf(cause.getMessage())));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
     @PostMapping("/scan")
     public ScanResponse scan(@RequestParam("resume") MultipartFile resume,
                              @RequestParam("jobDescription") String jobDescription) {
         return scanService.scan(resume, jobDescription);
     }
 
-    @GetMapping("/scans")
-    public List<Map<String, Object>> listScans() {
-        List<ResumeScan> scans = repo.findAll();
-        scans.sort(Comparator.comparing(ResumeScan::getCreatedAt).reversed());
-
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (ResumeScan s : scans) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("id", s.getId());
-            row.put("createdAt", s.getCreatedAt());
-            row.put("resumeFilename", s.getResumeFilename());
-            row.put("totalScore", s.getTotalScore());
-            row.put("keywordScore", s.getKeywordScore());
-            row.put("sectionScore", s.getSectionScore());
-            out.add(row);
-        }
-        return out;
+    /** Scores resume text, or a resume scanned before, without parsing a PDF or saving anything. */
+    @PostMapping("/score")
+    public ScoreResult score(@RequestBody ScoreRequest req) {
+        return scoreService.score(req.resumeText, req.resumeId, req.jobDescription);
     }
 
-    @GetMapping("/scan/{id}")
-    public ScanResponse getScan(@PathVariable("id") UUID id) {
-        ResumeScan s = scanService.getById(id);
+    /** Re-ranks previously scanned resumes against an edited job description, best first. */
+    @PostMapping("/score/delta")
+    public List<ScoreResult> scoreDelta(@RequestBody DeltaScoreRequest req) {
+        return scoreService.rescore(req.resumeIds, req.jobDescription);
+    }
 
-        ScanResponse resp = new ScanResponse();
-        resp.id = s.getId();
-        resp.totalScore = s.getTotalScore();
-        resp.keywordScore = s.getKeywordScore();
-        resp.sectionScore = s.getSectionScore();
+    /** Ranks every resume scanned so far against a job description, best first. */
+    @PostMapping("/score/rank")
+    public List<ScoreResult> scoreRank(@RequestBody RankRequest req) {
+        return scoreService.rank(req.jobDescription, req.limit);
+    }
 
-        try {
-            resp.matchedKeywords = Arrays.asList(mapper.readValue(s.getMatchedKeywordsJson(), String[].class));
-            resp.missingKeywords = Arrays.asList(mapper.readValue(s.getMissingKeywordsJson(), String[].class));
-            resp.sectionChecks = mapper.readValue(s.getSectionChecksJson(), Map.class);
-            resp.suggestions = Arrays.asList(mapper.readValue(s.getSuggestionsJson(), String[].class));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse saved scan result.", e);
-        }
+    /**
+     * Scores many PDFs (or zips of PDFs) against one job description. Streams a "result"
+     * event per resume as it finishes, then a "summary" event with the ranking.
+     */
+    @PostMapping("/scans/batch")
+    public SseEmitter scanBatch(@RequestParam("resumes") List<MultipartFile> resumes,
+                                @RequestParam("jobDescription") String jobDescription) {
+        List<BatchScanService.Upload> uploads = batchScanService.readUploads(resumes, jobDescription);
+
+        SseEmitter emitter = new SseEmitter(batchTimeoutMs);
+        batchScanService.scanBatch(uploads, jobDescription, item -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(item));
+            } catch (Exception ignored) {
+                // Client went away; keep scanning so the results are still saved.
+            }
+        }).whenComplete((summary, err) -> {
+            if (err != null) {
+                emitter.completeWithError(err);
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("summary").data(summary));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Scan history, newest first, one page at a time. When more rows exist the response
+     * carries an X-Next-Cursor header to pass back as {@code cursor}.
+     */
+    @GetMapping("/scans")
+    public ResponseEntity<List<ScanSummary>> listScans(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "minScore", required = false) Integer minScore,
+            @RequestParam(value = "maxScore", required = false) Integer maxScore,
+            @RequestParam(value = "filename", required = false) String filename,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to) {
+        ScanPage page = scanService.listScans(cursor, limit, minScore, maxScore, filename, from, to);
+
+        ResponseEntity.BodyBuilder resp = ResponseEntity.ok();
+        if (page.nextCursor != null) resp.header(NEXT_CURSOR_HEADER, page.nextCursor);
+        return resp.body(page.items);
+    }
+
+    /** Scans that were missing the given keyword, newest first. */
+    @GetMapping("/scans/missing-keyword")
+    public List<ScanSummary> scansMissingKeyword(@RequestParam("keyword") String keyword,
+                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        return scanService.findMissingKeyword(keyword, limit);
+    }
 
-        return resp;
+    @GetMapping(value = "/scan/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getScan(@PathVariable("id") UUID id) {
+        // Built by Postgres straight from the jsonb columns; nothing is parsed here.
+        return scanService.getResponseJson(id);
     }
 }
@@ -0,0 +1,19 @@
+package com.itap.ats.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BatchScanItem {
+    public UUID id;
+    public String resumeFilename;
+    // Key of the extracted text in the resume cache; pass it to /api/score instead of re-uploading.
+    public String resumeId;
+    public int totalScore;
+    public int keywordScore;
+    public int sectionScore;
+
+    public List<String> missingKeywords;
+
+    // Set instead of the scores when the resume could not be scanned.
+    public String error;
+}
@@ -0,0 +1,13 @@
+package com.itap.ats.dto;
+
+import java.util.List;
+
+public class BatchScanSummary {
+    public int total;
+    public int succeeded;
+    public int failed;
+    public int keywordCount;
+
+    // Best score first; failed resumes at the end.
+    public List<BatchScanItem> ranked;
+}
@@ -0,0 +1,9 @@
+package com.itap.ats.dto;
+
+import java.util.List;
+
+/** Body of POST /api/score/delta: cached resumes to re-rank against an edited job description. */
+public class DeltaScoreRequest {
+    public String jobDescription;
+    public List<String> resumeIds;
+}
@@ -0,0 +1,7 @@
+package com.itap.ats.dto;
+
+/** Body of POST /api/score/rank: a job description to rank every indexed resume against. */
+public class RankRequest {
+    public String jobDescription;
+    public Integer limit;
+}
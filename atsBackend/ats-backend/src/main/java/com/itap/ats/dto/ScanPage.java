@@ -0,0 +1,10 @@
+package com.itap.ats.dto;
+
+import java.util.List;
+
+public class ScanPage {
+    public List<ScanSummary> items;
+
+    // Pass back as "cursor" to get the next page; null on the last page.
+    public String nextCursor;
+}
@@ -6,6 +6,8 @@ import java.util.UUID;
 
 public class ScanResponse {
     public UUID id;
+    // Key of the extracted text in the resume cache; pass it to /api/score instead of re-uploading.
+    public String resumeId;
     public int totalScore;
     public int keywordScore;
     public int sectionScore;
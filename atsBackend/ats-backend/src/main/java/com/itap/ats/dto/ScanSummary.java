@@ -0,0 +1,24 @@
+package com.itap.ats.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** One row of the scan history; only the columns the list needs. */
+public class ScanSummary {
+    public UUID id;
+    public Instant createdAt;
+    public String resumeFilename;
+    public int totalScore;
+    public int keywordScore;
+    public int sectionScore;
+
+    public ScanSummary(UUID id, Instant createdAt, String resumeFilename,
+                       int totalScore, int keywordScore, int sectionScore) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.resumeFilename = resumeFilename;
+        this.totalScore = totalScore;
+        this.keywordScore = keywordScore;
+        this.sectionScore = sectionScore;
+    }
+}
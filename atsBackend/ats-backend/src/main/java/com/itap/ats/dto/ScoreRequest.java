@@ -0,0 +1,8 @@
+package com.itap.ats.dto;
+
+/** Body of POST /api/score: either the resume text or the resumeId of a resume scanned before. */
+public class ScoreRequest {
+    public String resumeText;
+    public String resumeId;
+    public String jobDescription;
+}
@@ -0,0 +1,18 @@
+package com.itap.ats.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScoreResult {
+    public String resumeId;
+    public int totalScore;
+    public int keywordScore;
+    public int sectionScore;
+
+    public List<String> missingKeywords;
+
+    // Set instead of the scores when the resume is not in the cache.
+    public String error;
+}
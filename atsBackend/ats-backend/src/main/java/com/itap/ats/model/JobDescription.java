@@ -0,0 +1,35 @@
+package com.itap.ats.model;
+
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A job description stored once, keyed by the SHA-256 hex of its text. Scans reference
+ * it through {@link ResumeScan#getJobDescriptionHash()}; rows are written by
+ * {@link com.itap.ats.repo.ScanContentWriter}.
+ */
+@Entity
+@Table(name = "job_description")
+public class JobDescription {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String text;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
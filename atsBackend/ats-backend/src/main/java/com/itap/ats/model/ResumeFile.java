@@ -0,0 +1,34 @@
+package com.itap.ats.model;
+
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * An uploaded resume PDF, stored once per distinct content and keyed by the SHA-256 hex
+ * of its bytes (the same id as the resume text cache). Only metadata is kept, not the PDF.
+ */
+@Entity
+@Table(name = "resume_file")
+public class ResumeFile {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -2,25 +2,51 @@ package com.itap.ats.model;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "resume_scan")
-public class ResumeScan {
-
+@Table(name = "resume_scan", indexes = {
+        // Keyset pagination of the scan history (newest first).
+        @Index(name = "idx_resume_scan_created_at_id", columnList = "createdAt DESC, id DESC"),
+        @Index(name = "idx_resume_scan_job_description_hash", columnList = "job_description_hash")
+})
+public class ResumeScan implements Persistable<UUID> {
+
+    // Assigned by the application before saving, so no insert waits on a generated key.
     @Id
-    @GeneratedValue
     private UUID id;
 
+    // Lets save() persist directly instead of selecting first to decide between insert and merge.
+    @Transient
+    private boolean isNew = true;
+
     @Column(nullable = false)
     private Instant createdAt = Instant.now();
 
     private String resumeFilename;
 
-    @Column(columnDefinition = "TEXT", nullable = false)
+    // The JD text and resume metadata are stored once in job_description and resume_file
+    // (see ContentHashMigration); scans only keep the SHA-256 keys.
+    @Column(name = "job_description_hash", length = 64)
+    private String jobDescriptionHash;
+
+    @Column(name = "resume_hash", length = 64)
+    private String resumeHash;
+
+    // Carried to ScanContentWriter so it can insert the shared rows on first sight.
+    @Transient
     private String jobDescription;
 
+    @Transient
+    private long resumeSizeBytes;
+
     @Column(nullable = false)
     private int totalScore;
 
@@ -30,27 +56,52 @@ public class ResumeScan {
     @Column(nullable = false)
     private int sectionScore;
 
-    @Column(columnDefinition = "TEXT")
-    private String matchedKeywordsJson;
+    // Stored as jsonb (see JsonbColumnsMigration); column names predate the switch from TEXT.
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "matched_keywords_json", columnDefinition = "jsonb")
+    private List<String> matchedKeywords;
 
-    @Column(columnDefinition = "TEXT")
-    private String missingKeywordsJson;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "missing_keywords_json", columnDefinition = "jsonb")
+    private List<String> missingKeywords;
 
-    @Column(columnDefinition = "TEXT")
-    private String sectionChecksJson;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "section_checks_json", columnDefinition = "jsonb")
+    private Map<String, Boolean> sectionChecks;
 
-    @Column(columnDefinition = "TEXT")
-    private String suggestionsJson;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "suggestions_json", columnDefinition = "jsonb")
+    private List<String> suggestions;
 
+    @Override
     public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
     public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
     public String getResumeFilename() { return resumeFilename; }
     public void setResumeFilename(String resumeFilename) { this.resumeFilename = resumeFilename; }
 
+    public String getJobDescriptionHash() { return jobDescriptionHash; }
+    public void setJobDescriptionHash(String jobDescriptionHash) { this.jobDescriptionHash = jobDescriptionHash; }
+
+    public String getResumeHash() { return resumeHash; }
+    public void setResumeHash(String resumeHash) { this.resumeHash = resumeHash; }
+
     public String getJobDescription() { return jobDescription; }
     public void setJobDescription(String jobDescription) { this.jobDescription = jobDescription; }
 
+    public long getResumeSizeBytes() { return resumeSizeBytes; }
+    public void setResumeSizeBytes(long resumeSizeBytes) { this.resumeSizeBytes = resumeSizeBytes; }
+
     public int getTotalScore() { return totalScore; }
     public void setTotalScore(int totalScore) { this.totalScore = totalScore; }
 
@@ -60,15 +111,15 @@ public class ResumeScan {
     public int getSectionScore() { return sectionScore; }
     public void setSectionScore(int sectionScore) { this.sectionScore = sectionScore; }
 
-    public String getMatchedKeywordsJson() { return matchedKeywordsJson; }
-    public void setMatchedKeywordsJson(String matchedKeywordsJson) { this.matchedKeywordsJson = matchedKeywordsJson; }
+    public List<String> getMatchedKeywords() { return matchedKeywords; }
+    public void setMatchedKeywords(List<String> matchedKeywords) { this.matchedKeywords = matchedKeywords; }
 
-    public String getMissingKeywordsJson() { return missingKeywordsJson; }
-    public void setMissingKeywordsJson(String missingKeywordsJson) { this.missingKeywordsJson = missingKeywordsJson; }
+    public List<String> getMissingKeywords() { return missingKeywords; }
+    public void setMissingKeywords(List<String> missingKeywords) { this.missingKeywords = missingKeywords; }
 
-    public String getSectionChecksJson() { return sectionChecksJson; }
-    public void setSectionChecksJson(String sectionChecksJson) { this.sectionChecksJson = sectionChecksJson; }
+    public Map<String, Boolean> getSectionChecks() { return sectionChecks; }
+    public void setSectionChecks(Map<String, Boolean> sectionChecks) { this.sectionChecks = sectionChecks; }
 
-    public String getSuggestionsJson() { return suggestionsJson; }
-    public void setSuggestionsJson(String suggestionsJson) { this.suggestionsJson = suggestionsJson; }
+    public List<String> getSuggestions() { return suggestions; }
+    public void setSuggestions(List<String> suggestions) { this.suggestions = suggestions; }
 }
@@ -0,0 +1,77 @@
+package com.itap.ats.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.model.ResumeScan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts many scans with a single JDBC batch instead of one JPA save per row.
+ * Scans must already have their id assigned; rows whose id already exists are skipped,
+ * so a batch can safely be retried. The job descriptions and resume files they reference
+ * are written first by {@link ScanContentWriter}.
+ */
+@Repository
+public class ResumeScanBatchWriter implements MeterBinder {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO resume_scan (id, created_at, resume_filename, job_description_hash, resume_hash, "
+                    + "total_score, keyword_score, section_score, matched_keywords_json, missing_keywords_json, "
+                    + "section_checks_json, suggestions_json) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb)) "
+                    + "ON CONFLICT (id) DO NOTHING";
+
+    private final JdbcTemplate jdbc;
+    private final ScanContentWriter contentWriter;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Timer insertTimer;
+
+    public ResumeScanBatchWriter(JdbcTemplate jdbc, ScanContentWriter contentWriter) {
+        this.jdbc = jdbc;
+        this.contentWriter = contentWriter;
+    }
+
+    public void insertAll(List<ResumeScan> scans) {
+        if (scans.isEmpty()) return;
+        long start = System.nanoTime();
+        contentWriter.insertMissing(scans);
+        jdbc.batchUpdate(INSERT_SQL, scans, scans.size(), (ps, s) -> {
+            ps.setObject(1, s.getId());
+            ps.setTimestamp(2, Timestamp.from(s.getCreatedAt()));
+            ps.setString(3, s.getResumeFilename());
+            ps.setString(4, s.getJobDescriptionHash());
+            ps.setString(5, s.getResumeHash());
+            ps.setInt(6, s.getTotalScore());
+            ps.setInt(7, s.getKeywordScore());
+            ps.setInt(8, s.getSectionScore());
+            ps.setString(9, toJson(s.getMatchedKeywords()));
+            ps.setString(10, toJson(s.getMissingKeywords()));
+            ps.setString(11, toJson(s.getSectionChecks()));
+            ps.setString(12, toJson(s.getSuggestions()));
+        });
+        if (insertTimer != null) insertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        insertTimer = Timer.builder("ats.db.insert")
+                .description("Writing scans to the database")
+                .tag("mode", "batch")
+                .register(registry);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize scan result.", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.itap.ats.repo;
+
+import com.itap.ats.dto.ScanSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * PostgreSQL-specific reads over the jsonb result columns.
+ */
+@Repository
+public class ResumeScanJsonQueries {
+
+    // Same fields and order as ScanResponse; json (not jsonb) keeps the key order.
+    private static final String SCAN_JSON_SQL =
+            "SELECT json_build_object('id', id, 'resumeId', resume_hash, 'totalScore', total_score, "
+                    + "'keywordScore', keyword_score, 'sectionScore', section_score, "
+                    + "'matchedKeywords', matched_keywords_json, 'missingKeywords', missing_keywords_json, "
+                    + "'sectionChecks', section_checks_json, 'suggestions', suggestions_json)::text "
+                    + "FROM resume_scan WHERE id = ?";
+
+    private static final String MISSING_KEYWORD_SQL =
+            "SELECT id, created_at, resume_filename, total_score, keyword_score, section_score "
+                    + "FROM resume_scan WHERE missing_keywords_json @> jsonb_build_array(?::text) "
+                    + "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbc;
+
+    public ResumeScanJsonQueries(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** The stored scan rendered as response JSON by the database. */
+    public Optional<String> findResponseJson(UUID id) {
+        List<String> rows = jdbc.queryForList(SCAN_JSON_SQL, String.class, id);
+        return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(0));
+    }
+
+    /** Newest scans whose missing keywords contain {@code keywordNorm}; uses the GIN index. */
+    public List<ScanSummary> findMissingKeyword(String keywordNorm, int limit) {
+        return jdbc.query(MISSING_KEYWORD_SQL, (rs, i) -> new ScanSummary(
+                rs.getObject(1, UUID.class),
+                rs.getTimestamp(2).toInstant(),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getInt(6)), keywordNorm, limit);
+    }
+}
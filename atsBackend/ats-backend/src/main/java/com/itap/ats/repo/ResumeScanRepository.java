@@ -1,9 +1,44 @@
 package com.itap.ats.repo;
 
 
+import com.itap.ats.dto.ScanSummary;
 import com.itap.ats.model.ResumeScan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
-public interface ResumeScanRepository extends JpaRepository<ResumeScan, UUID> {}
+public interface ResumeScanRepository extends JpaRepository<ResumeScan, UUID> {
+
+    /**
+     * Newest scans first, starting after the (createdAt, id) position of the previous page.
+     * Served from the (created_at, id) index; the {@code createdAt <=} bound lets a later page
+     * start at its position in the index instead of reading past every newer row. Every
+     * filter is optional. The casts give Postgres a type for parameters that are bound as null.
+     */
+    @Query("""
+            select new com.itap.ats.dto.ScanSummary(s.id, s.createdAt, s.resumeFilename,
+                   s.totalScore, s.keywordScore, s.sectionScore)
+            from ResumeScan s
+            where (cast(:afterCreatedAt as Instant) is null or (s.createdAt <= :afterCreatedAt
+                   and (s.createdAt < :afterCreatedAt or s.id < :afterId)))
+              and (cast(:minScore as Integer) is null or s.totalScore >= :minScore)
+              and (cast(:maxScore as Integer) is null or s.totalScore <= :maxScore)
+              and (cast(:filename as String) is null or lower(s.resumeFilename) like :filename escape '\\')
+              and (cast(:from as Instant) is null or s.createdAt >= :from)
+              and (cast(:to as Instant) is null or s.createdAt < :to)
+            order by s.createdAt desc, s.id desc
+            """)
+    List<ScanSummary> findSummaries(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                    @Param("afterId") UUID afterId,
+                                    @Param("minScore") Integer minScore,
+                                    @Param("maxScore") Integer maxScore,
+                                    @Param("filename") String filenamePattern,
+                                    @Param("from") Instant from,
+                                    @Param("to") Instant to,
+                                    Limit limit);
+}
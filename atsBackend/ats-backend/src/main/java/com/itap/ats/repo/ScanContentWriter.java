@@ -0,0 +1,83 @@
+package com.itap.ats.repo;
+
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.util.LruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the job descriptions and resume files that scans reference, once per content
+ * hash. Hashes already written by this instance are remembered, so the usual case (a
+ * batch of scans against one JD) costs a map lookup and no database round trip; new
+ * ones are inserted with {@code ON CONFLICT DO NOTHING}, which makes concurrent or
+ * repeated inserts harmless. Must run before the scans themselves are inserted.
+ */
+@Repository
+public class ScanContentWriter implements MeterBinder {
+
+    private static final String INSERT_JD_SQL =
+            "INSERT INTO job_description (hash, text, created_at) VALUES (?, ?, ?) ON CONFLICT (hash) DO NOTHING";
+
+    private static final String INSERT_RESUME_SQL =
+            "INSERT INTO resume_file (hash, size_bytes, created_at) VALUES (?, ?, ?) ON CONFLICT (hash) DO NOTHING";
+
+    // About 100k hashes at ~160 bytes each.
+    private static final long KNOWN_MAX_WEIGHT = 16L * 1024 * 1024;
+
+    private final JdbcTemplate jdbc;
+    private final LruCache<String, Boolean> known = new LruCache<>(KNOWN_MAX_WEIGHT, Duration.ZERO, v -> 160);
+
+    public ScanContentWriter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertMissing(List<ResumeScan> scans) {
+        Map<String, ResumeScan> jds = new LinkedHashMap<>();
+        Map<String, ResumeScan> resumes = new LinkedHashMap<>();
+        for (ResumeScan s : scans) {
+            String jd = s.getJobDescriptionHash();
+            if (jd != null && s.getJobDescription() != null && known.getIfPresent("jd:" + jd) == null) {
+                jds.putIfAbsent(jd, s);
+            }
+            String resume = s.getResumeHash();
+            if (resume != null && known.getIfPresent("resume:" + resume) == null) resumes.putIfAbsent(resume, s);
+        }
+
+        if (!jds.isEmpty()) {
+            List<ResumeScan> rows = new ArrayList<>(jds.values());
+            jdbc.batchUpdate(INSERT_JD_SQL, rows, rows.size(), (ps, s) -> {
+                ps.setString(1, s.getJobDescriptionHash());
+                ps.setString(2, s.getJobDescription());
+                ps.setTimestamp(3, Timestamp.from(s.getCreatedAt()));
+            });
+            for (String h : jds.keySet()) known.put("jd:" + h, Boolean.TRUE);
+        }
+        if (!resumes.isEmpty()) {
+            List<ResumeScan> rows = new ArrayList<>(resumes.values());
+            jdbc.batchUpdate(INSERT_RESUME_SQL, rows, rows.size(), (ps, s) -> {
+                ps.setString(1, s.getResumeHash());
+                ps.setLong(2, s.getResumeSizeBytes());
+                ps.setTimestamp(3, Timestamp.from(s.getCreatedAt()));
+            });
+            for (String h : resumes.keySet()) known.put("resume:" + h, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ats.scan_content.known_hits", known, LruCache::hits)
+                .description("Job descriptions and resume files already stored, found without a query")
+                .register(registry);
+        FunctionCounter.builder("ats.scan_content.known_misses", known, LruCache::misses).register(registry);
+    }
+}
@@ -0,0 +1,13 @@
+package com.itap.ats.service;
+
+/** The model answered, but not with the JSON we asked for. */
+public class AiOutputException extends RuntimeException {
+
+    public AiOutputException(String message) {
+        super(message);
+    }
+
+    public AiOutputException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,106 @@
+package com.itap.ats.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.itap.ats.dto.AiSuggestionsResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses the model's JSON answer while it is still being generated. Text is fed in
+ * whatever pieces the API streams, and each top-level field is reported as soon as its
+ * value is complete, so the summary can be shown before the bullets are written.
+ */
+class AiSuggestionStreamParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private final BiConsumer<String, JsonNode> onField;
+    private final JsonParser parser;
+    private final ObjectNode root = MAPPER.createObjectNode();
+
+    private boolean started;
+    private boolean done;
+    private int depth;
+    private String field;
+    private TokenBuffer value;
+
+    AiSuggestionStreamParser(BiConsumer<String, JsonNode> onField) {
+        this.onField = onField;
+        try {
+            this.parser = FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void feed(String text) {
+        if (done || text == null || text.isEmpty()) return;
+        if (!started) {
+            // Models sometimes put a few words or a code fence before the object.
+            int brace = text.indexOf('{');
+            if (brace < 0) return;
+            text = text.substring(brace);
+            started = true;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            throw new AiOutputException("AI output was not valid JSON.", e);
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken t;
+        while (!done && (t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+            if (depth == 0) {
+                if (t == JsonToken.START_OBJECT) depth = 1;
+                continue;
+            }
+            if (depth == 1) {
+                if (t == JsonToken.END_OBJECT) {
+                    done = true;
+                } else if (t == JsonToken.FIELD_NAME) {
+                    field = parser.currentName();
+                    value = new TokenBuffer(parser);
+                } else {
+                    value.copyCurrentEvent(parser);
+                    if (t.isStructStart()) depth++;
+                    else emit();
+                }
+                continue;
+            }
+            value.copyCurrentEvent(parser);
+            if (t.isStructStart()) depth++;
+            else if (t.isStructEnd() && --depth == 1) emit();
+        }
+    }
+
+    private void emit() throws IOException {
+        JsonNode node = MAPPER.readTree(value.asParser());
+        root.set(field, node);
+        onField.accept(field, node);
+        value = null;
+    }
+
+    /** The whole answer; fails if the object never closed. */
+    AiSuggestionsResponse result() {
+        if (!done) throw new AiOutputException("AI output ended before the JSON was complete.");
+        try {
+            return MAPPER.treeToValue(root, AiSuggestionsResponse.class);
+        } catch (IOException e) {
+            throw new AiOutputException("AI output was not valid JSON.", e);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.itap.ats.service;
 
-import com.itap.ats.util.TextUtil;
+import com.itap.ats.util.KeywordMatcher;
+import com.itap.ats.util.StreamingNormalizer;
+import com.itap.ats.util.Synonyms;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class AtsScorer {
+public class AtsScorer implements MeterBinder {
+
+    private Timer scoreTimer;
+    private DistributionSummary textLength;
+    private DistributionSummary keywordCount;
 
     public static class Result {
         public int totalScore;
@@ -18,46 +29,98 @@ public class AtsScorer {
 
         public Map<String, Boolean> sectionChecks;
         public List<String> suggestions;
+
+        // Where each detected section heading starts in the raw resume text.
+        public Map<String, Integer> headingOffsets;
     }
 
     public Result score(String resumeTextRaw, String jobDescriptionRaw) {
-        String resumeText = TextUtil.normalize(resumeTextRaw);
-        String jobDesc = jobDescriptionRaw == null ? "" : jobDescriptionRaw;
+        return score(resumeTextRaw, JobProfile.compile(jobDescriptionRaw == null ? "" : jobDescriptionRaw));
+    }
 
-        // Keyword scoring
-        List<String> keywords = TextUtil.extractKeywords(jobDesc);
-        List<String> matched = new ArrayList<>();
-        List<String> missing = new ArrayList<>();
+    public Result score(String resumeTextRaw, JobProfile profile) {
+        Accumulator acc = start(profile);
+        acc.feed(resumeTextRaw);
+        return acc.finish();
+    }
 
-        for (String k : keywords) {
-            String kn = TextUtil.normalize(k);
-            if (kn.isBlank()) continue;
-            if (TextUtil.containsWhole(resumeText, kn)) matched.add(k);
-            else missing.add(k);
+    public Accumulator start(JobProfile profile) {
+        return new Accumulator(profile);
+    }
+
+    /**
+     * Scores a resume that arrives in chunks (for example one PDF page at a time) without
+     * holding the whole text.
+     */
+    public class Accumulator {
+
+        private final JobProfile profile;
+        private final KeywordMatcher.Scanner scanner;
+        private final Synonyms.Mapper synonyms;
+        private final StreamingNormalizer normalizer;
+        private final SectionAnalyzer sections = new SectionAnalyzer();
+        // Time spent in the scorer only, not waiting for the next chunk.
+        private long nanos;
+        private long chars;
+
+        Accumulator(JobProfile profile) {
+            this.profile = profile;
+            this.scanner = profile.getMatcher().scanner();
+            this.synonyms = profile.getSynonyms().mapper(scanner);
+            this.normalizer = new StreamingNormalizer(synonyms);
         }
 
-        int keywordScore = 0;
-        if (!keywords.isEmpty()) {
-            double ratio = (double) matched.size() / (double) keywords.size();
-            keywordScore = (int) Math.round(ratio * 100.0);
+        public void feed(String chunk) {
+            if (chunk == null || chunk.isEmpty()) return;
+            long t0 = System.nanoTime();
+            normalizer.feed(chunk);
+            sections.feed(chunk);
+            chars += chunk.length();
+            nanos += System.nanoTime() - t0;
         }
 
-        // Section checks
-        Map<String, Boolean> checks = new LinkedHashMap<>();
-        checks.put("Contact Info", hasContactInfo(resumeTextRaw));
-        checks.put("Summary", hasAnyHeading(resumeTextRaw, "summary", "professional summary", "profile"));
-        checks.put("Skills", hasAnyHeading(resumeTextRaw, "skills", "technical skills", "core skills"));
-        checks.put("Experience", hasAnyHeading(resumeTextRaw, "experience", "work experience", "professional experience", "employment"));
-        checks.put("Education", hasAnyHeading(resumeTextRaw, "education"));
-        checks.put("Projects", hasAnyHeading(resumeTextRaw, "projects", "project experience"));
-        checks.put("Certifications", hasAnyHeading(resumeTextRaw, "certifications", "certification"));
+        /** True once the result can no longer change, so the caller may stop feeding text. */
+        public boolean isComplete() {
+            return scanner.allFound() && sections.isComplete();
+        }
 
-        int passed = 0;
-        for (Boolean v : checks.values()) if (Boolean.TRUE.equals(v)) passed++;
-        int sectionScore = (int) Math.round(((double) passed / (double) checks.size()) * 100.0);
+        public Result finish() {
+            long t0 = System.nanoTime();
+            synonyms.flush();
+            sections.finish();
+            Result r = buildResult(profile, scanner.finish(), sections.checks());
+            r.headingOffsets = sections.headingOffsets();
+            if (scoreTimer != null) {
+                scoreTimer.record(nanos + System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                textLength.record(chars);
+                keywordCount.record(profile.getKeywords().size());
+            }
+            return r;
+        }
+    }
 
-        // Weighted total: 70% keywords + 30% sections
-        int totalScore = (int) Math.round(keywordScore * 0.70 + sectionScore * 0.30);
+    private Result buildResult(JobProfile profile, BitSet found, Map<String, Boolean> checks) {
+        // Keyword scoring
+        List<String> keywords = profile.getKeywords();
+        List<String> keywordsNorm = profile.getKeywordsNorm();
+
+        List<String> matched = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        double matchedWeight = 0;
+
+        for (int i = 0; i < keywords.size(); i++) {
+            if (keywordsNorm.get(i).isBlank()) continue;
+            if (found.get(i)) {
+                matched.add(keywords.get(i));
+                matchedWeight += profile.weight(i);
+            } else {
+                missing.add(keywords.get(i));
+            }
+        }
+
+        int keywordScore = keywordScore(matchedWeight, profile.totalWeight());
+        int sectionScore = sectionScore(checks);
+        int totalScore = totalScore(keywordScore, sectionScore);
 
         List<String> suggestions = buildSuggestions(totalScore, keywordScore, sectionScore, checks, missing);
 
@@ -72,25 +135,39 @@ public class AtsScorer {
         return r;
     }
 
-    private boolean hasAnyHeading(String raw, String... headings) {
-        if (raw == null) return false;
-        String lower = raw.toLowerCase(Locale.ROOT);
-        for (String h : headings) {
-            if (lower.contains("\n" + h) || lower.contains("\r\n" + h) || lower.contains(h + "\n") || lower.contains(h + "\r\n")) {
-                return true;
-            }
-            if (lower.contains(h)) return true;
-        }
-        return false;
+    // The formulas are shared with ResumeIndex so ranked search scores exactly like a scan.
+    // Weights are summed in keyword order on both sides, so the doubles come out identical.
+
+    static int keywordScore(double matchedWeight, double totalWeight) {
+        if (totalWeight == 0) return 0;
+        double ratio = matchedWeight / totalWeight;
+        return (int) Math.round(ratio * 100.0);
     }
 
-    private boolean hasContactInfo(String raw) {
-        if (raw == null) return false;
-        String lower = raw.toLowerCase(Locale.ROOT);
+    static int sectionScore(Map<String, Boolean> checks) {
+        int passed = 0;
+        for (Boolean v : checks.values()) if (Boolean.TRUE.equals(v)) passed++;
+        return (int) Math.round(((double) passed / (double) checks.size()) * 100.0);
+    }
+
+    // Weighted total: 70% keywords + 30% sections
+    static int totalScore(int keywordScore, int sectionScore) {
+        return (int) Math.round(keywordScore * 0.70 + sectionScore * 0.30);
+    }
 
-        boolean hasEmail = lower.matches("(?s).*\\b[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}\\b.*");
-        boolean hasPhone = lower.matches("(?s).*\\b(\\+?1[-.\\s]?)?(\\(?\\d{3}\\)?[-.\\s]?)\\d{3}[-.\\s]?\\d{4}\\b.*");
-        return hasEmail || hasPhone;
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        scoreTimer = Timer.builder("ats.score")
+                .description("Keyword and section scoring of one resume")
+                .register(registry);
+        textLength = DistributionSummary.builder("ats.resume.text_length")
+                .description("Characters of resume text scored")
+                .baseUnit("chars")
+                .register(registry);
+        keywordCount = DistributionSummary.builder("ats.job.keywords")
+                .description("Keywords extracted from the job description a resume is scored against")
+                .baseUnit("keywords")
+                .register(registry);
     }
 
     private List<String> buildSuggestions(int total, int kw, int sec,
@@ -0,0 +1,343 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.BatchScanItem;
+import com.itap.ats.dto.BatchScanSummary;
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.repo.ResumeScanBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Scores many resumes against one job description. The JD is compiled once, resumes are
+ * extracted and scored in parallel on the scan executor, and results are written with
+ * JDBC batch inserts.
+ *
+ * A batch insert that fails is retried row by row. A row the database rejects is reported
+ * as failed in the summary; when the database is unavailable, the rest go to
+ * {@link ScanWriteBehind}, which spills and replays them, so every result sent with an id
+ * is saved. Without write-behind those are reported as failed too.
+ *
+ * Uploads are copied to a temporary directory per batch ({@code ats.batch.temp-dir}, the
+ * system temp directory by default) and each task reads its own PDF when it runs, so heap
+ * holds at most one PDF per scan thread however large the batch. The directory is deleted
+ * once the batch is finished.
+ */
+@Service
+public class BatchScanService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchScanService.class);
+    private static final String NOT_SAVED = "Could not save the result.";
+
+    public static class Upload {
+        public final String filename;
+        public final Path file;
+
+        public Upload(String filename, Path file) {
+            this.filename = filename;
+            this.file = file;
+        }
+    }
+
+    private final ScanService scanService;
+    private final JobProfileCache jobProfileCache;
+    private final ResumeScanBatchWriter batchWriter;
+    private final ScanWriteBehind writeBehind;
+    private final ThreadPoolTaskExecutor executor;
+    private final int maxFiles;
+    private final long maxFileBytes;
+    private final long maxTotalBytes;
+    private final int insertBatchSize;
+    private final String tempDir;
+
+    public BatchScanService(ScanService scanService,
+                            JobProfileCache jobProfileCache,
+                            ResumeScanBatchWriter batchWriter,
+                            ScanWriteBehind writeBehind,
+                            @Qualifier("scanExecutor") ThreadPoolTaskExecutor executor,
+                            @Value("${ats.batch.max-files:500}") int maxFiles,
+                            @Value("${spring.servlet.multipart.max-file-size:10MB}") DataSize maxFileSize,
+                            @Value("${ats.batch.max-total-bytes:200MB}") DataSize maxTotalSize,
+                            @Value("${ats.batch.insert-batch-size:50}") int insertBatchSize,
+                            @Value("${ats.batch.temp-dir:}") String tempDir) {
+        this.scanService = scanService;
+        this.jobProfileCache = jobProfileCache;
+        this.batchWriter = batchWriter;
+        this.writeBehind = writeBehind;
+        this.executor = executor;
+        this.maxFiles = maxFiles;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.maxTotalBytes = maxTotalSize.toBytes();
+        this.insertBatchSize = insertBatchSize;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Copies the uploaded PDFs (and PDFs inside uploaded zip files) to a new temporary
+     * directory. Runs on the request thread so nothing depends on the multipart files after
+     * the request returns. The bytes kept for one batch, counted after decompression, are
+     * capped at {@code ats.batch.max-total-bytes}, so a small zip cannot expand without bound.
+     * Pass the result to {@link #scanBatch} or {@link #discard}.
+     */
+    public List<Upload> readUploads(List<MultipartFile> files, String jobDescription) {
+        scanService.validateJobDescription(jobDescription);
+        if (files == null || files.isEmpty()) {
+            throw new RuntimeException("At least one resume file is required.");
+        }
+
+        Path dir;
+        try {
+            dir = tempDir == null || tempDir.isBlank() ? Files.createTempDirectory("ats-batch-")
+                    : Files.createTempDirectory(Files.createDirectories(Path.of(tempDir)), "ats-batch-");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store the uploaded files.", e);
+        }
+        List<Upload> uploads = new ArrayList<>();
+        try {
+            long total = 0;
+            for (MultipartFile f : files) {
+                if (f == null || f.isEmpty()) continue;
+                String name = f.getOriginalFilename() == null ? "" : f.getOriginalFilename();
+                try (InputStream in = f.getInputStream()) {
+                    if (name.toLowerCase().endsWith(".zip")) {
+                        total = readZip(in, dir, uploads, total);
+                    } else {
+                        scanService.validatePdfFilename(name);
+                        total = checkTotal(total + f.getSize());
+                        Path file = dir.resolve(uploads.size() + ".pdf");
+                        Files.copy(in, file);
+                        uploads.add(new Upload(name, file));
+                    }
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException("Could not read uploaded file " + name, e);
+                }
+                if (uploads.size() > maxFiles) {
+                    throw new RuntimeException("Too many resumes in one batch (max " + maxFiles + ").");
+                }
+            }
+            if (uploads.isEmpty()) {
+                throw new RuntimeException("No PDF resumes found in the upload.");
+            }
+            return uploads;
+        } catch (RuntimeException e) {
+            deleteDir(dir);
+            throw e;
+        }
+    }
+
+    /** Returns {@code total} plus the bytes extracted from the zip. */
+    private long readZip(InputStream in, Path dir, List<Upload> uploads, long total) throws Exception {
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            byte[] buf = new byte[8192];
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.toLowerCase().endsWith(".pdf")) continue;
+                String base = name.substring(name.lastIndexOf('/') + 1);
+                if (base.startsWith(".")) continue; // __MACOSX/._foo.pdf and friends
+
+                // Numbered, never named after the entry, so a crafted path cannot leave the directory.
+                Path file = dir.resolve(uploads.size() + ".pdf");
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    long size = 0;
+                    int n;
+                    while ((n = zip.read(buf)) > 0) {
+                        size += n;
+                        if (size > maxFileBytes) {
+                            throw new RuntimeException("Resume " + base + " in zip is larger than the upload limit.");
+                        }
+                        total = checkTotal(total + n);
+                        out.write(buf, 0, n);
+                    }
+                }
+                uploads.add(new Upload(base, file));
+                if (uploads.size() > maxFiles) {
+                    throw new RuntimeException("Too many resumes in one batch (max " + maxFiles + ").");
+                }
+            }
+        }
+        return total;
+    }
+
+    /** Deletes the files {@link #readUploads} stored, for a batch that will not be scanned. */
+    public void discard(List<Upload> uploads) {
+        if (uploads.isEmpty()) return;
+        deleteDir(uploads.get(0).file.getParent());
+    }
+
+    private static void deleteDir(Path dir) {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.warn("Could not delete batch upload directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private long checkTotal(long total) {
+        if (total > maxTotalBytes) {
+            throw new RuntimeException("Resumes in one batch are larger than the upload limit.");
+        }
+        return total;
+    }
+
+    /**
+     * Scans every upload in parallel. {@code onItem} is called from worker threads as each
+     * resume finishes; the returned future completes once everything is persisted, and the
+     * uploaded files are deleted. If it throws instead, the files are deleted before it does.
+     */
+    public CompletableFuture<BatchScanSummary> scanBatch(List<Upload> uploads, String jobDescription,
+                                                         Consumer<BatchScanItem> onItem) {
+        List<ResumeScan> pending = new ArrayList<>();
+        Set<UUID> unsaved = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<BatchScanItem>> futures = new ArrayList<>(uploads.size());
+        JobProfile profile;
+        try {
+            profile = jobProfileCache.get(jobDescription);
+            for (Upload u : uploads) {
+                CompletableFuture<BatchScanItem> f;
+                try {
+                    f = CompletableFuture.supplyAsync(() -> scanOne(u, jobDescription, profile, pending, unsaved), executor);
+                } catch (TaskRejectedException e) {
+                    f = CompletableFuture.completedFuture(failed(u.filename, "Server is busy, try again later."));
+                }
+                futures.add(f.thenApply(item -> {
+                    onItem.accept(item);
+                    return item;
+                }));
+            }
+        } catch (RuntimeException e) {
+            // The caller gets no future, so nothing else would delete the files.
+            discard(uploads);
+            throw e;
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    flush(pending, 0, unsaved);
+                    return summarize(futures, unsaved, profile);
+                })
+                .whenComplete((summary, err) -> discard(uploads));
+    }
+
+    private BatchScanItem scanOne(Upload u, String jobDescription, JobProfile profile, List<ResumeScan> pending,
+                                  Set<UUID> unsaved) {
+        AtsScorer.Result result;
+        byte[] pdf;
+        String resumeId;
+        try {
+            pdf = Files.readAllBytes(u.file);
+            resumeId = scanService.resumeIdOf(pdf);
+            result = scanService.scoreResume(resumeId, pdf, profile);
+        } catch (ServiceBusyException e) {
+            return failed(u.filename, "Server is busy, try again later.");
+        } catch (Exception e) {
+            return failed(u.filename, "Could not read the PDF file.");
+        }
+        ResumeScan scan = scanService.toEntity(u.filename, pdf, resumeId, jobDescription, profile, result);
+
+        synchronized (pending) {
+            pending.add(scan);
+        }
+        flush(pending, insertBatchSize, unsaved);
+        if (unsaved.contains(scan.getId())) return failed(u.filename, NOT_SAVED);
+
+        BatchScanItem item = new BatchScanItem();
+        item.id = scan.getId();
+        item.resumeFilename = u.filename;
+        item.resumeId = resumeId;
+        item.totalScore = result.totalScore;
+        item.keywordScore = result.keywordScore;
+        item.sectionScore = result.sectionScore;
+        item.missingKeywords = result.missingKeywords;
+        return item;
+    }
+
+    /** Never throws; ids of scans that were not saved and will not be are added to {@code unsaved}. */
+    private void flush(List<ResumeScan> pending, int minSize, Set<UUID> unsaved) {
+        List<ResumeScan> batch;
+        synchronized (pending) {
+            if (pending.isEmpty() || pending.size() < minSize) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        try {
+            batchWriter.insertAll(batch);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Could not save a batch of {} scans, retrying one at a time: {}", batch.size(), e.getMessage());
+        }
+
+        boolean databaseDown = false;
+        for (ResumeScan scan : batch) {
+            if (!databaseDown) {
+                try {
+                    batchWriter.insertAll(List.of(scan));
+                    continue;
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("Could not save scan {}: {}", scan.getId(), e.getMessage());
+                    unsaved.add(scan.getId());
+                    continue;
+                } catch (RuntimeException e) {
+                    // Not this row's fault; stop paying a failed round trip per row.
+                    databaseDown = true;
+                }
+            }
+            if (writeBehind.isEnabled()) writeBehind.submit(scan);
+            else unsaved.add(scan.getId());
+        }
+    }
+
+    private BatchScanItem failed(String filename, String error) {
+        BatchScanItem item = new BatchScanItem();
+        item.resumeFilename = filename;
+        item.error = error;
+        return item;
+    }
+
+    private BatchScanSummary summarize(List<CompletableFuture<BatchScanItem>> futures, Set<UUID> unsaved,
+                                       JobProfile profile) {
+        List<BatchScanItem> items = new ArrayList<>(futures.size());
+        for (CompletableFuture<BatchScanItem> f : futures) {
+            BatchScanItem item = f.join();
+            // Sent as a result already, but its batch was flushed after that and failed.
+            if (item.id != null && unsaved.contains(item.id)) item = failed(item.resumeFilename, NOT_SAVED);
+            items.add(item);
+        }
+
+        items.sort(Comparator.comparing((BatchScanItem i) -> i.error != null)
+                .thenComparing(i -> -i.totalScore)
+                .thenComparing(i -> -i.keywordScore));
+
+        BatchScanSummary s = new BatchScanSummary();
+        s.total = items.size();
+        for (BatchScanItem i : items) {
+            if (i.error == null) s.succeeded++;
+            else s.failed++;
+        }
+        s.keywordCount = profile.getKeywords().size();
+        s.ranked = items;
+        return s;
+    }
+}
@@ -0,0 +1,204 @@
+package com.itap.ats.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * On-disk text store that survives restarts. Texts are deflated and appended to a data
+ * file; a fixed-size open-addressing index of SHA-256 keys is memory-mapped, so a lookup
+ * is a few probes in the mapped index plus one positional read.
+ *
+ * The store is append-only. When the data file reaches its size limit both files are
+ * reset and the store starts over.
+ *
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}: reads and writes
+ * hit the disk while holding it, and a virtual thread blocked inside a monitor would pin
+ * its carrier thread.
+ */
+class DiskTextStore implements AutoCloseable {
+
+    // hash(32) | offset(8) | compressedLength(4) | rawLength(4)
+    private static final int SLOT_BYTES = 48;
+    private static final byte[] EMPTY_HASH = new byte[32];
+
+    private final FileChannel data;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final int slots;
+    private final long maxDataBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int used;
+
+    DiskTextStore(Path dir, int slots, long maxDataBytes) throws IOException {
+        if (Integer.bitCount(slots) != 1) throw new IllegalArgumentException("Index slots must be a power of two");
+        Files.createDirectories(dir);
+        this.slots = slots;
+        this.maxDataBytes = maxDataBytes;
+        this.data = FileChannel.open(dir.resolve("texts.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(dir.resolve("texts.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long indexBytes = (long) slots * SLOT_BYTES;
+        if (indexChannel.size() != indexBytes) {
+            // Missing or built with a different slot count: start fresh.
+            indexChannel.truncate(0);
+            data.truncate(0);
+        }
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexBytes);
+
+        byte[] h = new byte[32];
+        for (int i = 0; i < slots; i++) {
+            index.get(i * SLOT_BYTES, h);
+            if (!Arrays.equals(h, EMPTY_HASH)) used++;
+        }
+    }
+
+    String get(byte[] hash) {
+        lock.lock();
+        try {
+            int slot = find(hash);
+            if (slot < 0) return null;
+            int base = slot * SLOT_BYTES;
+            long offset = index.getLong(base + 32);
+            int compressed = index.getInt(base + 40);
+            int raw = index.getInt(base + 44);
+
+            try {
+                ByteBuffer buf = ByteBuffer.allocate(compressed);
+                while (buf.hasRemaining()) {
+                    if (data.read(buf, offset + buf.position()) < 0) return null;
+                }
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(buf.array());
+                    byte[] out = new byte[raw];
+                    int n = inflater.inflate(out);
+                    return n == raw ? new String(out, StandardCharsets.UTF_8) : null;
+                } finally {
+                    inflater.end();
+                }
+            } catch (IOException | DataFormatException e) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(byte[] hash, String text) {
+        lock.lock();
+        try {
+            if (find(hash) >= 0) return;
+            byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+            byte[] compressed = deflate(raw);
+
+            try {
+                long offset = data.size();
+                if (offset + compressed.length > maxDataBytes || used >= slots * 3 / 4) {
+                    reset();
+                    offset = 0;
+                }
+                ByteBuffer buf = ByteBuffer.wrap(compressed);
+                while (buf.hasRemaining()) data.write(buf, offset + buf.position());
+
+                int slot = freeSlot(hash);
+                int base = slot * SLOT_BYTES;
+                index.putLong(base + 32, offset);
+                index.putInt(base + 40, compressed.length);
+                index.putInt(base + 44, raw.length);
+                // Hash last: a slot only becomes visible once its location is written.
+                index.put(base, hash);
+                used++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int find(byte[] hash) {
+        byte[] h = new byte[32];
+        int mask = slots - 1;
+        for (int i = 0, slot = home(hash) & mask; i < slots; i++, slot = (slot + 1) & mask) {
+            index.get(slot * SLOT_BYTES, h);
+            if (Arrays.equals(h, EMPTY_HASH)) return -1;
+            if (Arrays.equals(h, hash)) return slot;
+        }
+        return -1;
+    }
+
+    private int freeSlot(byte[] hash) {
+        byte[] h = new byte[32];
+        int mask = slots - 1;
+        int slot = home(hash) & mask;
+        while (true) {
+            index.get(slot * SLOT_BYTES, h);
+            if (Arrays.equals(h, EMPTY_HASH)) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int home(byte[] hash) {
+        return ((hash[0] & 0xff) << 24) | ((hash[1] & 0xff) << 16) | ((hash[2] & 0xff) << 8) | (hash[3] & 0xff);
+    }
+
+    private void reset() throws IOException {
+        byte[] zeros = new byte[SLOT_BYTES];
+        for (int i = 0; i < slots; i++) index.put(i * SLOT_BYTES, zeros);
+        data.truncate(0);
+        used = 0;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            index.force();
+            data.close();
+            indexChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Inverse document frequency of JD keywords, built offline by {@link IdfTableBuilder} and
+ * memory-mapped read-only. The file is an open-addressing table of keyword hashes
+ * ({@link IndexTerms#ofKeyword}) to float IDF values, so a lookup is a few probes in the
+ * mapped file and nothing is loaded onto the heap. Keywords missing from the table were
+ * rarer than the builder's minimum document frequency and get the highest IDF.
+ *
+ * Keywords are hashed in the canonical forms of the synonym dictionary the table was
+ * built with. The header keeps a prefix of its fingerprint, and a table built with
+ * another dictionary is refused, since its weights would not line up with the keywords.
+ */
+public final class IdfTable {
+
+    static final int MAGIC = 0x41545346; // "ATSF"
+    // 2 added the synonyms prefix in what used to be reserved bytes.
+    static final int VERSION = 2;
+    // magic | version | docCount | slots | defaultIdf | synonyms(12)
+    static final int HEADER_BYTES = 32;
+    static final int SYNONYMS_OFFSET = 20;
+    static final int SYNONYMS_BYTES = 12;
+
+    private final ByteBuffer map;
+    private final int docCount;
+    private final int slots;
+    private final float defaultIdf;
+
+    private IdfTable(ByteBuffer map) {
+        this.map = map;
+        this.docCount = map.getInt(8);
+        this.slots = map.getInt(12);
+        this.defaultIdf = map.getFloat(16);
+    }
+
+    /** Opens a table built by {@link IdfTableBuilder} with the same synonym dictionary. */
+    public static IdfTable open(Path file, Synonyms synonyms) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) throw new IOException("Not an IDF table: " + file);
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            int slots = map.getInt(12);
+            if (map.getInt(0) != MAGIC || Integer.bitCount(slots) != 1 || size != HEADER_BYTES + 12L * slots) {
+                throw new IOException("Not an IDF table: " + file);
+            }
+            if (map.getInt(4) != VERSION) {
+                throw new IOException("IDF table " + file + " has format version " + map.getInt(4)
+                        + ", expected " + VERSION + "; rebuild it with IdfTableBuilder");
+            }
+            byte[] built = new byte[SYNONYMS_BYTES];
+            map.get(SYNONYMS_OFFSET, built);
+            if (!Arrays.equals(built, synonymsId(synonyms))) {
+                throw new IllegalStateException("The IDF table at " + file + " was built with another synonym"
+                        + " dictionary than ats.scoring.synonyms. Rebuild it with IdfTableBuilder synonyms=<the"
+                        + " same dictionary>, or restore the dictionary it was built with.");
+            }
+            return new IdfTable(map);
+        }
+    }
+
+    /** Number of job descriptions the table was built from. */
+    public int docCount() {
+        return docCount;
+    }
+
+    /** IDF of a normalized keyword, as produced by {@link com.itap.ats.util.TextUtil#extractKeywords(String)}. */
+    public float idf(String keywordNorm) {
+        long key = key(IndexTerms.ofKeyword(keywordNorm));
+        int mask = slots - 1;
+        for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+            long k = map.getLong(HEADER_BYTES + 8 * i);
+            if (k == key) return map.getFloat(HEADER_BYTES + 8 * slots + 4 * i);
+            if (k == 0) return defaultIdf;
+        }
+    }
+
+    /** First bytes of the dictionary's fingerprint; all zero for no dictionary. */
+    static byte[] synonymsId(Synonyms synonyms) {
+        String fingerprint = synonyms.fingerprint();
+        if (fingerprint.isEmpty()) return new byte[SYNONYMS_BYTES];
+        return HexFormat.of().parseHex(fingerprint, 0, 2 * SYNONYMS_BYTES);
+    }
+
+    /** Zero marks an empty slot, so the one term hashing to zero is stored as 1. */
+    static long key(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /** Smoothed IDF, always above zero. */
+    static float idf(int docCount, int docFrequency) {
+        return (float) (Math.log((docCount + 1.0) / (docFrequency + 1.0)) + 1.0);
+    }
+}
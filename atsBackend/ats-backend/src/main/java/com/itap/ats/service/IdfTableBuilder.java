@@ -0,0 +1,156 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TextUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link IdfTable} from a corpus of job descriptions: each JD's keywords are
+ * counted once, and keywords seen in at least {@code minDocFrequency} JDs are written
+ * with their IDF. Rarer ones are left out and get the table's default, the highest IDF.
+ *
+ * Run offline against the scan history or a directory of .txt files, then point
+ * {@code ats.scoring.idf.table} at the output. It runs from the executable jar that
+ * {@code mvn -Pfast-start package} writes next to the plain one:
+ *
+ * <pre>
+ * java -cp ats-backend-0.0.1-exec.jar -Dloader.main=com.itap.ats.service.IdfTableBuilder \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     out=data/idf.bin source=jdbc:postgresql://localhost:5432/ats min-df=2
+ * </pre>
+ *
+ * The database user and password come from SPRING_DATASOURCE_USERNAME and
+ * SPRING_DATASOURCE_PASSWORD. Keywords are counted in their canonical forms, using the
+ * bundled synonyms.txt unless {@code synonyms=<file>} names another dictionary (empty for
+ * none); it must match {@code ats.scoring.synonyms}, or the server refuses the table.
+ */
+public class IdfTableBuilder {
+
+    private final Map<Long, Integer> docFrequency = new HashMap<>();
+    private final Synonyms synonyms;
+    private int docCount;
+
+    public IdfTableBuilder() {
+        this(Synonyms.NONE);
+    }
+
+    public IdfTableBuilder(Synonyms synonyms) {
+        this.synonyms = synonyms;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>(Map.of("min-df", "2"));
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0) opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        if (!opts.containsKey("out") || !opts.containsKey("source")) {
+            System.err.println("usage: out=<file> source=<jdbc url | directory of .txt files> [min-df=2] [synonyms=<file>]");
+            System.exit(2);
+        }
+
+        Synonyms synonyms;
+        String synonymsFile = opts.get("synonyms");
+        if (synonymsFile == null) {
+            try (InputStream in = IdfTableBuilder.class.getResourceAsStream("/synonyms.txt")) {
+                synonyms = Synonyms.load(in);
+            }
+        } else if (synonymsFile.isBlank()) {
+            synonyms = Synonyms.NONE;
+        } else {
+            try (InputStream in = Files.newInputStream(Path.of(synonymsFile))) {
+                synonyms = Synonyms.load(in);
+            }
+        }
+        IdfTableBuilder builder = new IdfTableBuilder(synonyms);
+        String source = opts.get("source");
+        if (source.startsWith("jdbc:")) {
+            builder.addFromDatabase(source, System.getenv("SPRING_DATASOURCE_USERNAME"),
+                    System.getenv("SPRING_DATASOURCE_PASSWORD"));
+        } else {
+            try (Stream<Path> files = Files.walk(Path.of(source))) {
+                for (Path p : files.filter(f -> f.toString().endsWith(".txt")).toList()) {
+                    builder.add(Files.readString(p, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        int terms = builder.write(Path.of(opts.get("out")), Integer.parseInt(opts.get("min-df")));
+        System.out.printf("%d job descriptions, %d keywords written to %s%n", builder.docCount, terms, opts.get("out"));
+    }
+
+    /** Every distinct job description in the scan history (stored once per content hash). */
+    void addFromDatabase(String url, String user, String password) throws Exception {
+        try (Connection c = DriverManager.getConnection(url, user, password)) {
+            // Streams rows instead of loading the whole result (needs autocommit off on Postgres).
+            c.setAutoCommit(false);
+            try (Statement st = c.createStatement()) {
+                st.setFetchSize(500);
+                try (ResultSet rs = st.executeQuery("SELECT text FROM job_description")) {
+                    while (rs.next()) add(rs.getString(1));
+                }
+            }
+        }
+    }
+
+    public void add(String jobDescription) {
+        if (jobDescription == null || jobDescription.isBlank()) return;
+        Set<Long> seen = new HashSet<>();
+        for (String k : TextUtil.extractKeywords(jobDescription, synonyms)) {
+            long key = IdfTable.key(IndexTerms.ofKeyword(k));
+            if (seen.add(key)) docFrequency.merge(key, 1, Integer::sum);
+        }
+        docCount++;
+    }
+
+    /** Writes the table atomically and returns the number of keywords in it. */
+    public int write(Path file, int minDocFrequency) throws IOException {
+        int terms = 0;
+        for (int df : docFrequency.values()) if (df >= minDocFrequency) terms++;
+        // At most half full, so probes stay short and always reach an empty slot.
+        int slots = Integer.highestOneBit(Math.max(8, terms * 2 - 1)) << 1;
+        long size = IdfTable.HEADER_BYTES + 12L * slots;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            ByteBuffer out = map.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(0, IdfTable.MAGIC).putInt(4, IdfTable.VERSION).putInt(8, docCount).putInt(12, slots)
+                    .putFloat(16, IdfTable.idf(docCount, 0))
+                    .put(IdfTable.SYNONYMS_OFFSET, IdfTable.synonymsId(synonyms));
+            int mask = slots - 1;
+            for (Map.Entry<Long, Integer> e : docFrequency.entrySet()) {
+                if (e.getValue() < minDocFrequency) continue;
+                long key = e.getKey();
+                int i = (int) key & mask;
+                while (out.getLong(IdfTable.HEADER_BYTES + 8 * i) != 0) i = (i + 1) & mask;
+                out.putLong(IdfTable.HEADER_BYTES + 8 * i, key);
+                out.putFloat(IdfTable.HEADER_BYTES + 8 * slots + 4 * i, IdfTable.idf(docCount, e.getValue()));
+            }
+            map.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return terms;
+    }
+}
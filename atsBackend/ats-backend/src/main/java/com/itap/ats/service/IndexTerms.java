@@ -0,0 +1,139 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TextUtil;
+import com.itap.ats.util.Tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * The terms a resume is indexed under, as 64-bit hashes. A term is every span of the
+ * normalized text that a JD keyword could match with {@link com.itap.ats.util.KeywordMatcher}'s
+ * whole-word rule: a span inside one token, or a token tail, one space and the next
+ * token's head, that starts at a token start or after a non-word character and ends at a
+ * token end or before one, with at least three characters per side. So "ci/cd" is indexed
+ * as "ci/cd" and "cd" is not (too short), and "spring boot" is indexed as a pair.
+ *
+ * Looking up the hash of a keyword therefore finds exactly the resumes the scorer would
+ * match it in, as long as the text and the JD went through the same {@link Synonyms}.
+ * Tokens with more than {@link #MAX_CUTS} inner separators only index their first cuts.
+ */
+final class IndexTerms {
+
+    static final int MAX_CUTS = 16;
+    private static final int MIN_PART = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private IndexTerms() {
+    }
+
+    /** Sorted, distinct term hashes of a raw resume text. */
+    static long[] ofText(String rawText, Synonyms synonyms) {
+        Tokenizer t = new Tokenizer(rawText == null ? 0 : rawText.length(), synonyms);
+        t.feed(rawText).finish();
+        char[] text = t.text();
+
+        long[] out = new long[Math.max(16, 4 * t.count())];
+        int n = 0;
+        int[] starts = new int[MAX_CUTS + 1];
+        int[] ends = new int[MAX_CUTS + 1];
+        int[] nextStarts = new int[MAX_CUTS + 1];
+        int[] nextEnds = new int[MAX_CUTS + 1];
+        int startCount = 0;
+        int endCount = 0;
+
+        for (int i = 0; i < t.count(); i++) {
+            if (i == 0) {
+                startCount = starts(text, t.start(i), t.end(i), starts);
+                endCount = ends(text, t.start(i), t.end(i), ends);
+            }
+            int e = t.end(i);
+
+            for (int a = 0; a < startCount; a++) {
+                for (int b = 0; b < endCount; b++) {
+                    if (ends[b] - starts[a] < MIN_PART) continue;
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = hash(text, starts[a], ends[b]);
+                }
+            }
+
+            if (i + 1 < t.count()) {
+                int ns = t.start(i + 1);
+                int ne = t.end(i + 1);
+                int nextStartCount = starts(text, ns, ne, nextStarts);
+                int nextEndCount = ends(text, ns, ne, nextEnds);
+                // Pairs: a tail of this token that runs to its end, then a head of the next one.
+                for (int a = 0; a < startCount; a++) {
+                    if (e - starts[a] < MIN_PART) continue;
+                    for (int b = 0; b < nextEndCount; b++) {
+                        if (nextEnds[b] - ns < MIN_PART) continue;
+                        if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                        out[n++] = hash(text, starts[a], nextEnds[b]);
+                    }
+                }
+                int[] tmp = starts; starts = nextStarts; nextStarts = tmp;
+                tmp = ends; ends = nextEnds; nextEnds = tmp;
+                startCount = nextStartCount;
+                endCount = nextEndCount;
+            }
+        }
+
+        Arrays.sort(out, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || out[i] != out[distinct - 1]) out[distinct++] = out[i];
+        }
+        return Arrays.copyOf(out, distinct);
+    }
+
+    /** Hash of a normalized keyword, as produced by {@link TextUtil#extractKeywords(String)}. */
+    static long ofKeyword(CharSequence keywordNorm) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < keywordNorm.length(); i++) {
+            h ^= keywordNorm.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    private static long hash(char[] text, int from, int to) {
+        long h = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            h ^= text[i];
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 finalizer, so near-identical short terms spread over all 64 bits.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Where a match may start inside the token: its start, and after each non-word character. */
+    private static int starts(char[] text, int s, int e, int[] out) {
+        int n = 0;
+        out[n++] = s;
+        for (int p = s + 1; p < e && n < out.length; p++) {
+            if (!TextUtil.isWordChar(text[p - 1])) out[n++] = p;
+        }
+        return n;
+    }
+
+    /** Where a match may end inside the token: its end, and before each non-word character. */
+    private static int ends(char[] text, int s, int e, int[] out) {
+        int n = 0;
+        out[n++] = e;
+        for (int q = s + 1; q < e && n < out.length; q++) {
+            if (!TextUtil.isWordChar(text[q])) out[n++] = q;
+        }
+        return n;
+    }
+}
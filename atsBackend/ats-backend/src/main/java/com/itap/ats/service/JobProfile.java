@@ -0,0 +1,123 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.HashUtil;
+import com.itap.ats.util.KeywordMatcher;
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TextUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the scorer needs from a job description, computed once: the extracted
+ * keywords, their normalized forms and the compiled matcher.
+ *
+ * Compiled with an {@link IdfTable}, each keyword is weighted by its IDF, so phrases most
+ * JDs share ("team player", "communication skills") count for less than the rare ones
+ * that set the JD apart, and only the {@code topN} highest-weighted keywords are kept.
+ *
+ * Keywords are extracted in the canonical forms of the profile's {@link Synonyms}, and
+ * resume text must go through the same dictionary before it is matched.
+ */
+public class JobProfile {
+
+    private final String hash;
+    private final Synonyms synonyms;
+    private final List<String> keywords;
+    private final List<String> keywordsNorm;
+    private final KeywordMatcher matcher;
+    // null when every keyword counts the same
+    private final double[] weights;
+    private final double totalWeight;
+
+    private JobProfile(String hash, Synonyms synonyms, List<String> keywords, List<String> keywordsNorm,
+                       KeywordMatcher matcher, double[] weights) {
+        this.hash = hash;
+        this.synonyms = synonyms;
+        this.keywords = keywords;
+        this.keywordsNorm = keywordsNorm;
+        this.matcher = matcher;
+        this.weights = weights;
+        double total = keywords.size();
+        if (weights != null) {
+            total = 0;
+            for (double w : weights) total += w;
+        }
+        this.totalWeight = total;
+    }
+
+    public static JobProfile compile(String jobDescription) {
+        return compile(jobDescription, Synonyms.NONE);
+    }
+
+    public static JobProfile compile(String jobDescription, Synonyms synonyms) {
+        return compile(HashUtil.sha256Hex(jobDescription), jobDescription, synonyms);
+    }
+
+    static JobProfile compile(String hash, String jobDescription, Synonyms synonyms) {
+        // Extracted keywords are already normalized, so both lists share the same strings.
+        List<String> keywords = Collections.unmodifiableList(TextUtil.extractKeywords(jobDescription, synonyms));
+        return new JobProfile(hash, synonyms, keywords, keywords, KeywordMatcher.compile(keywords), null);
+    }
+
+    public static JobProfile compile(String jobDescription, IdfTable idf, int topN) {
+        return compile(jobDescription, Synonyms.NONE, idf, topN);
+    }
+
+    public static JobProfile compile(String jobDescription, Synonyms synonyms, IdfTable idf, int topN) {
+        return compile(HashUtil.sha256Hex(jobDescription), jobDescription, synonyms, idf, topN);
+    }
+
+    /** Weighted by {@code idf}, keeping the {@code topN} keywords with the highest IDF (all when 0). */
+    static JobProfile compile(String hash, String jobDescription, Synonyms synonyms, IdfTable idf, int topN) {
+        List<String> all = TextUtil.extractKeywords(jobDescription, synonyms);
+        float[] allWeights = new float[all.size()];
+        for (int i = 0; i < all.size(); i++) allWeights[i] = idf.idf(all.get(i));
+
+        boolean[] keep = new boolean[all.size()];
+        if (topN <= 0 || topN >= all.size()) {
+            Arrays.fill(keep, true);
+        } else {
+            // Highest IDF first, earlier keywords first on ties; the kept ones stay in JD order.
+            Integer[] order = new Integer[all.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> allWeights[a] != allWeights[b]
+                    ? Float.compare(allWeights[b], allWeights[a]) : Integer.compare(a, b));
+            for (int i = 0; i < topN; i++) keep[order[i]] = true;
+        }
+
+        List<String> kept = new ArrayList<>();
+        double[] weights = new double[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            if (!keep[i]) continue;
+            weights[kept.size()] = allWeights[i];
+            kept.add(all.get(i));
+        }
+        List<String> keywords = Collections.unmodifiableList(kept);
+        return new JobProfile(hash, synonyms, keywords, keywords, KeywordMatcher.compile(keywords),
+                Arrays.copyOf(weights, kept.size()));
+    }
+
+    public String getHash() { return hash; }
+    public Synonyms getSynonyms() { return synonyms; }
+    public List<String> getKeywords() { return keywords; }
+    public List<String> getKeywordsNorm() { return keywordsNorm; }
+    public KeywordMatcher getMatcher() { return matcher; }
+
+    public boolean isWeighted() { return weights != null; }
+
+    /** Weight of the i-th keyword: its IDF, or 1 when unweighted. */
+    public double weight(int i) { return weights == null ? 1.0 : weights[i]; }
+
+    public double totalWeight() { return totalWeight; }
+
+    /** Approximate retained size in bytes. */
+    public long estimatedBytes() {
+        long chars = 0;
+        for (String k : keywords) chars += k.length();
+        // keyword chars plus per-string overhead
+        return matcher.estimatedBytes() + 2 * chars + 48L * keywords.size() + (weights == null ? 0 : 8L * weights.length);
+    }
+}
@@ -0,0 +1,75 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.HashUtil;
+import com.itap.ats.util.LruCache;
+import com.itap.ats.util.Synonyms;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Compiled job profiles keyed by the SHA-256 of the job description text, so a JD
+ * scanned against many resumes is only processed once.
+ *
+ * With {@code ats.scoring.weighting=idf} profiles are weighted by the table at
+ * {@code ats.scoring.idf.table} (see {@link IdfTableBuilder}) and pruned to the
+ * {@code ats.scoring.idf.top-n} rarest keywords. Either way keywords are extracted in
+ * the canonical forms of the synonym dictionary.
+ */
+@Component
+public class JobProfileCache implements MeterBinder {
+
+    private final LruCache<String, JobProfile> cache;
+    private final Synonyms synonyms;
+    private final IdfTable idf;
+    private final int topN;
+
+    public JobProfileCache(Synonyms synonyms,
+                           @Value("${ats.job-profile-cache.max-size:32MB}") DataSize maxSize,
+                           @Value("${ats.job-profile-cache.ttl:1h}") Duration ttl,
+                           @Value("${ats.scoring.weighting:equal}") String weighting,
+                           @Value("${ats.scoring.idf.table:}") String idfTable,
+                           @Value("${ats.scoring.idf.top-n:40}") int topN) throws IOException {
+        this.cache = new LruCache<>(maxSize.toBytes(), ttl, JobProfile::estimatedBytes);
+        this.synonyms = synonyms;
+        if ("idf".equalsIgnoreCase(weighting)) {
+            if (idfTable == null || idfTable.isBlank()) {
+                throw new IllegalStateException("ats.scoring.weighting=idf needs ats.scoring.idf.table");
+            }
+            this.idf = IdfTable.open(Path.of(idfTable), synonyms);
+        } else if ("equal".equalsIgnoreCase(weighting)) {
+            this.idf = null;
+        } else {
+            throw new IllegalStateException("Unknown ats.scoring.weighting: " + weighting);
+        }
+        this.topN = topN;
+    }
+
+    public JobProfile get(String jobDescription) {
+        String jd = jobDescription == null ? "" : jobDescription;
+        return cache.get(HashUtil.sha256Hex(jd),
+                hash -> idf == null ? JobProfile.compile(hash, jd, synonyms)
+                        : JobProfile.compile(hash, jd, synonyms, idf, topN));
+    }
+
+    public LruCache<String, JobProfile> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ats.job_profile_cache.hits", cache, LruCache::hits).register(registry);
+        FunctionCounter.builder("ats.job_profile_cache.misses", cache, LruCache::misses).register(registry);
+        FunctionCounter.builder("ats.job_profile_cache.evictions", cache, LruCache::evictions).register(registry);
+        Gauge.builder("ats.job_profile_cache.size", cache, LruCache::size).register(registry);
+        Gauge.builder("ats.job_profile_cache.weight", cache, LruCache::weight).baseUnit("bytes").register(registry);
+    }
+}
@@ -9,7 +9,7 @@ public class JsonUtil {
         try {
             return mapper.readValue(json, clazz);
         } catch (Exception e) {
-            throw new RuntimeException("AI output was not valid JSON. Raw output:\n" + json, e);
+            throw new AiOutputException("AI output was not valid JSON. Raw output:\n" + json, e);
         }
     }
 }
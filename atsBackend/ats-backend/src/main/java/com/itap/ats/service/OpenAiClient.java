@@ -1,20 +1,96 @@
 package com.itap.ats.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.itap.ats.dto.AiSuggestionsResponse;
+import com.itap.ats.util.HashUtil;
+import com.itap.ats.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * Calls the OpenAI Responses API without holding a request thread. Identical requests
+ * (same resume text, JD, model and prompt version) are answered from a cache or joined
+ * onto the call already in flight; at most {@code ats.openai.max-in-flight} calls run at
+ * once. Each attempt has a timeout, and 429/5xx/network failures are retried with
+ * jittered exponential backoff.
+ */
 @Component
-public class OpenAiClient {
+public class OpenAiClient implements MeterBinder {
+
+    // Bump when the prompt text changes so cached answers to the old prompt are not reused.
+    static final String PROMPT_VERSION = "v2";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_EVENT = new ParameterizedTypeReference<>() {};
 
     private final WebClient client;
+    private final PromptCompactor compactor;
+    private final String model;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final int maxInFlight;
+    private final Semaphore inFlightLimit;
+    private final LruCache<String, AiSuggestionsResponse> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<AiSuggestionsResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private MeterRegistry registry;
+    private Counter retries;
+    private Counter parseFailures;
+
+    public OpenAiClient(PromptCompactor compactor,
+                        @Value("${OPENAI_API_KEY:}") String apiKey,
+                        @Value("${ats.openai.base-url:https://api.openai.com/v1}") String baseUrl,
+                        @Value("${ats.openai.model:gpt-5.2}") String model,
+                        @Value("${ats.openai.timeout:45s}") Duration timeout,
+                        @Value("${ats.openai.max-retries:2}") int maxRetries,
+                        @Value("${ats.openai.retry-backoff:500ms}") Duration retryBackoff,
+                        @Value("${ats.openai.max-in-flight:8}") int maxInFlight,
+                        @Value("${ats.openai.cache.max-size:8MB}") DataSize cacheSize,
+                        @Value("${ats.openai.cache.ttl:24h}") Duration cacheTtl) {
+        this.compactor = compactor;
+        this.model = model;
+        this.timeout = timeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.maxInFlight = maxInFlight;
+        this.inFlightLimit = new Semaphore(maxInFlight);
+        this.cache = new LruCache<>(cacheSize.toBytes(), cacheTtl, OpenAiClient::estimatedBytes);
 
-    public OpenAiClient(@Value("${OPENAI_API_KEY:}") String apiKey) {
         if (apiKey == null || apiKey.isBlank()) {
             // Don’t crash the app, but make it obvious later.
             this.client = null;
@@ -22,48 +98,243 @@ public class OpenAiClient {
         }
 
         this.client = WebClient.builder()
-                .baseUrl("https://api.openai.com/v1")
+                .baseUrl(baseUrl)
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .build();
     }
 
-    public AiSuggestionsResponse getSuggestions(String resumeText, String jobDescription) {
+    public CompletableFuture<AiSuggestionsResponse> getSuggestions(String resumeText, String jobDescription) {
+        if (client == null) {
+            throw new RuntimeException("OPENAI_API_KEY is not set on the server.");
+        }
+
+        String key = cacheKey(resumeText, jobDescription);
+        AiSuggestionsResponse cached = cache.getIfPresent(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<AiSuggestionsResponse> mine = new CompletableFuture<>();
+        CompletableFuture<AiSuggestionsResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.copy();
+        }
+
+        try {
+            acquire();
+        } catch (ServiceBusyException e) {
+            inFlight.remove(key, mine);
+            throw e;
+        }
+
+        String prompt;
+        try {
+            prompt = buildPrompt(compactor.compact(resumeText, jobDescription));
+        } catch (RuntimeException e) {
+            inFlightLimit.release();
+            inFlight.remove(key, mine);
+            throw e;
+        }
+        long start = System.nanoTime();
+        call(prompt).whenComplete((resp, err) -> {
+            record("blocking", start, err);
+            inFlightLimit.release();
+            if (err == null) cache.put(key, resp);
+            inFlight.remove(key, mine);
+            if (err == null) mine.complete(resp);
+            else mine.completeExceptionally(err instanceof CompletionException && err.getCause() != null ? err.getCause() : err);
+        });
+        return mine.copy();
+    }
+
+    /**
+     * Streams the answer: {@code onSection} receives each top-level field of the response
+     * (improvedSummary, skillsSuggestions, ...) as soon as the model has finished writing
+     * it. The future completes with the whole response. Cached answers are replayed at
+     * once. Streams are not coalesced, since each caller needs its own events.
+     */
+    public CompletableFuture<AiSuggestionsResponse> streamSuggestions(String resumeText, String jobDescription,
+                                                                      BiConsumer<String, JsonNode> onSection) {
         if (client == null) {
             throw new RuntimeException("OPENAI_API_KEY is not set on the server.");
         }
 
-        String prompt =
-                "You are an ATS resume coach. Given a resume text and a job description, generate ATS-friendly improvements.\n\n"
-                        + "Rules:\n"
-                        + "- Do not invent experience.\n"
-                        + "- Keep wording simple and natural.\n"
-                        + "- Output MUST be valid JSON with keys:\n"
-                        + "  improvedSummary (string),\n"
-                        + "  skillsSuggestions (array of strings),\n"
-                        + "  rewrittenExperienceBullets (array of strings),\n"
-                        + "  projectSuggestions (array of strings),\n"
-                        + "  keywordPlacementTips (array of strings),\n"
-                        + "  atsWarnings (array of strings).\n\n"
-                        + "Resume:\n" + resumeText + "\n\n"
-                        + "Job Description:\n" + jobDescription;
+        String key = cacheKey(resumeText, jobDescription);
+        AiSuggestionsResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            ObjectNode node = MAPPER.valueToTree(cached);
+            node.fields().forEachRemaining(e -> {
+                if (!e.getValue().isNull()) onSection.accept(e.getKey(), e.getValue());
+            });
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Map<String, Object> body = Map.of(
+                "model", model,
+                "input", buildPrompt(compactor.compact(resumeText, jobDescription)),
+                "stream", true
+        );
+        AiSuggestionStreamParser parser = new AiSuggestionStreamParser(onSection);
+        AtomicBoolean started = new AtomicBoolean();
+        acquire();
+        long start = System.nanoTime();
+
+        return client.post()
+                .uri("/responses")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(SSE_EVENT)
+                // Between events, not for the whole answer.
+                .timeout(timeout)
+                // Once text has been delivered a retry would repeat it, so only retry before that.
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .jitter(0.5)
+                        .filter(t -> !started.get() && isRetryable(t))
+                        .doBeforeRetry(signal -> countRetry())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnNext(event -> {
+                    started.set(true);
+                    onStreamEvent(event, parser);
+                })
+                .then(Mono.fromCallable(parser::result))
+                .toFuture()
+                .whenComplete((resp, err) -> {
+                    record("stream", start, err);
+                    inFlightLimit.release();
+                    if (err == null) cache.put(key, resp);
+                });
+    }
+
+    private static void onStreamEvent(ServerSentEvent<String> event, AiSuggestionStreamParser parser) {
+        if (event.data() == null || event.data().isBlank()) return;
+        JsonNode data;
+        try {
+            data = MAPPER.readTree(event.data());
+        } catch (IOException e) {
+            return;
+        }
+        String type = data.path("type").asText(event.event() == null ? "" : event.event());
+        switch (type) {
+            case "response.output_text.delta" -> parser.feed(data.path("delta").asText());
+            case "response.failed", "error" -> throw new RuntimeException("AI suggestions failed: "
+                    + data.path("response").path("error").path("message").asText(data.path("message").asText()));
+            default -> { }
+        }
+    }
+
+    private String cacheKey(String resumeText, String jobDescription) {
+        return HashUtil.sha256Hex(PROMPT_VERSION + '\0' + model + '\0' + resumeText + '\0' + jobDescription);
+    }
 
+    private void acquire() {
+        if (!inFlightLimit.tryAcquire()) {
+            throw new ServiceBusyException("Too many AI suggestion requests in progress, try again shortly.", 5);
+        }
+    }
+
+    private CompletableFuture<AiSuggestionsResponse> call(String prompt) {
         Map<String, Object> body = Map.of(
-                "model", "gpt-5.2",
+                "model", model,
                 "input", prompt
         );
 
         // Responses API returns output; we ask model to output JSON directly in text.
-        Map resp = client.post()
+        return client.post()
                 .uri("/responses")
                 .bodyValue(body)
                 .retrieve()
                 .bodyToMono(Map.class)
-                .block();
+                .timeout(timeout)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .jitter(0.5)
+                        .filter(OpenAiClient::isRetryable)
+                        .doBeforeRetry(signal -> countRetry())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(resp -> JsonUtil.fromJson(extractFirstText(resp), AiSuggestionsResponse.class))
+                .toFuture();
+    }
+
+    private void countRetry() {
+        if (retries != null) retries.increment();
+    }
+
+    /** Latency of a call including its retries, and why it failed if it did. */
+    private void record(String mode, long start, Throwable err) {
+        if (registry == null) return;
+        Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        Timer.builder("ats.openai.request")
+                .description("OpenAI call including retries")
+                .tag("mode", mode)
+                .tag("outcome", cause == null ? "success" : "error")
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cause instanceof AiOutputException) {
+            parseFailures.increment();
+        } else if (cause != null) {
+            Counter.builder("ats.openai.errors").tag("reason", reason(cause)).register(registry).increment();
+        }
+    }
+
+    private static String reason(Throwable t) {
+        if (t instanceof WebClientResponseException e) {
+            if (e.getStatusCode().value() == 429) return "rate_limited";
+            return e.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        }
+        if (t instanceof TimeoutException) return "timeout";
+        if (t instanceof WebClientRequestException) return "network";
+        return "other";
+    }
+
+    private static boolean isRetryable(Throwable t) {
+        if (t instanceof WebClientResponseException e) {
+            return e.getStatusCode().value() == 429 || e.getStatusCode().is5xxServerError();
+        }
+        return t instanceof TimeoutException || t instanceof WebClientRequestException;
+    }
+
+    private static String buildPrompt(PromptCompactor.Compacted c) {
+        String missing = c.missingKeywords.isEmpty() ? ""
+                : "Keywords from the job description missing in the resume: " + String.join(", ", c.missingKeywords) + "\n\n";
+        return "You are an ATS resume coach. Given a resume text and a job description, generate ATS-friendly improvements.\n\n"
+                + "Rules:\n"
+                + "- Do not invent experience.\n"
+                + "- Keep wording simple and natural.\n"
+                + "- Output MUST be valid JSON with keys:\n"
+                + "  improvedSummary (string),\n"
+                + "  skillsSuggestions (array of strings),\n"
+                + "  rewrittenExperienceBullets (array of strings),\n"
+                + "  projectSuggestions (array of strings),\n"
+                + "  keywordPlacementTips (array of strings),\n"
+                + "  atsWarnings (array of strings).\n\n"
+                + missing
+                + "Resume:\n" + c.resume + "\n\n"
+                + "Job Description:\n" + c.jobDescription;
+    }
+
+    private static long estimatedBytes(AiSuggestionsResponse r) {
+        long chars = r.improvedSummary == null ? 0 : r.improvedSummary.length();
+        for (List<String> list : Arrays.asList(r.skillsSuggestions, r.rewrittenExperienceBullets,
+                r.projectSuggestions, r.keywordPlacementTips, r.atsWarnings)) {
+            if (list == null) continue;
+            for (String item : list) chars += item == null ? 0 : item.length() + 24;
+        }
+        return 2 * chars + 256;
+    }
 
-        // Extract text output safely
-        String text = extractFirstText(resp);
-        return JsonUtil.fromJson(text, AiSuggestionsResponse.class);
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ats.openai.cache.hits", cache, LruCache::hits).register(registry);
+        FunctionCounter.builder("ats.openai.cache.misses", cache, LruCache::misses).register(registry);
+        FunctionCounter.builder("ats.openai.coalesced", coalesced, AtomicLong::get).register(registry);
+        Gauge.builder("ats.openai.in_flight", inFlightLimit, s -> maxInFlight - s.availablePermits())
+                .description("OpenAI calls holding a max-in-flight slot, streamed ones included; new calls get 503 when full")
+                .register(registry);
+        retries = Counter.builder("ats.openai.retries").register(registry);
+        parseFailures = Counter.builder("ats.openai.parse_failures")
+                .description("Answers that were not the JSON the prompt asks for")
+                .register(registry);
+        this.registry = registry;
     }
 
     private String extractFirstText(Map resp) {
@@ -85,6 +356,6 @@ public class OpenAiClient {
         // fallback
         Object t = resp.get("text");
         if (t != null) return String.valueOf(t);
-        throw new RuntimeException("OpenAI response did not contain text output.");
+        throw new AiOutputException("OpenAI response did not contain text output.");
     }
 }
@@ -1,22 +1,193 @@
 package com.itap.ats.service;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
+/**
+ * Extracts resume text with PDFBox on a dedicated, bounded pool so a slow or huge PDF
+ * never runs on the request thread. Each document gets a wall-clock timeout and is
+ * cancelled when it runs over; documents that do not fit in the heap budget spill to
+ * a temp file. When the queue is full callers get a {@link ServiceBusyException}.
+ */
 @Component
 public class PdfTextExtractor {
 
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+    private final MemoryUsageSetting memoryUsage;
+
+    private final Timer extractTimer;
+    private final Counter timeouts;
+    private final Counter rejections;
+    private final Counter failures;
+    private final DistributionSummary pages;
+
+    public PdfTextExtractor(MeterRegistry registry,
+                            @Value("${ats.pdf.threads:0}") int threads,
+                            @Value("${ats.pdf.queue-capacity:32}") int queueCapacity,
+                            @Value("${ats.pdf.timeout:15s}") Duration timeout,
+                            @Value("${ats.pdf.max-main-memory:16MB}") DataSize maxMainMemory,
+                            @Value("${ats.pdf.temp-dir:}") String tempDir) {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "pdf-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeout.toMillis();
+
+        MemoryUsageSetting mem = MemoryUsageSetting.setupMixed(maxMainMemory.toBytes());
+        if (tempDir != null && !tempDir.isBlank()) mem.setTempDir(new File(tempDir));
+        this.memoryUsage = mem;
+
+        this.extractTimer = Timer.builder("ats.pdf.extract").register(registry);
+        this.timeouts = Counter.builder("ats.pdf.timeouts").register(registry);
+        this.rejections = Counter.builder("ats.pdf.rejections").register(registry);
+        this.failures = Counter.builder("ats.pdf.failures")
+                .description("PDFs that could not be read (corrupt, encrypted, not a PDF)")
+                .register(registry);
+        this.pages = DistributionSummary.builder("ats.resume.pages")
+                .description("Pages per uploaded resume")
+                .baseUnit("pages")
+                .register(registry);
+        Gauge.builder("ats.pdf.queue.depth", pool, p -> p.getQueue().size()).register(registry);
+        Gauge.builder("ats.pdf.active", pool, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
     public String extractText(InputStream inputStream) {
-        try (PDDocument doc = PDDocument.load(inputStream)) {
-            PDFTextStripper stripper = new PDFTextStripper();
+        return run(() -> load(inputStream));
+    }
+
+    /**
+     * Extracts the document one page at a time, handing each page's text to
+     * {@code onPage} on the extraction thread. Stops early when {@code onPage} returns
+     * false. Joining every page reproduces {@link #extractText(InputStream)}.
+     */
+    public void extractPages(InputStream inputStream, Predicate<String> onPage) {
+        run(() -> {
+            try (PDDocument doc = PDDocument.load(inputStream, memoryUsage)) {
+                pages.record(doc.getNumberOfPages());
+                PageStripper stripper = new PageStripper(onPage);
+                try {
+                    stripper.writeText(doc, stripper.buffer);
+                    stripper.flush();
+                } catch (StopExtraction ignored) {
+                    // onPage asked us to stop
+                }
+            }
+            return null;
+        });
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(() -> extractTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceBusyException("Too many resumes are being processed right now. Please try again shortly.", 2);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new RuntimeException("Reading the PDF took too long. Please upload a simpler PDF resume.", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to read PDF. Please upload a valid PDF resume.", e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            throw new RuntimeException("Failed to read PDF. Please upload a valid PDF resume.", e.getCause());
+        }
+    }
+
+    private String load(InputStream inputStream) throws IOException {
+        try (PDDocument doc = PDDocument.load(inputStream, memoryUsage)) {
+            pages.record(doc.getNumberOfPages());
+            PDFTextStripper stripper = new CancellableStripper();
             String text = stripper.getText(doc);
             return text == null ? "" : text;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to read PDF. Please upload a valid PDF resume.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Stops between pages once the extraction has been cancelled. */
+    private static class CancellableStripper extends PDFTextStripper {
+
+        CancellableStripper() throws IOException {
+            super();
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("PDF extraction cancelled");
+            }
+            super.startPage(page);
+        }
+    }
+
+    private static class PageStripper extends CancellableStripper {
+
+        private final StringWriter buffer = new StringWriter();
+        private final Predicate<String> onPage;
+
+        PageStripper(Predicate<String> onPage) throws IOException {
+            super();
+            this.onPage = onPage;
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            flush();
+        }
+
+        void flush() throws IOException {
+            StringBuffer sb = buffer.getBuffer();
+            if (sb.length() == 0) return;
+            String text = sb.toString();
+            sb.setLength(0);
+            if (!onPage.test(text)) throw new StopExtraction();
+        }
+    }
+
+    private static class StopExtraction extends IOException {
+        StopExtraction() {
+            super("Extraction stopped by caller");
         }
     }
 }
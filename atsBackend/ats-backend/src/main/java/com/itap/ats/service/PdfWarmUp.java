@@ -0,0 +1,68 @@
+package com.itap.ats.service;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Extracts a one-page PDF at startup, so the first uploaded resume does not pay for
+ * PDFBox's one-time work: loading the standard 14 font metrics and glyph list, and
+ * scanning the system fonts for substitutes. The scan is saved to
+ * {@code -Dpdfbox.fontcache} (default: the user's home), so an image that runs this at
+ * build time, as the fast-start training run does, skips it on every cold start.
+ */
+@Component
+public class PdfWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfWarmUp.class);
+
+    private final PdfTextExtractor extractor;
+    private final boolean enabled;
+
+    public PdfWarmUp(PdfTextExtractor extractor, @Value("${ats.pdf.warm-up:true}") boolean enabled) {
+        this.extractor = extractor;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        try {
+            String text = extractor.extractText(new ByteArrayInputStream(samplePdf()));
+            log.info("PDF extraction warmed up in {} ms ({} chars)", (System.nanoTime() - start) / 1_000_000, text.length());
+        } catch (IOException | RuntimeException e) {
+            // Only costs the first request its speed-up.
+            log.warn("PDF warm-up failed", e);
+        }
+    }
+
+    static byte[] samplePdf() throws IOException {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                cs.newLineAtOffset(72, 720);
+                cs.showText("Experience: Java, Spring Boot, PostgreSQL");
+                cs.setFont(PDType1Font.TIMES_BOLD, 11);
+                cs.newLineAtOffset(0, -14);
+                cs.showText("Education");
+                cs.endText();
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+}
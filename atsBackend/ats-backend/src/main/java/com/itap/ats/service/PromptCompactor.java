@@ -0,0 +1,238 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.TextUtil;
+import com.itap.ats.util.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Shrinks the resume and job description before they go into the AI prompt. Whitespace
+ * is collapsed, blank lines, page numbers and repeated lines (running headers and
+ * footers) are dropped, and what is left is fitted into {@code ats.openai.prompt.max-tokens}.
+ *
+ * The budget is filled section by section using the scorer's heading offsets, in the
+ * order the suggestions need them (summary, skills, experience, projects, ...). A section
+ * that does not fit whole contributes its lines with the most job keywords first. Kept
+ * lines stay in their original order. The scorer's missing keywords are passed along so
+ * the model does not have to work them out again.
+ */
+@Component
+public class PromptCompactor implements MeterBinder {
+
+    public static class Compacted {
+        public String resume;
+        public String jobDescription;
+        public List<String> missingKeywords;
+
+        // Estimated tokens of the resume and JD as received and as sent.
+        public int rawTokens;
+        public int tokens;
+    }
+
+    private static final String HEADER = "Header";
+    private static final List<String> PRIORITY = List.of(
+            "Summary", "Skills", "Experience", "Projects", "Certifications", "Education", HEADER);
+
+    private static final int MAX_MISSING_KEYWORDS = 20;
+
+    // Sentence ends inside a line; two lowercase letters first so "B.S. Computer" stays whole.
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=\\p{Ll}{2}[.!?;]) (?=\\p{Lu})");
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile("(page )?\\d{1,3}( (of|/) \\d{1,3})?");
+
+    private final AtsScorer scorer;
+    private final JobProfileCache jobProfiles;
+    private final boolean enabled;
+    private final int maxTokens;
+
+    private DistributionSummary promptTokens;
+    private DistributionSummary tokensSaved;
+
+    public PromptCompactor(AtsScorer scorer, JobProfileCache jobProfiles,
+                           @Value("${ats.openai.prompt.compact:true}") boolean enabled,
+                           @Value("${ats.openai.prompt.max-tokens:3000}") int maxTokens) {
+        this.scorer = scorer;
+        this.jobProfiles = jobProfiles;
+        this.enabled = enabled;
+        this.maxTokens = maxTokens;
+    }
+
+    public Compacted compact(String resumeText, String jobDescription) {
+        String resume = resumeText == null ? "" : resumeText;
+        String jd = jobDescription == null ? "" : jobDescription;
+
+        Compacted c = new Compacted();
+        c.rawTokens = TokenEstimator.estimate(resume) + TokenEstimator.estimate(jd);
+        if (!enabled) {
+            c.resume = resume;
+            c.jobDescription = jd;
+            c.missingKeywords = List.of();
+            c.tokens = c.rawTokens;
+            return c;
+        }
+
+        JobProfile profile = jobProfiles.get(jd);
+        AtsScorer.Result result = scorer.score(resume, profile);
+        c.missingKeywords = result.missingKeywords.subList(0, Math.min(MAX_MISSING_KEYWORDS, result.missingKeywords.size()));
+        int missingTokens = TokenEstimator.estimate(String.join(", ", c.missingKeywords));
+
+        // The JD may take up to half the budget; the resume gets the rest.
+        List<Line> jdLines = lines(jd, 0, new HashSet<>(), profile);
+        int jdBudget = Math.max(0, Math.min(total(jdLines), maxTokens / 2 - missingTokens));
+        c.jobDescription = join(select(List.of(jdLines), jdBudget, false));
+
+        List<List<Line>> sections = sections(resume, result.headingOffsets, profile);
+        c.resume = join(select(sections, Math.max(0, maxTokens - jdBudget - missingTokens), true));
+
+        c.tokens = TokenEstimator.estimate(c.resume) + TokenEstimator.estimate(c.jobDescription) + missingTokens;
+        if (promptTokens != null) {
+            promptTokens.record(c.tokens);
+            tokensSaved.record(Math.max(0, c.rawTokens - c.tokens));
+        }
+        return c;
+    }
+
+    private record Line(String text, int tokens, int hits, int order) {
+    }
+
+    /** Splits the resume at its headings; the slices are returned in fill priority order. */
+    private static List<List<Line>> sections(String resume, Map<String, Integer> headingOffsets, JobProfile profile) {
+        List<Map.Entry<String, Integer>> starts = new ArrayList<>(headingOffsets.entrySet());
+        starts.sort(Map.Entry.comparingByValue());
+
+        List<String> names = new ArrayList<>();
+        List<List<Line>> slices = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int from = 0;
+        String name = HEADER;
+        for (Map.Entry<String, Integer> e : starts) {
+            int at = Math.min(e.getValue(), resume.length());
+            // The heading match may sit mid-line; cut at the start of its line.
+            int lineStart = resume.lastIndexOf('\n', at - 1) + 1;
+            if (lineStart < from) lineStart = from;
+            names.add(name);
+            slices.add(lines(resume.substring(from, lineStart), from, seen, profile));
+            from = lineStart;
+            name = e.getKey();
+        }
+        names.add(name);
+        slices.add(lines(resume.substring(from), from, seen, profile));
+
+        List<List<Line>> ordered = new ArrayList<>();
+        for (String p : PRIORITY) {
+            for (int i = 0; i < names.size(); i++) if (names.get(i).equals(p)) ordered.add(slices.get(i));
+        }
+        return ordered;
+    }
+
+    /**
+     * Cleaned, deduplicated lines, with paragraphs split into sentences so they can be
+     * picked one by one. {@code seen} is shared so a line repeated anywhere is kept once.
+     */
+    private static List<Line> lines(String text, int offset, Set<String> seen, JobProfile profile) {
+        List<Line> out = new ArrayList<>();
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) end = text.length();
+            String[] sentences = SENTENCE_END.split(collapse(text, start, end));
+            for (int i = 0; i < sentences.length; i++) {
+                String line = sentences[i];
+                String norm = TextUtil.normalize(line);
+                // Lines of only symbols (rules, lone bullets) and page numbers carry nothing.
+                if (norm.isEmpty() || PAGE_NUMBER.matcher(norm).matches() || !seen.add(norm)) continue;
+                int hits = profile.getMatcher().match(profile.getSynonyms().apply(norm)).cardinality();
+                out.add(new Line(line, TokenEstimator.estimate(line) + 1, hits, offset + start + i));
+            }
+            start = end + 1;
+        }
+        return out;
+    }
+
+    private static String collapse(String text, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                space = false;
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Takes whole slices while they fit. A slice that does not fit gives as many of its most
+     * keyword-dense lines as still fit, plus its first line when {@code headed}.
+     */
+    private static List<Line> select(List<List<Line>> slices, int budget, boolean headed) {
+        List<Line> chosen = new ArrayList<>();
+        int left = budget;
+        for (List<Line> slice : slices) {
+            if (slice.isEmpty() || left <= 0) continue;
+            int size = total(slice);
+            if (size <= left) {
+                chosen.addAll(slice);
+                left -= size;
+                continue;
+            }
+            // A heading is only worth sending with at least one of its lines.
+            Line first = slice.get(0);
+            boolean opened = !headed;
+            List<Line> rest = new ArrayList<>(headed ? slice.subList(1, slice.size()) : slice);
+            rest.sort(Comparator.comparingInt(Line::hits).reversed().thenComparingInt(Line::order));
+            for (Line l : rest) {
+                int cost = opened ? l.tokens : l.tokens + first.tokens;
+                if (cost > left) continue;
+                if (!opened) chosen.add(first);
+                opened = true;
+                chosen.add(l);
+                left -= cost;
+            }
+        }
+        chosen.sort(Comparator.comparingInt(Line::order));
+        return chosen;
+    }
+
+    private static int total(List<Line> lines) {
+        int n = 0;
+        for (Line l : lines) n += l.tokens;
+        return n;
+    }
+
+    private static String join(List<Line> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (Line l : lines) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(l.text);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        promptTokens = DistributionSummary.builder("ats.openai.prompt.tokens")
+                .description("Estimated tokens of resume and job description sent to the model")
+                .baseUnit("tokens")
+                .register(registry);
+        tokensSaved = DistributionSummary.builder("ats.openai.prompt.tokens_saved")
+                .description("Estimated tokens removed from a request by prompt compaction")
+                .baseUnit("tokens")
+                .register(registry);
+    }
+}
@@ -0,0 +1,207 @@
+package com.itap.ats.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client token buckets for the POST endpoints, with one budget for scanning and
+ * scoring and a smaller one for AI suggestions. Clients are keyed by IP, or by API key
+ * when the request carries one of {@code ats.rate-limit.api-keys}; those get
+ * {@code api-key-factor} times the budget. Each tier can also have a global budget shared
+ * by everyone, which keeps one busy minute from using up the whole OpenAI quota.
+ *
+ * A bucket is a single {@link AtomicLong} holding the time at which it is full again
+ * (GCRA), updated with compare-and-set, so admission takes no lock. A request is let in
+ * while the client has at least one token and is charged its whole cost, so a large batch
+ * pushes the client's next admission out instead of being refused forever. A cost that is
+ * only known after admission can be added with {@link #charge}.
+ *
+ * Idle buckets are dropped once more than {@code max-clients} are tracked; if that many are
+ * all active, further new clients share one overflow bucket.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+    public enum Tier { SCAN, AI }
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String OVERFLOW = "overflow";
+
+    private final boolean enabled;
+    private final Set<String> apiKeys;
+    private final int maxClients;
+    private final long origin;
+    private final Budget[] budgets = new Budget[Tier.values().length];
+
+    public RateLimiter(@Value("${ats.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${ats.rate-limit.api-keys:}") String apiKeys,
+                       @Value("${ats.rate-limit.api-key-factor:10}") double apiKeyFactor,
+                       @Value("${ats.rate-limit.max-clients:100000}") int maxClients,
+                       @Value("${ats.rate-limit.scan.per-minute:60}") double scanPerMinute,
+                       @Value("${ats.rate-limit.scan.burst:20}") int scanBurst,
+                       @Value("${ats.rate-limit.scan.global-per-minute:0}") double scanGlobalPerMinute,
+                       @Value("${ats.rate-limit.ai.per-minute:6}") double aiPerMinute,
+                       @Value("${ats.rate-limit.ai.burst:3}") int aiBurst,
+                       @Value("${ats.rate-limit.ai.global-per-minute:120}") double aiGlobalPerMinute) {
+        this.enabled = enabled;
+        this.apiKeys = new HashSet<>();
+        for (String k : apiKeys.split(",")) if (!k.isBlank()) this.apiKeys.add(k.trim());
+        this.maxClients = maxClients;
+        this.origin = System.nanoTime();
+        budgets[Tier.SCAN.ordinal()] = new Budget(scanPerMinute, scanBurst, apiKeyFactor, scanGlobalPerMinute);
+        budgets[Tier.AI.ordinal()] = new Budget(aiPerMinute, aiBurst, apiKeyFactor, aiGlobalPerMinute);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes {@code cost} tokens for the client. Returns 0 when the request may go ahead,
+     * otherwise the whole seconds to wait before retrying.
+     *
+     * @param apiKey the request's API key header, or null; unknown keys count as no key
+     * @param ip     the client address, used when there is no known API key
+     */
+    public int acquire(Tier tier, String apiKey, String ip, int cost) {
+        return acquire(tier, apiKey, ip, cost, System.nanoTime() - origin);
+    }
+
+    /** {@code now} is in nanoseconds since the limiter was created. */
+    int acquire(Tier tier, String apiKey, String ip, int cost, long now) {
+        if (!enabled) return 0;
+        Budget b = budgets[tier.ordinal()];
+        boolean keyed = apiKey != null && apiKeys.contains(apiKey);
+        AtomicLong bucket = b.bucket(keyed ? "key:" + apiKey : "ip:" + ip, now);
+
+        Rate rate = keyed ? b.keyed : b.perClient;
+        long wait = rate.take(bucket, now, cost);
+        if (wait > 0) {
+            b.rejectedClient.increment();
+            return seconds(wait);
+        }
+        if (b.global != null) {
+            wait = b.global.take(b.globalBucket, now, cost);
+            if (wait > 0) {
+                // Give the client its tokens back, since nothing ran.
+                bucket.addAndGet(-rate.interval * cost);
+                b.rejectedGlobal.increment();
+                return seconds(wait);
+            }
+        }
+        b.admitted.increment();
+        return 0;
+    }
+
+    /**
+     * Takes {@code cost} more tokens for a request that was already admitted, without
+     * refusing it, so the client's next admission moves out instead.
+     */
+    public void charge(Tier tier, String apiKey, String ip, int cost) {
+        charge(tier, apiKey, ip, cost, System.nanoTime() - origin);
+    }
+
+    void charge(Tier tier, String apiKey, String ip, int cost, long now) {
+        if (!enabled) return;
+        Budget b = budgets[tier.ordinal()];
+        boolean keyed = apiKey != null && apiKeys.contains(apiKey);
+        (keyed ? b.keyed : b.perClient).charge(b.bucket(keyed ? "key:" + apiKey : "ip:" + ip, now), now, cost);
+        if (b.global != null) b.global.charge(b.globalBucket, now, cost);
+    }
+
+    private static int seconds(long nanos) {
+        return (int) Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Tier tier : Tier.values()) {
+            Budget b = budgets[tier.ordinal()];
+            String name = tier.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("ats.rate_limit.admitted", b.admitted, LongAdder::sum)
+                    .tag("tier", name).register(registry);
+            FunctionCounter.builder("ats.rate_limit.rejected", b.rejectedClient, LongAdder::sum)
+                    .tag("tier", name).tag("scope", "client").register(registry);
+            FunctionCounter.builder("ats.rate_limit.rejected", b.rejectedGlobal, LongAdder::sum)
+                    .tag("tier", name).tag("scope", "global").register(registry);
+            Gauge.builder("ats.rate_limit.clients", b.buckets, ConcurrentHashMap::size)
+                    .tag("tier", name).register(registry);
+        }
+    }
+
+    int trackedClients(Tier tier) {
+        return budgets[tier.ordinal()].buckets.size();
+    }
+
+    /** Emission interval and burst tolerance of one bucket, both in nanoseconds. */
+    static final class Rate {
+        final long interval;
+        final long tolerance;
+
+        Rate(double perMinute, int burst) {
+            this.interval = (long) (TimeUnit.MINUTES.toNanos(1) / perMinute);
+            this.tolerance = interval * (Math.max(1, burst) - 1);
+        }
+
+        /** 0 if a token was available and {@code cost} tokens were charged, else nanos until one is. */
+        long take(AtomicLong fullAt, long now, int cost) {
+            while (true) {
+                long t = fullAt.get();
+                long start = Math.max(t, now);
+                if (start - now > tolerance) return start - now - tolerance;
+                if (fullAt.compareAndSet(t, start + interval * cost)) return 0;
+            }
+        }
+
+        void charge(AtomicLong fullAt, long now, int cost) {
+            fullAt.getAndUpdate(t -> Math.max(t, now) + interval * cost);
+        }
+    }
+
+    private final class Budget {
+        final Rate perClient;
+        final Rate keyed;
+        final Rate global;
+        final AtomicLong globalBucket = new AtomicLong();
+        final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        final AtomicLong lastSweep = new AtomicLong(-SWEEP_INTERVAL_NANOS);
+        final LongAdder admitted = new LongAdder();
+        final LongAdder rejectedClient = new LongAdder();
+        final LongAdder rejectedGlobal = new LongAdder();
+
+        Budget(double perMinute, int burst, double apiKeyFactor, double globalPerMinute) {
+            this.perClient = new Rate(perMinute, burst);
+            this.keyed = new Rate(perMinute * apiKeyFactor, (int) Math.ceil(burst * apiKeyFactor));
+            this.global = globalPerMinute > 0 ? new Rate(globalPerMinute, (int) Math.ceil(globalPerMinute / 6)) : null;
+        }
+
+        AtomicLong bucket(String client, long now) {
+            AtomicLong b = buckets.get(client);
+            if (b != null) return b;
+            if (buckets.size() >= maxClients) {
+                sweep(now);
+                if (buckets.size() >= maxClients) client = OVERFLOW;
+            }
+            return buckets.computeIfAbsent(client, k -> new AtomicLong());
+        }
+
+        // A bucket that is full again holds no state worth keeping.
+        private void sweep(long now) {
+            long last = lastSweep.get();
+            if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) return;
+            buckets.values().removeIf(b -> b.get() <= now);
+        }
+    }
+}
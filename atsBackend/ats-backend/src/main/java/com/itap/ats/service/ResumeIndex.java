@@ -0,0 +1,751 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.ScoreResult;
+import com.itap.ats.util.Synonyms;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index over every resume scanned with the text cache on, for ranking them all
+ * against a new JD. Each resume gets a dense doc id and is indexed under its
+ * {@link IndexTerms}; a JD keyword is then one hash lookup, and the keywords (or IDF
+ * weight) a resume matches give the same keyword score {@link AtsScorer} would. The section score
+ * does not depend on the JD and is stored per doc, so the total is exact too.
+ *
+ * New docs go into an in-memory segment with int postings. Every
+ * {@code ats.resume-index.segment-docs} docs it is written to {@code seg-<firstDoc>.idx}:
+ * sorted term hashes, then one serialized Roaring bitmap per term. Written segments are
+ * memory-mapped and read in place. {@code docs.bin} holds the resume id and section score
+ * per doc id.
+ *
+ * Terms are indexed in the canonical forms of the synonym dictionary, whose fingerprint
+ * is kept in {@code synonyms.id}. When the dictionary changes, all segments are dropped
+ * on start and rebuilt from the resume text cache. If that cannot bring every resume back,
+ * because the cache has no disk tier and lacks some text, startup fails instead. An index
+ * from before {@code synonyms.id} existed is kept as it is.
+ *
+ * {@link #add} only hashes the terms and queues the doc; a single indexer thread writes it
+ * to disk and makes it searchable, so a scan never waits on the index's files or lock, and
+ * an index that cannot write does not fail the scan. Write errors are logged and counted in
+ * {@code ats.resume_index.add.failures}. When {@code ats.resume-index.queue-capacity} docs
+ * are already waiting, the doc is left out and counted in {@code ats.resume_index.add.dropped};
+ * it is added the next time that resume is scanned.
+ *
+ * On shutdown the in-memory segment is written as a short segment, which is read back
+ * into memory on start. So that a crash does not lose it, each doc's term hashes are also
+ * appended to {@code seg-<firstDoc>.log}, which is fsynced once per batch the indexer takes
+ * off the queue; the log is replayed on start and deleted once its segment is written. A doc
+ * whose log record never made it is re-indexed from the resume text cache, or, if no longer
+ * cached, stays in the doc table but matches nothing.
+ */
+@Component
+public class ResumeIndex implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumeIndex.class);
+
+    // sha256(32) | sectionScore(1)
+    private static final int DOC_BYTES = 33;
+    private static final int MAGIC = 0x41545349; // "ATSI"
+    private static final int VERSION = 1;
+    // magic | version | firstDoc | docCount | termCount | reserved
+    private static final int HEADER_BYTES = 24;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentDocs;
+    private final ResumeTextCache resumeTextCache;
+    private final Synonyms synonyms;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel docsFile;
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final List<String> resumeIds = new ArrayList<>();
+    private byte[] sectionScores = new byte[1024];
+
+    private final List<Segment> segments = new ArrayList<>();
+    private ActiveSegment active;
+    private FileChannel activeLog;
+
+    private final BlockingQueue<Pending> pending;
+    private final Thread indexer;
+    private volatile boolean running = true;
+
+    private Timer queryTimer;
+    private Counter addFailures;
+    private Counter addDropped;
+
+    /** A doc waiting for the indexer, or, with {@code done} set, a marker for {@link #awaitIndexed}. */
+    private record Pending(String resumeId, long[] terms, int sectionScore, CountDownLatch done) {
+    }
+
+    public ResumeIndex(ResumeTextCache resumeTextCache,
+                       Synonyms synonyms,
+                       @Value("${ats.resume-index.enabled:true}") boolean enabled,
+                       @Value("${ats.resume-index.dir:data/resume-index}") String dir,
+                       @Value("${ats.resume-index.segment-docs:2048}") int segmentDocs,
+                       @Value("${ats.resume-index.queue-capacity:1000}") int queueCapacity) throws IOException {
+        this.resumeTextCache = resumeTextCache;
+        this.synonyms = synonyms;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentDocs = segmentDocs;
+        this.pending = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (enabled) {
+            open();
+            this.indexer = new Thread(this::run, "resume-indexer");
+            this.indexer.setDaemon(true);
+            this.indexer.start();
+        } else {
+            this.indexer = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a resume for indexing unless its id is already indexed. {@code text} is the raw
+     * extracted text. Never blocks and never throws on a write error.
+     */
+    public void add(String resumeId, String text, int sectionScore) {
+        if (!enabled || resumeId == null) return;
+        lock.readLock().lock();
+        try {
+            if (docIds.containsKey(resumeId)) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] terms = IndexTerms.ofText(text, synonyms);
+        if (!pending.offer(new Pending(resumeId, terms, sectionScore, null))) {
+            if (addDropped != null) addDropped.increment();
+            log.warn("Resume index queue is full, not indexing resume {}", resumeId);
+        }
+    }
+
+    /** Waits until every resume queued before this call is searchable. */
+    public void awaitIndexed() throws InterruptedException {
+        if (!enabled || !indexer.isAlive()) return;
+        CountDownLatch done = new CountDownLatch(1);
+        pending.put(new Pending(null, null, 0, done));
+        done.await();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Pending first = pending.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, 255);
+                index(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Resume indexer failed", e);
+            } finally {
+                for (Pending p : batch) {
+                    if (p.done != null) p.done.countDown();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes and publishes a batch of queued docs, then fsyncs the log once for all of them.
+     * Only this thread writes, so the files are written outside the lock, which is held just
+     * to publish each doc to searches.
+     */
+    private void index(List<Pending> batch) {
+        boolean logged = false;
+        for (Pending p : batch) {
+            // Already indexed when the same resume was queued twice.
+            if (p.resumeId == null || docIds.containsKey(p.resumeId)) continue;
+            try {
+                int doc = resumeIds.size();
+                ByteBuffer rec = ByteBuffer.allocate(DOC_BYTES);
+                rec.put(HexFormat.of().parseHex(p.resumeId)).put((byte) p.sectionScore).flip();
+                while (rec.hasRemaining()) docsFile.write(rec, (long) doc * DOC_BYTES + rec.position());
+                appendLog(doc, p.terms);
+                logged = true;
+                lock.writeLock().lock();
+                try {
+                    register(p.resumeId, p.sectionScore);
+                    active.add(doc, p.terms);
+                    if (active.docCount() >= segmentDocs) {
+                        flush();
+                        logged = false;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                if (addFailures != null) addFailures.increment();
+                log.error("Could not add resume {} to the resume index", p.resumeId, e);
+            }
+        }
+        if (!logged) return;
+        try {
+            activeLog.force(false);
+        } catch (IOException e) {
+            // The docs stay searchable; after a crash they are re-indexed from the text cache.
+            if (addFailures != null) addFailures.increment();
+            log.error("Could not sync the resume index log", e);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return resumeIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code limit} best resumes for the profile, by total score, then keyword score,
+     * then most recently indexed. Resumes that match no keyword are left out.
+     */
+    public List<ScoreResult> search(JobProfile profile, int limit) {
+        if (!enabled) throw new RuntimeException("Resume search is disabled.");
+        long t0 = System.nanoTime();
+        List<String> keywords = profile.getKeywords();
+        int keywordCount = keywords.size();
+        double totalWeight = profile.totalWeight();
+        lock.readLock().lock();
+        try {
+            int docs = resumeIds.size();
+            // Matched keyword weight per doc, added in keyword order like the scorer does.
+            double[] matched = new double[docs];
+            // Per keyword: its postings in each segment, and its slot in the in-memory one (or -1).
+            ImmutableRoaringBitmap[][] hits = new ImmutableRoaringBitmap[keywordCount][];
+            int[] activeSlots = new int[keywordCount];
+            for (int k = 0; k < keywordCount; k++) {
+                activeSlots[k] = -1;
+                if (keywords.get(k).isBlank()) continue;
+                long term = IndexTerms.ofKeyword(keywords.get(k));
+                double weight = profile.weight(k);
+                // Segments cover disjoint doc ranges, so their postings are counted without merging.
+                hits[k] = new ImmutableRoaringBitmap[segments.size()];
+                for (int s = 0; s < segments.size(); s++) {
+                    ImmutableRoaringBitmap b = segments.get(s).postings(term);
+                    if (b != null) b.forEach((int doc) -> matched[doc] += weight);
+                    hits[k][s] = b;
+                }
+                activeSlots[k] = active.count(term, weight, matched);
+            }
+
+            // Totals only take 101 values: find the lowest one that still reaches the limit
+            // and sort only the docs at or above it.
+            int[] histogram = new int[101];
+            for (int doc = 0; doc < docs; doc++) {
+                if (matched[doc] > 0) histogram[totalScore(matched[doc], totalWeight, doc)]++;
+            }
+            int threshold = 100;
+            int selected = histogram[100];
+            while (selected < limit && threshold > 0) selected += histogram[--threshold];
+
+            // total(7 bits) | keyword(7 bits) | doc id, so sorting orders by all three at once
+            long[] ranked = new long[selected];
+            int n = 0;
+            for (int doc = 0; doc < docs; doc++) {
+                if (matched[doc] == 0) continue;
+                int total = totalScore(matched[doc], totalWeight, doc);
+                if (total < threshold) continue;
+                int kw = AtsScorer.keywordScore(matched[doc], totalWeight);
+                ranked[n++] = ((long) total << 48) | ((long) kw << 32) | doc;
+            }
+            Arrays.sort(ranked, 0, n);
+
+            List<ScoreResult> out = new ArrayList<>(Math.min(limit, n));
+            for (int i = n - 1; i >= 0 && out.size() < limit; i--) {
+                int doc = (int) ranked[i];
+                int seg = segmentOf(doc);
+                ScoreResult r = new ScoreResult();
+                r.resumeId = resumeIds.get(doc);
+                r.totalScore = (int) (ranked[i] >>> 48);
+                r.keywordScore = (int) (ranked[i] >>> 32) & 0xffff;
+                r.sectionScore = sectionScores[doc];
+                r.missingKeywords = new ArrayList<>();
+                for (int k = 0; k < keywordCount; k++) {
+                    if (keywords.get(k).isBlank()) continue;
+                    boolean found = seg < 0 ? active.contains(activeSlots[k], doc)
+                            : hits[k][seg] != null && hits[k][seg].contains(doc);
+                    if (!found) r.missingKeywords.add(keywords.get(k));
+                }
+                out.add(r);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+            if (queryTimer != null) queryTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int totalScore(double matchedWeight, double totalWeight, int doc) {
+        return AtsScorer.totalScore(AtsScorer.keywordScore(matchedWeight, totalWeight), sectionScores[doc]);
+    }
+
+    /** Index of the segment holding {@code doc}, or -1 when it is in the in-memory one. */
+    private int segmentOf(int doc) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            Segment s = segments.get(mid);
+            if (doc < s.firstDoc) hi = mid - 1;
+            else if (doc >= s.firstDoc + s.docCount) lo = mid + 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        docsFile = FileChannel.open(dir.resolve("docs.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // A torn last record from a crash is dropped.
+        long docCount = docsFile.size() / DOC_BYTES;
+        docsFile.truncate(docCount * DOC_BYTES);
+        ByteBuffer all = ByteBuffer.allocate((int) (docCount * DOC_BYTES));
+        while (all.hasRemaining()) {
+            if (docsFile.read(all, all.position()) < 0) break;
+        }
+        all.flip();
+        byte[] hash = new byte[32];
+        for (int i = 0; i < docCount; i++) {
+            all.get(hash);
+            register(HexFormat.of().formatHex(hash), all.get());
+        }
+
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.toList();
+        }
+        for (Path p : files) {
+            if (p.getFileName().toString().endsWith(".tmp")) Files.delete(p);
+        }
+        Path synonymsId = dir.resolve("synonyms.id");
+        if (!Files.exists(synonymsId)) {
+            if (docCount > 0) log.warn("Resume index at {} has no synonyms.id; keeping its segments as they are", dir);
+            Files.writeString(synonymsId, synonyms.fingerprint());
+        } else if (!Files.readString(synonymsId).trim().equals(synonyms.fingerprint())) {
+            // Terms were mapped with another dictionary: rebuilt below from the text cache.
+            if (!canRebuild(docCount)) {
+                docsFile.close();
+                throw new IllegalStateException("The synonym dictionary changed since the resume index at " + dir
+                        + " was built, and the resume text cache cannot rebuild it. Set ats.extraction-cache.dir,"
+                        + " restore the previous dictionary, or delete the index directory to start over.");
+            }
+            int dropped = 0;
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                if (name.matches("seg-\\d+\\.log")) Files.delete(p);
+                if (name.matches("seg-\\d+\\.idx")) {
+                    Files.delete(p);
+                    dropped++;
+                }
+            }
+            if (dropped > 0) log.info("Synonym dictionary changed, rebuilding {} resume index segments", dropped);
+            Files.writeString(synonymsId, synonyms.fingerprint());
+        }
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(p -> p.getFileName().toString().matches("seg-\\d+\\.idx"))
+                    .sorted((a, b) -> Long.compare(firstDoc(a), firstDoc(b)))
+                    .toList();
+        }
+        int next = 0;
+        for (Path p : files) {
+            Segment seg = firstDoc(p) == next ? Segment.open(p) : null;
+            if (seg == null || seg.firstDoc + seg.docCount > docCount) {
+                // Out of sequence or ahead of the doc table: rebuilt below from the text cache.
+                log.warn("Dropping resume index segment {}", p);
+                if (seg != null) seg.close();
+                Files.delete(p);
+                continue;
+            }
+            segments.add(seg);
+            next = seg.firstDoc + seg.docCount;
+        }
+
+        // A short last segment was the in-memory one at shutdown; keep filling it.
+        active = new ActiveSegment(next);
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).docCount < segmentDocs) {
+            Segment last = segments.remove(segments.size() - 1);
+            active = ActiveSegment.from(last);
+            last.close();
+        }
+
+        // Logs of other segments are left over from a crash after their segment was written.
+        Path logFile = logFile(active.firstDoc);
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : s.filter(p -> p.getFileName().toString().matches("seg-\\d+\\.log")).toList()) {
+                if (!p.equals(logFile)) Files.delete(p);
+            }
+        }
+        if (Files.exists(logFile)) replayLog(logFile, docCount);
+        activeLog = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        int missing = 0;
+        for (int doc = active.firstDoc + active.docCount(); doc < docCount; doc++) {
+            String text = resumeTextCache.getIfPresent(resumeIds.get(doc));
+            if (text == null) missing++;
+            long[] terms = text == null ? new long[0] : IndexTerms.ofText(text, synonyms);
+            appendLog(doc, terms);
+            active.add(doc, terms);
+            if (active.docCount() >= segmentDocs) flush();
+        }
+        activeLog.force(false);
+        log.info("Resume index at {}: {} resumes in {} segments{}", dir, docCount, segments.size(),
+                missing > 0 ? " (" + missing + " no longer cached, not searchable)" : "");
+    }
+
+    // Without the disk tier, the cache only has what this process put there.
+    private boolean canRebuild(long docCount) {
+        if (resumeTextCache.isPersistent()) return true;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (resumeTextCache.getIfPresent(resumeIds.get(doc)) == null) return false;
+        }
+        return true;
+    }
+
+    private void register(String resumeId, int sectionScore) {
+        int doc = resumeIds.size();
+        if (doc == sectionScores.length) sectionScores = Arrays.copyOf(sectionScores, doc * 2);
+        sectionScores[doc] = (byte) sectionScore;
+        resumeIds.add(resumeId);
+        docIds.put(resumeId, doc);
+    }
+
+    private Path logFile(int firstDoc) {
+        return dir.resolve("seg-" + firstDoc + ".log");
+    }
+
+    // doc | termCount | term hashes; the caller fsyncs
+    private void appendLog(int doc, long[] terms) throws IOException {
+        ByteBuffer rec = ByteBuffer.allocate(8 + 8 * terms.length);
+        rec.putInt(doc).putInt(terms.length);
+        for (long t : terms) rec.putLong(t);
+        rec.flip();
+        long start = activeLog.size();
+        try {
+            while (rec.hasRemaining()) activeLog.write(rec);
+        } catch (IOException e) {
+            // The doc is not added, so its record must not be replayed.
+            activeLog.truncate(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the logged docs that follow the in-memory segment. Stops at a torn record or at
+     * a doc the doc table does not have, and cuts the log there.
+     */
+    private void replayLog(Path file, long docCount) throws IOException {
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(file));
+        int valid = 0;
+        while (log.remaining() >= 8) {
+            int doc = log.getInt();
+            int n = log.getInt();
+            if (n < 0 || log.remaining() < 8L * n) break;
+            long[] terms = new long[n];
+            for (int i = 0; i < n; i++) terms[i] = log.getLong();
+            int next = active.firstDoc + active.docCount();
+            // Docs below next were already in the short segment written at shutdown.
+            if (doc > next || doc >= docCount) break;
+            if (doc == next) active.add(doc, terms);
+            valid = log.position();
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(valid);
+        }
+    }
+
+    private static long firstDoc(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+
+    /** Writes the in-memory segment; a short one replaces its earlier file of the same name. */
+    private void flush() throws IOException {
+        if (active.docCount() == 0) return;
+        Path file = dir.resolve("seg-" + active.firstDoc + ".idx");
+        Path tmp = dir.resolve("seg-" + active.firstDoc + ".tmp");
+        active.write(tmp);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Segment seg = Segment.open(file);
+        if (seg.docCount >= segmentDocs) {
+            segments.add(seg);
+            activeLog.close();
+            Files.delete(logFile(active.firstDoc));
+            active = new ActiveSegment(seg.firstDoc + seg.docCount);
+            activeLog = FileChannel.open(logFile(active.firstDoc),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } else {
+            seg.close();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) return;
+        // Not interrupted: that would close the file channels under it. It drains the queue and stops.
+        running = false;
+        try {
+            indexer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            flush();
+            // The short segment just written holds everything the log did.
+            activeLog.close();
+            Files.delete(logFile(active.firstDoc));
+            for (Segment s : segments) s.close();
+            segments.clear();
+            docsFile.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ats.resume_index.docs", this, ResumeIndex::size).register(registry);
+        Gauge.builder("ats.resume_index.segments", segments, List::size).register(registry);
+        Gauge.builder("ats.resume_index.queue.depth", pending, BlockingQueue::size).register(registry);
+        addFailures = Counter.builder("ats.resume_index.add.failures")
+                .description("Resumes that could not be written to the resume index")
+                .register(registry);
+        addDropped = Counter.builder("ats.resume_index.add.dropped")
+                .description("Resumes not indexed because the indexer queue was full")
+                .register(registry);
+        queryTimer = Timer.builder("ats.resume_index.query")
+                .description("Time to rank all indexed resumes against a job description")
+                .register(registry);
+    }
+
+    /**
+     * Postings of the docs added since the last segment: an open-addressing table from term
+     * hash to a growing int array of doc ids, in the order they were added.
+     */
+    static final class ActiveSegment {
+
+        final int firstDoc;
+        private int docCount;
+
+        private long[] keys = new long[1 << 14];
+        private int[][] postings = new int[1 << 14][];
+        private int[] sizes = new int[1 << 14];
+        private int terms;
+
+        ActiveSegment(int firstDoc) {
+            this.firstDoc = firstDoc;
+        }
+
+        static ActiveSegment from(Segment seg) {
+            ActiveSegment a = new ActiveSegment(seg.firstDoc);
+            List<long[]> byDoc = new ArrayList<>(seg.docCount);
+            int[] sizes = new int[seg.docCount];
+            for (int d = 0; d < seg.docCount; d++) byDoc.add(new long[16]);
+            for (int i = 0; i < seg.termCount; i++) {
+                long term = seg.term(i);
+                seg.postingsAt(i).forEach((int doc) -> {
+                    int d = doc - seg.firstDoc;
+                    long[] list = byDoc.get(d);
+                    if (sizes[d] == list.length) byDoc.set(d, list = Arrays.copyOf(list, list.length * 2));
+                    list[sizes[d]++] = term;
+                });
+            }
+            for (int d = 0; d < seg.docCount; d++) a.add(seg.firstDoc + d, Arrays.copyOf(byDoc.get(d), sizes[d]));
+            return a;
+        }
+
+        int docCount() {
+            return docCount;
+        }
+
+        void add(int doc, long[] docTerms) {
+            for (long term : docTerms) {
+                int slot = slot(term);
+                if (postings[slot] == null) {
+                    keys[slot] = term;
+                    postings[slot] = new int[2];
+                    terms++;
+                } else if (sizes[slot] == postings[slot].length) {
+                    postings[slot] = Arrays.copyOf(postings[slot], sizes[slot] * 2);
+                }
+                postings[slot][sizes[slot]++] = doc;
+                if (terms * 2 > keys.length) grow();
+            }
+            docCount++;
+        }
+
+        /** Adds {@code weight} to {@code sums} for every doc with the term; returns its slot, or -1. */
+        int count(long term, double weight, double[] sums) {
+            int slot = slot(term);
+            if (postings[slot] == null) return -1;
+            int[] list = postings[slot];
+            for (int i = 0, n = sizes[slot]; i < n; i++) sums[list[i]] += weight;
+            return slot;
+        }
+
+        boolean contains(int slot, int doc) {
+            return slot >= 0 && Arrays.binarySearch(postings[slot], 0, sizes[slot], doc) >= 0;
+        }
+
+        private int slot(long term) {
+            int mask = keys.length - 1;
+            int i = (int) term & mask;
+            while (postings[i] != null && keys[i] != term) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[][] oldPostings = postings;
+            int[] oldSizes = sizes;
+            keys = new long[oldKeys.length * 2];
+            postings = new int[oldKeys.length * 2][];
+            sizes = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldPostings[i] == null) continue;
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+
+        void write(Path file) throws IOException {
+            long[] sorted = new long[terms];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) if (postings[i] != null) sorted[n++] = keys[i];
+            Arrays.sort(sorted);
+
+            MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[terms];
+            long bitmapBytes = 0;
+            for (int i = 0; i < terms; i++) {
+                int slot = slot(sorted[i]);
+                bitmaps[i] = new MutableRoaringBitmap();
+                bitmaps[i].addN(postings[slot], 0, sizes[slot]);
+                bitmaps[i].runOptimize();
+                bitmapBytes += bitmaps[i].serializedSizeInBytes();
+            }
+            long size = HEADER_BYTES + 8L * terms + 8L * (terms + 1) + bitmapBytes;
+
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(MAGIC).putInt(VERSION).putInt(firstDoc).putInt(docCount).putInt(terms).putInt(0);
+                for (long term : sorted) out.putLong(term);
+                long offset = HEADER_BYTES + 8L * terms + 8L * (terms + 1);
+                for (MutableRoaringBitmap b : bitmaps) {
+                    out.putLong(offset);
+                    offset += b.serializedSizeInBytes();
+                }
+                out.putLong(offset);
+                for (MutableRoaringBitmap b : bitmaps) b.serialize(out);
+                out.force();
+            }
+        }
+    }
+
+    /** A written segment, mapped read-only. */
+    static final class Segment {
+
+        final int firstDoc;
+        final int docCount;
+        final int termCount;
+        private final FileChannel channel;
+        private final ByteBuffer map;
+
+        private Segment(FileChannel channel, ByteBuffer map) {
+            this.channel = channel;
+            this.map = map;
+            this.firstDoc = map.getInt(8);
+            this.docCount = map.getInt(12);
+            this.termCount = map.getInt(16);
+        }
+
+        /** Null when the file is not a complete segment. */
+        static Segment open(Path file) throws IOException {
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+            long size = ch.size();
+            if (size >= HEADER_BYTES) {
+                ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+                int terms = map.getInt(16);
+                long offsets = HEADER_BYTES + 8L * terms;
+                if (map.getInt(0) == MAGIC && map.getInt(4) == VERSION && terms >= 0
+                        && offsets + 8L * (terms + 1) <= size && map.getLong((int) (offsets + 8L * terms)) == size) {
+                    return new Segment(ch, map);
+                }
+            }
+            ch.close();
+            return null;
+        }
+
+        long term(int i) {
+            return map.getLong(HEADER_BYTES + 8 * i);
+        }
+
+        ImmutableRoaringBitmap postings(long term) {
+            int lo = 0;
+            int hi = termCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long t = term(mid);
+                if (t < term) lo = mid + 1;
+                else if (t > term) hi = mid - 1;
+                else return postingsAt(mid);
+            }
+            return null;
+        }
+
+        ImmutableRoaringBitmap postingsAt(int i) {
+            int base = HEADER_BYTES + 8 * termCount + 8 * i;
+            return new ImmutableRoaringBitmap(map.slice((int) map.getLong(base), (int) (map.getLong(base + 8) - map.getLong(base))));
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
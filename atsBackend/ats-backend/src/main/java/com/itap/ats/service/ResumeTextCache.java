@@ -0,0 +1,122 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.HashUtil;
+import com.itap.ats.util.LruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracted resume text keyed by the SHA-256 of the uploaded PDF bytes, so re-uploading
+ * the same file skips PDFBox. An in-memory LRU tier sits in front of an optional on-disk
+ * tier ({@code ats.extraction-cache.dir}) that survives restarts.
+ */
+@Component
+public class ResumeTextCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumeTextCache.class);
+
+    private final PdfTextExtractor pdfTextExtractor;
+    private final boolean enabled;
+    private final LruCache<String, String> memory;
+    private final DiskTextStore disk;
+    private final AtomicLong diskHits = new AtomicLong();
+
+    public ResumeTextCache(PdfTextExtractor pdfTextExtractor,
+                           @Value("${ats.extraction-cache.enabled:true}") boolean enabled,
+                           @Value("${ats.extraction-cache.max-size:64MB}") DataSize maxSize,
+                           @Value("${ats.extraction-cache.dir:}") String dir,
+                           @Value("${ats.extraction-cache.disk.max-size:1GB}") DataSize diskMaxSize,
+                           @Value("${ats.extraction-cache.disk.index-slots:65536}") int indexSlots) throws IOException {
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.enabled = enabled;
+        // Strings are UTF-16 in the worst case; add a little per-entry overhead.
+        this.memory = new LruCache<>(maxSize.toBytes(), Duration.ZERO, s -> 2L * s.length() + 64);
+        if (enabled && dir != null && !dir.isBlank()) {
+            this.disk = new DiskTextStore(Path.of(dir), indexSlots, diskMaxSize.toBytes());
+            log.info("Resume text disk cache at {} ({} entries)", dir, disk.size());
+        } else {
+            this.disk = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True when cached text outlives a restart, i.e. the disk tier is configured. */
+    public boolean isPersistent() {
+        return disk != null;
+    }
+
+    public static String hash(byte[] pdfBytes) {
+        return HashUtil.sha256Hex(pdfBytes);
+    }
+
+    /** Cached text for a PDF hash, or null. */
+    public String getIfPresent(String hash) {
+        if (!enabled) return null;
+        String text = memory.getIfPresent(hash);
+        if (text != null || disk == null) return text;
+
+        text = disk.get(HexFormat.of().parseHex(hash));
+        if (text != null) {
+            diskHits.incrementAndGet();
+            memory.put(hash, text);
+        }
+        return text;
+    }
+
+    public String getOrExtract(byte[] pdfBytes) {
+        return getOrExtract(hash(pdfBytes), pdfBytes);
+    }
+
+    public String getOrExtract(String hash, byte[] pdfBytes) {
+        String text = getIfPresent(hash);
+        if (text != null) return text;
+
+        text = pdfTextExtractor.extractText(new ByteArrayInputStream(pdfBytes));
+        put(hash, text);
+        return text;
+    }
+
+    public void put(String hash, String text) {
+        if (!enabled) return;
+        memory.put(hash, text);
+        if (disk != null) {
+            try {
+                disk.put(HexFormat.of().parseHex(hash), text);
+            } catch (RuntimeException e) {
+                log.warn("Could not write resume text to disk cache", e);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ats.resume_text_cache.hits", memory, LruCache::hits).register(registry);
+        FunctionCounter.builder("ats.resume_text_cache.misses", memory, LruCache::misses).register(registry);
+        FunctionCounter.builder("ats.resume_text_cache.evictions", memory, LruCache::evictions).register(registry);
+        FunctionCounter.builder("ats.resume_text_cache.disk_hits", diskHits, AtomicLong::get).register(registry);
+        Gauge.builder("ats.resume_text_cache.weight", memory, LruCache::weight).baseUnit("bytes").register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (disk != null) disk.close();
+    }
+}
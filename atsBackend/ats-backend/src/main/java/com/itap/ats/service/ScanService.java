@@ -1,66 +1,261 @@
 package com.itap.ats.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.dto.ScanPage;
 import com.itap.ats.dto.ScanResponse;
+import com.itap.ats.dto.ScanSummary;
 import com.itap.ats.model.ResumeScan;
+import com.itap.ats.repo.ResumeScanJsonQueries;
 import com.itap.ats.repo.ResumeScanRepository;
+import com.itap.ats.repo.ScanContentWriter;
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TextUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 @Service
-public class ScanService {
+public class ScanService implements MeterBinder {
 
     private final PdfTextExtractor pdfTextExtractor;
+    private final ResumeTextCache resumeTextCache;
+    private final ResumeIndex resumeIndex;
     private final AtsScorer atsScorer;
+    private final JobProfileCache jobProfileCache;
     private final ResumeScanRepository repo;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ResumeScanJsonQueries jsonQueries;
+    private final ScanContentWriter contentWriter;
+    private final ScanWriteBehind writeBehind;
+    private final Synonyms synonyms;
+    private final boolean streaming;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    private Timer saveTimer;
 
-    public ScanService(PdfTextExtractor pdfTextExtractor, AtsScorer atsScorer, ResumeScanRepository repo) {
+    public ScanService(PdfTextExtractor pdfTextExtractor, ResumeTextCache resumeTextCache, ResumeIndex resumeIndex,
+                       AtsScorer atsScorer, JobProfileCache jobProfileCache,
+                       ResumeScanRepository repo, ResumeScanJsonQueries jsonQueries,
+                       ScanContentWriter contentWriter, ScanWriteBehind writeBehind, Synonyms synonyms,
+                       @Value("${ats.scan.streaming:true}") boolean streaming,
+                       @Value("${ats.scans.page-size:50}") int defaultPageSize,
+                       @Value("${ats.scans.max-page-size:200}") int maxPageSize) {
         this.pdfTextExtractor = pdfTextExtractor;
+        this.resumeTextCache = resumeTextCache;
+        this.resumeIndex = resumeIndex;
         this.atsScorer = atsScorer;
+        this.jobProfileCache = jobProfileCache;
         this.repo = repo;
+        this.jsonQueries = jsonQueries;
+        this.contentWriter = contentWriter;
+        this.writeBehind = writeBehind;
+        this.synonyms = synonyms;
+        this.streaming = streaming;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     public ScanResponse scan(MultipartFile resume, String jobDescription) {
         if (resume == null || resume.isEmpty()) {
             throw new RuntimeException("Resume file is required.");
         }
-        if (jobDescription == null || jobDescription.trim().isEmpty()) {
-            throw new RuntimeException("Job description is required.");
-        }
-        if (resume.getOriginalFilename() == null || !resume.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
-            throw new RuntimeException("Please upload a PDF resume only.");
-        }
+        validateJobDescription(jobDescription);
+        validatePdfFilename(resume.getOriginalFilename());
 
-        String resumeText;
+        JobProfile profile = jobProfileCache.get(jobDescription);
+        AtsScorer.Result result;
+        String resumeId;
+        byte[] pdf;
         try {
-            resumeText = pdfTextExtractor.extractText(resume.getInputStream());
+            pdf = resume.getBytes();
+            resumeId = resumeIdOf(pdf);
+            result = scoreResume(resumeId, pdf, profile);
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Could not read the PDF file.", e);
         }
 
-        AtsScorer.Result result = atsScorer.score(resumeText, jobDescription);
+        ResumeScan scan = toEntity(resume.getOriginalFilename(), pdf, resumeId, jobDescription, profile, result);
+        if (writeBehind.isEnabled()) writeBehind.submit(scan);
+        else save(scan);
+        ScanResponse resp = toResponse(scan.getId(), result);
+        resp.resumeId = resumeId;
+        return resp;
+    }
+
+    private void save(ResumeScan scan) {
+        long start = System.nanoTime();
+        contentWriter.insertMissing(List.of(scan));
+        repo.save(scan);
+        if (saveTimer != null) saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** The PDF's key in the resume text cache, which /api/score accepts; null when the cache is off. */
+    String resumeIdOf(byte[] pdf) {
+        return resumeTextCache.isEnabled() ? ResumeTextCache.hash(pdf) : null;
+    }
+
+    /**
+     * With the text cache on, repeat uploads are scored from cached text. New ones are
+     * scored page by page as they are extracted, reading every page so the joined text can
+     * be cached and added to the resume index. Without the cache, PDFs are streamed and
+     * reading stops once everything has been found.
+     */
+    AtsScorer.Result scoreResume(String resumeId, byte[] pdf, JobProfile profile) {
+        if (resumeId != null) {
+            String text = streaming ? resumeTextCache.getIfPresent(resumeId) : resumeTextCache.getOrExtract(resumeId, pdf);
+            AtsScorer.Result result;
+            if (text != null) {
+                result = atsScorer.score(text, profile);
+            } else {
+                StringBuilder joined = new StringBuilder();
+                AtsScorer.Accumulator acc = atsScorer.start(profile);
+                pdfTextExtractor.extractPages(new ByteArrayInputStream(pdf), page -> {
+                    joined.append(page);
+                    acc.feed(page);
+                    return true;
+                });
+                result = acc.finish();
+                text = joined.toString();
+                resumeTextCache.put(resumeId, text);
+            }
+            resumeIndex.add(resumeId, text, result.sectionScore);
+            return result;
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(pdf);
+        return streaming ? scorePages(in, profile) : atsScorer.score(pdfTextExtractor.extractText(in), profile);
+    }
+
+    /**
+     * Feeds the PDF into the scorer page by page, so only one page of text is held at a
+     * time, and stops reading once every keyword and section has been found.
+     */
+    AtsScorer.Result scorePages(InputStream pdf, JobProfile profile) {
+        AtsScorer.Accumulator acc = atsScorer.start(profile);
+        pdfTextExtractor.extractPages(pdf, page -> {
+            acc.feed(page);
+            return !acc.isComplete();
+        });
+        return acc.finish();
+    }
+
+    /**
+     * One page of scan history, newest first. {@code cursor} is the {@code nextCursor} of
+     * the previous page; all other arguments are optional filters.
+     */
+    public ScanPage listScans(String cursor, Integer limit, Integer minScore, Integer maxScore,
+                              String filename, Instant from, Instant to) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
 
+        Instant afterCreatedAt = null;
+        UUID afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                afterCreatedAt = Instant.parse(parts[0]);
+                afterId = UUID.fromString(parts[1]);
+            } catch (Exception e) {
+                throw new RuntimeException("Invalid cursor.");
+            }
+        }
+
+        String filenamePattern = null;
+        if (filename != null && !filename.isBlank()) {
+            String escaped = filename.trim().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            filenamePattern = "%" + escaped + "%";
+        }
+
+        // One extra row tells us whether there is a next page without a count query.
+        List<ScanSummary> rows = repo.findSummaries(afterCreatedAt, afterId, minScore, maxScore,
+                filenamePattern, from, to, Limit.of(size + 1));
+
+        ScanPage page = new ScanPage();
+        if (rows.size() > size) {
+            page.items = rows.subList(0, size);
+            ScanSummary last = page.items.get(size - 1);
+            String raw = last.createdAt + "|" + last.id;
+            page.nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        } else {
+            page.items = rows;
+        }
+        return page;
+    }
+
+    /** The saved scan as response JSON, rendered by the database from the jsonb columns. */
+    public String getResponseJson(UUID id) {
+        return jsonQueries.findResponseJson(id).orElseThrow(() -> new RuntimeException("Scan not found"));
+    }
+
+    /**
+     * Newest scans that were missing {@code keyword}, matched on its normalized form. Saved
+     * keywords are in their canonical forms, so "k8s" finds scans missing "kubernetes".
+     */
+    public List<ScanSummary> findMissingKeyword(String keyword, Integer limit) {
+        String norm = synonyms.apply(TextUtil.normalize(keyword));
+        if (norm.isEmpty()) throw new RuntimeException("Keyword is required.");
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        return jsonQueries.findMissingKeyword(norm, size);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        saveTimer = Timer.builder("ats.db.insert")
+                .description("Writing scans to the database")
+                .tag("mode", "single")
+                .register(registry);
+    }
+
+    void validateJobDescription(String jobDescription) {
+        if (jobDescription == null || jobDescription.trim().isEmpty()) {
+            throw new RuntimeException("Job description is required.");
+        }
+    }
+
+    void validatePdfFilename(String filename) {
+        if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
+            throw new RuntimeException("Please upload a PDF resume only.");
+        }
+    }
+
+    /** {@code resumeId} is reused as the resume hash when the text cache already computed it. */
+    ResumeScan toEntity(String resumeFilename, byte[] pdf, String resumeId, String jobDescription,
+                        JobProfile profile, AtsScorer.Result result) {
         ResumeScan scan = new ResumeScan();
-        scan.setResumeFilename(resume.getOriginalFilename());
+        scan.setId(UUID.randomUUID());
+        scan.setResumeFilename(resumeFilename);
+        scan.setResumeHash(resumeId != null ? resumeId : ResumeTextCache.hash(pdf));
+        scan.setResumeSizeBytes(pdf.length);
+        // The profile is keyed by the SHA-256 of the JD, the same key job_description uses.
+        scan.setJobDescriptionHash(profile.getHash());
         scan.setJobDescription(jobDescription);
         scan.setTotalScore(result.totalScore);
         scan.setKeywordScore(result.keywordScore);
         scan.setSectionScore(result.sectionScore);
+        scan.setMatchedKeywords(result.matchedKeywords);
+        scan.setMissingKeywords(result.missingKeywords);
+        scan.setSectionChecks(result.sectionChecks);
+        scan.setSuggestions(result.suggestions);
+        return scan;
+    }
 
-        try {
-            scan.setMatchedKeywordsJson(mapper.writeValueAsString(result.matchedKeywords));
-            scan.setMissingKeywordsJson(mapper.writeValueAsString(result.missingKeywords));
-            scan.setSectionChecksJson(mapper.writeValueAsString(result.sectionChecks));
-            scan.setSuggestionsJson(mapper.writeValueAsString(result.suggestions));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to serialize scan result.", e);
-        }
-
-        ResumeScan saved = repo.save(scan);
-
+    ScanResponse toResponse(java.util.UUID id, AtsScorer.Result result) {
         ScanResponse resp = new ScanResponse();
-        resp.id = saved.getId();
+        resp.id = id;
         resp.totalScore = result.totalScore;
         resp.keywordScore = result.keywordScore;
         resp.sectionScore = result.sectionScore;
@@ -68,11 +263,6 @@ public class ScanService {
         resp.missingKeywords = result.missingKeywords;
         resp.sectionChecks = result.sectionChecks;
         resp.suggestions = result.suggestions;
-
         return resp;
     }
-
-    public ResumeScan getById(java.util.UUID id) {
-        return repo.findById(id).orElseThrow(() -> new RuntimeException("Scan not found"));
-    }
 }
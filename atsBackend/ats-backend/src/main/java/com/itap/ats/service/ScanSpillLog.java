@@ -0,0 +1,159 @@
+package com.itap.ats.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.util.HashUtil;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only local log of scans that could not be written to the database. One JSON
+ * object per line, fsynced on every append. Replay renames the log first so new spills
+ * go to a fresh file while the old one is drained. A {@link ReentrantLock} guards the
+ * file swaps instead of {@code synchronized}, since appends fsync while holding it.
+ */
+class ScanSpillLog {
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Boolean>> CHECKS = new TypeReference<>() {};
+
+    private final Path file;
+    private final Path replayFile;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    ScanSpillLog(Path file) throws IOException {
+        this.file = file;
+        this.replayFile = file.resolveSibling(file.getFileName() + ".replay");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+    }
+
+    void append(List<ResumeScan> scans) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (ResumeScan s : scans) sb.append(mapper.writeValueAsString(toRecord(s))).append('\n');
+        write(sb);
+    }
+
+    /** Appends a line as it was read back from another log. */
+    void appendLine(String line) throws IOException {
+        write(new StringBuilder(line).append('\n'));
+    }
+
+    private void write(StringBuilder sb) throws IOException {
+        lock.lock();
+        try (FileOutputStream out = new FileOutputStream(file.toFile(), true)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            // Not FileChannel.force, which fails if shutdown interrupts the writer thread.
+            out.getFD().sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** True if anything is waiting to be replayed. */
+    boolean hasPending() {
+        lock.lock();
+        try {
+            return Files.exists(replayFile) || Files.exists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands spilled scans to {@code sink} in batches, and lines that do not read back as a
+     * scan to {@code unreadable}. The replay file is deleted only after every batch went
+     * through; if {@code sink} throws, the same file is replayed next time, so the sink must
+     * ignore rows that already exist.
+     */
+    void replay(int batchSize, Consumer<List<ResumeScan>> sink, Consumer<String> unreadable) throws IOException {
+        lock.lock();
+        try {
+            if (!Files.exists(replayFile)) {
+                if (!Files.exists(file)) return;
+                Files.move(file, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<ResumeScan> batch = new ArrayList<>(batchSize);
+        try (BufferedReader in = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                ResumeScan scan;
+                try {
+                    scan = fromRecord(mapper.readTree(line));
+                } catch (IOException | RuntimeException e) {
+                    // Cut short by a crash mid-append, or missing a field.
+                    unreadable.accept(line);
+                    continue;
+                }
+                batch.add(scan);
+                if (batch.size() == batchSize) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) sink.accept(batch);
+        Files.delete(replayFile);
+    }
+
+    private Map<String, Object> toRecord(ResumeScan s) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("id", s.getId().toString());
+        r.put("createdAt", s.getCreatedAt().toString());
+        r.put("resumeFilename", s.getResumeFilename());
+        r.put("jobDescription", s.getJobDescription());
+        r.put("jobDescriptionHash", s.getJobDescriptionHash());
+        r.put("resumeHash", s.getResumeHash());
+        r.put("resumeSizeBytes", s.getResumeSizeBytes());
+        r.put("totalScore", s.getTotalScore());
+        r.put("keywordScore", s.getKeywordScore());
+        r.put("sectionScore", s.getSectionScore());
+        r.put("matchedKeywords", s.getMatchedKeywords());
+        r.put("missingKeywords", s.getMissingKeywords());
+        r.put("sectionChecks", s.getSectionChecks());
+        r.put("suggestions", s.getSuggestions());
+        return r;
+    }
+
+    private ResumeScan fromRecord(JsonNode r) {
+        ResumeScan s = new ResumeScan();
+        s.setId(UUID.fromString(r.get("id").asText()));
+        s.setCreatedAt(Instant.parse(r.get("createdAt").asText()));
+        s.setResumeFilename(r.path("resumeFilename").isNull() ? null : r.path("resumeFilename").asText());
+        s.setJobDescription(r.get("jobDescription").asText());
+        // Logs written before content hashing only have the JD text.
+        s.setJobDescriptionHash(r.hasNonNull("jobDescriptionHash")
+                ? r.get("jobDescriptionHash").asText() : HashUtil.sha256Hex(s.getJobDescription()));
+        s.setResumeHash(r.hasNonNull("resumeHash") ? r.get("resumeHash").asText() : null);
+        s.setResumeSizeBytes(r.path("resumeSizeBytes").asLong());
+        s.setTotalScore(r.get("totalScore").asInt());
+        s.setKeywordScore(r.get("keywordScore").asInt());
+        s.setSectionScore(r.get("sectionScore").asInt());
+        s.setMatchedKeywords(mapper.convertValue(r.get("matchedKeywords"), STRING_LIST));
+        s.setMissingKeywords(mapper.convertValue(r.get("missingKeywords"), STRING_LIST));
+        s.setSectionChecks(mapper.convertValue(r.get("sectionChecks"), CHECKS));
+        s.setSuggestions(mapper.convertValue(r.get("suggestions"), STRING_LIST));
+        return s;
+    }
+}
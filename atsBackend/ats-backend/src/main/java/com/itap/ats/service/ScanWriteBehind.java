@@ -0,0 +1,242 @@
+package com.itap.ats.service;
+
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.repo.ResumeScanBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves scans in the background so a scan request does not wait on Postgres. Scans are
+ * queued in a bounded buffer and a single writer thread inserts them in JDBC batches.
+ * When the queue is full or an insert fails, the scans go to a local append-only spill
+ * log instead, which is replayed once the database accepts writes again.
+ *
+ * A failed batch is retried one row at a time, so one bad row does not hold back the
+ * rest. Rows the database rejects (a {@link DataIntegrityViolationException}, such as a
+ * filename too long for its column) and spill records that no longer read back are moved
+ * to a dead-letter log next to the spill log ({@code <spill-file>.dead}) and counted in
+ * {@code ats.scan.write_behind.dead_lettered}. A replay cut short may dead-letter a row twice.
+ *
+ * A scan is readable through the API only after its batch is flushed, normally within
+ * {@code ats.scan.write-behind.flush-interval}. Clients that list or open a scan right
+ * after creating it would miss it, so this is off unless {@code ats.scan.write-behind.enabled}
+ * is set.
+ */
+@Component
+public class ScanWriteBehind implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanWriteBehind.class);
+
+    private final ResumeScanBatchWriter writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long retryDelayMs;
+    private final BlockingQueue<ResumeScan> queue;
+    private final ScanSpillLog spillLog;
+    private final ScanSpillLog deadLetters;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private Timer flushTimer;
+    private Counter spilled;
+    private Counter replayed;
+    private Counter failures;
+    private Counter deadLettered;
+
+    public ScanWriteBehind(ResumeScanBatchWriter writer,
+                           @Value("${ats.scan.write-behind.enabled:false}") boolean enabled,
+                           @Value("${ats.scan.write-behind.queue-capacity:10000}") int queueCapacity,
+                           @Value("${ats.scan.write-behind.batch-size:100}") int batchSize,
+                           @Value("${ats.scan.write-behind.flush-interval:200ms}") Duration flushInterval,
+                           @Value("${ats.scan.write-behind.retry-delay:5s}") Duration retryDelay,
+                           @Value("${ats.scan.write-behind.spill-file:data/scan-spill.log}") String spillFile) throws IOException {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushInterval.toMillis();
+        this.retryDelayMs = retryDelay.toMillis();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        if (enabled) {
+            this.spillLog = new ScanSpillLog(Path.of(spillFile));
+            this.deadLetters = new ScanSpillLog(Path.of(spillFile + ".dead"));
+            this.thread = new Thread(this::run, "scan-writer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        } else {
+            this.spillLog = null;
+            this.deadLetters = null;
+            this.thread = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Queues a scan whose id is already assigned. Never blocks on the database. */
+    public void submit(ResumeScan scan) {
+        if (queue.offer(scan)) return;
+        spill(List.of(scan));
+    }
+
+    private void run() {
+        List<ResumeScan> batch = new ArrayList<>(batchSize);
+        long lastReplayCheck = System.nanoTime();
+        while (running || !queue.isEmpty()) {
+            try {
+                ResumeScan first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    boolean ok = flush(batch);
+                    batch.clear();
+                    if (!ok) {
+                        pause();
+                        continue;
+                    }
+                }
+                if (running && System.nanoTime() - lastReplayCheck >= TimeUnit.MILLISECONDS.toNanos(retryDelayMs)) {
+                    lastReplayCheck = System.nanoTime();
+                    if (spillLog.hasPending()) replaySpill();
+                }
+            } catch (InterruptedException e) {
+                // Shutdown: keep looping until the queue is drained.
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Scan writer loop failed", e);
+            }
+        }
+    }
+
+    private boolean flush(List<ResumeScan> batch) {
+        long start = System.nanoTime();
+        try {
+            List<ResumeScan> unsaved = insert(batch);
+            if (unsaved.isEmpty()) return true;
+            log.warn("Could not save {} scans, spilling to local log", unsaved.size());
+            spill(unsaved);
+            return false;
+        } finally {
+            if (flushTimer != null) flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Inserts the batch, or else each row on its own, dead-lettering the rows the database
+     * rejects. Returns the rows left untried once an insert failed for any other reason,
+     * which means the database is unavailable; empty when every row was handled.
+     */
+    private List<ResumeScan> insert(List<ResumeScan> batch) {
+        try {
+            writer.insertAll(batch);
+            return List.of();
+        } catch (RuntimeException e) {
+            if (failures != null) failures.increment();
+            log.warn("Could not save {} scans, retrying one at a time: {}", batch.size(), e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            ResumeScan scan = batch.get(i);
+            try {
+                writer.insertAll(List.of(scan));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Database rejected scan {}, moving it to the dead-letter log: {}", scan.getId(), e.getMessage());
+                deadLetter(scan);
+            } catch (RuntimeException e) {
+                return batch.subList(i, batch.size());
+            }
+        }
+        return List.of();
+    }
+
+    private void replaySpill() {
+        try {
+            spillLog.replay(batchSize, b -> {
+                List<ResumeScan> unsaved = insert(b);
+                if (!unsaved.isEmpty()) throw new IllegalStateException("database unavailable");
+                if (replayed != null) replayed.increment(b.size());
+            }, line -> {
+                log.error("Unreadable spill record, moving it to the dead-letter log");
+                deadLetter(line);
+            });
+            log.info("Replayed spilled scans into the database");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Replaying spilled scans failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void deadLetter(ResumeScan scan) {
+        try {
+            deadLetters.append(List.of(scan));
+            if (deadLettered != null) deadLettered.increment();
+        } catch (IOException e) {
+            log.error("Lost scan {}: database rejected it and the dead-letter log failed", scan.getId(), e);
+        }
+    }
+
+    private void deadLetter(String line) {
+        try {
+            deadLetters.appendLine(line);
+            if (deadLettered != null) deadLettered.increment();
+        } catch (IOException e) {
+            log.error("Lost an unreadable spill record: the dead-letter log failed", e);
+        }
+    }
+
+    private void spill(List<ResumeScan> scans) {
+        try {
+            spillLog.append(scans);
+            if (spilled != null) spilled.increment(scans.size());
+        } catch (IOException e) {
+            log.error("Lost {} scans: database and spill log both failed", scans.size(), e);
+        }
+    }
+
+    private void pause() {
+        if (!running) return;
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (thread == null) return;
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ats.scan.write_behind.queue.depth", queue, BlockingQueue::size).register(registry);
+        flushTimer = Timer.builder("ats.scan.write_behind.flush")
+                .description("Time to insert one batch of scans")
+                .register(registry);
+        spilled = Counter.builder("ats.scan.write_behind.spilled").register(registry);
+        replayed = Counter.builder("ats.scan.write_behind.replayed").register(registry);
+        failures = Counter.builder("ats.scan.write_behind.flush.failures").register(registry);
+        deadLettered = Counter.builder("ats.scan.write_behind.dead_lettered").register(registry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.ScoreResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Scoring without PDF parsing or persistence, for callers that already have the resume
+ * text or scanned the PDF before. Cached resumes are looked up by the resumeId returned
+ * from /api/scan, and the JD is compiled once through the job profile cache, so only
+ * the keyword and section pass runs per resume. Ranking every scanned resume goes through
+ * the {@link ResumeIndex} instead.
+ */
+@Service
+public class ScoreService {
+
+    private final AtsScorer atsScorer;
+    private final JobProfileCache jobProfileCache;
+    private final ResumeTextCache resumeTextCache;
+    private final ResumeIndex resumeIndex;
+    private final int maxTextLength;
+    private final int maxResumes;
+    private final int defaultRankLimit;
+    private final int maxRankLimit;
+
+    public ScoreService(AtsScorer atsScorer, JobProfileCache jobProfileCache, ResumeTextCache resumeTextCache,
+                        ResumeIndex resumeIndex,
+                        @Value("${ats.score.max-text-length:200000}") int maxTextLength,
+                        @Value("${ats.score.max-resumes:1000}") int maxResumes,
+                        @Value("${ats.resume-index.default-limit:20}") int defaultRankLimit,
+                        @Value("${ats.resume-index.max-limit:200}") int maxRankLimit) {
+        this.atsScorer = atsScorer;
+        this.jobProfileCache = jobProfileCache;
+        this.resumeTextCache = resumeTextCache;
+        this.resumeIndex = resumeIndex;
+        this.maxTextLength = maxTextLength;
+        this.maxResumes = maxResumes;
+        this.defaultRankLimit = defaultRankLimit;
+        this.maxRankLimit = maxRankLimit;
+    }
+
+    public ScoreResult score(String resumeText, String resumeId, String jobDescription) {
+        validateJobDescription(jobDescription);
+        boolean hasText = resumeText != null && !resumeText.isBlank();
+        boolean hasId = resumeId != null && !resumeId.isBlank();
+        if (hasText == hasId) throw new RuntimeException("Send either resumeText or resumeId.");
+
+        JobProfile profile = jobProfileCache.get(jobDescription);
+        if (hasText) {
+            if (resumeText.length() > maxTextLength) throw new RuntimeException("Resume text is too long.");
+            return toResult(null, atsScorer.score(resumeText, profile));
+        }
+        String text = cachedText(resumeId);
+        if (text == null) throw new RuntimeException("Resume not found; scan the PDF again.");
+        return toResult(resumeId, atsScorer.score(text, profile));
+    }
+
+    /**
+     * Re-scores cached resumes against a (usually just edited) JD, best first. Resumes that
+     * are no longer cached come last with an error instead of scores.
+     */
+    public List<ScoreResult> rescore(List<String> resumeIds, String jobDescription) {
+        validateJobDescription(jobDescription);
+        if (resumeIds == null || resumeIds.isEmpty()) throw new RuntimeException("resumeIds is required.");
+        if (resumeIds.size() > maxResumes) throw new RuntimeException("Too many resumes. Max allowed is " + maxResumes + ".");
+
+        JobProfile profile = jobProfileCache.get(jobDescription);
+        List<ScoreResult> out = new ArrayList<>(resumeIds.size());
+        for (String id : resumeIds) {
+            String text = cachedText(id);
+            if (text == null) {
+                ScoreResult r = new ScoreResult();
+                r.resumeId = id;
+                r.error = "Resume not found; scan the PDF again.";
+                out.add(r);
+            } else {
+                out.add(toResult(id, atsScorer.score(text, profile)));
+            }
+        }
+        out.sort(Comparator.comparing((ScoreResult r) -> r.error != null)
+                .thenComparing(Comparator.comparingInt((ScoreResult r) -> r.totalScore).reversed()));
+        return out;
+    }
+
+    /** The best matching resumes among everything scanned so far, with the scores a scan would give. */
+    public List<ScoreResult> rank(String jobDescription, Integer limit) {
+        validateJobDescription(jobDescription);
+        int size = limit == null ? defaultRankLimit : Math.max(1, Math.min(limit, maxRankLimit));
+        return resumeIndex.search(jobProfileCache.get(jobDescription), size);
+    }
+
+    private String cachedText(String resumeId) {
+        if (resumeId == null || !resumeId.matches("[0-9a-f]{64}")) return null;
+        return resumeTextCache.getIfPresent(resumeId);
+    }
+
+    private static void validateJobDescription(String jobDescription) {
+        if (jobDescription == null || jobDescription.trim().isEmpty()) {
+            throw new RuntimeException("Job description is required.");
+        }
+    }
+
+    private static ScoreResult toResult(String resumeId, AtsScorer.Result result) {
+        ScoreResult r = new ScoreResult();
+        r.resumeId = resumeId;
+        r.totalScore = result.totalScore;
+        r.keywordScore = result.keywordScore;
+        r.sectionScore = result.sectionScore;
+        r.missingKeywords = result.missingKeywords;
+        return r;
+    }
+}
@@ -0,0 +1,171 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.KeywordMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the resume sections and contact details in one pass over the raw text. Headings
+ * are matched case-insensitively anywhere in the text by a shared automaton; the offset
+ * kept for each section prefers an occurrence at the start of a line. Email and phone
+ * are found with precompiled {@code find()} patterns.
+ *
+ * Text may be fed in chunks. Contact patterns run on a window made of the chunk plus a
+ * short overlap from the previous one, cut at whitespace so nothing matches across a
+ * partial word.
+ */
+public class SectionAnalyzer {
+
+    public static final String CONTACT_INFO = "Contact Info";
+
+    public static final List<String> SECTIONS = List.of(
+            CONTACT_INFO, "Summary", "Skills", "Experience", "Education", "Projects", "Certifications");
+
+    private static final String[][] HEADINGS = {
+            {},
+            {"summary", "professional summary", "profile"},
+            {"skills", "technical skills", "core skills"},
+            {"experience", "work experience", "professional experience", "employment"},
+            {"education"},
+            {"projects", "project experience"},
+            {"certifications", "certification"},
+    };
+
+    private static final KeywordMatcher HEADING_MATCHER;
+    private static final int[] HEADING_SECTION;
+
+    static {
+        List<String> patterns = new ArrayList<>();
+        List<Integer> sections = new ArrayList<>();
+        for (int s = 0; s < HEADINGS.length; s++) {
+            for (String h : HEADINGS[s]) {
+                patterns.add(h);
+                sections.add(s);
+            }
+        }
+        HEADING_MATCHER = KeywordMatcher.compile(patterns, false);
+        HEADING_SECTION = sections.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static final Pattern EMAIL = Pattern.compile(
+            "\\b[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PHONE = Pattern.compile(
+            "\\b(\\+?1[-.\\s]?)?(\\(?\\d{3}\\)?[-.\\s]?)\\d{3}[-.\\s]?\\d{4}\\b");
+
+    private static final int OVERLAP = 128;
+    private static final int MAX_CARRY = 4096;
+
+    private final KeywordMatcher.Scanner headings;
+    private final boolean[] found = new boolean[SECTIONS.size()];
+    private final long[] offsets = new long[SECTIONS.size()];
+    private final boolean[] offsetAtLineStart = new boolean[SECTIONS.size()];
+    private int foundCount;
+
+    private long pos;
+    private boolean atLineStart = true;
+    private long lineContentStart;
+    private String carry = "";
+
+    public SectionAnalyzer() {
+        Arrays.fill(offsets, -1);
+        this.headings = HEADING_MATCHER.scanner().withListener(this::onHeading);
+    }
+
+    public static SectionAnalyzer analyze(String raw) {
+        SectionAnalyzer a = new SectionAnalyzer();
+        a.feed(raw);
+        a.finish();
+        return a;
+    }
+
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) return;
+
+        for (int i = 0, n = chunk.length(); i < n; i++) {
+            char ch = chunk.charAt(i);
+            if (ch == '\n') {
+                atLineStart = true;
+            } else if (atLineStart && !Character.isWhitespace(ch) && ch != '\u00a0') {
+                atLineStart = false;
+                lineContentStart = pos;
+            }
+            // Capital dotted I lowercases to "i" plus a combining dot; no heading ends in "i",
+            // so feeding a non-matching character keeps offsets aligned with the same result.
+            headings.put(ch == '\u0130' ? '\u0307' : Character.toLowerCase(ch));
+            pos++;
+        }
+
+        if (!found[0]) checkContact(chunk);
+    }
+
+    public void finish() {
+        if (!found[0] && !carry.isEmpty() && hasContactInfo(carry)) markFound(0);
+        carry = "";
+    }
+
+    /** True once every section has been seen. */
+    public boolean isComplete() {
+        return foundCount == found.length;
+    }
+
+    public Map<String, Boolean> checks() {
+        Map<String, Boolean> checks = new LinkedHashMap<>();
+        for (int s = 0; s < found.length; s++) checks.put(SECTIONS.get(s), found[s]);
+        return checks;
+    }
+
+    /** Character offset of each section's heading in the raw text, for sections that have one. */
+    public Map<String, Integer> headingOffsets() {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (int s = 1; s < offsets.length; s++) {
+            if (offsets[s] >= 0) out.put(SECTIONS.get(s), (int) offsets[s]);
+        }
+        return out;
+    }
+
+    private void onHeading(int pattern, long start) {
+        int s = HEADING_SECTION[pattern];
+        markFound(s);
+        boolean lineStart = start == lineContentStart;
+        if (offsets[s] < 0 || (lineStart && !offsetAtLineStart[s])) {
+            offsets[s] = start;
+            offsetAtLineStart[s] = lineStart;
+        }
+    }
+
+    private void markFound(int s) {
+        if (found[s]) return;
+        found[s] = true;
+        foundCount++;
+    }
+
+    private void checkContact(String chunk) {
+        String window = carry.isEmpty() ? chunk : carry + chunk;
+        int cut = window.length();
+        while (cut > 0 && !Character.isWhitespace(window.charAt(cut - 1))) cut--;
+        if (cut == 0 && window.length() < MAX_CARRY) {
+            carry = window;
+            return;
+        }
+        if (cut == 0) cut = window.length();
+
+        if (hasContactInfo(cut == window.length() ? window : window.substring(0, cut))) {
+            markFound(0);
+            carry = "";
+            return;
+        }
+
+        int keep = Math.max(0, cut - OVERLAP);
+        while (keep < cut && keep > 0 && !Character.isWhitespace(window.charAt(keep - 1))) keep++;
+        carry = window.substring(keep);
+    }
+
+    private static boolean hasContactInfo(CharSequence raw) {
+        return EMAIL.matcher(raw).find() || PHONE.matcher(raw).find();
+    }
+}
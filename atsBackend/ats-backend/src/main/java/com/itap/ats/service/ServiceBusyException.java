@@ -0,0 +1,19 @@
+package com.itap.ats.service;
+
+/**
+ * Thrown when a bounded resource (worker pool, queue) is full and the request should be
+ * retried later rather than queued.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,288 @@
+package com.itap.ats.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over normalized keywords. Built once per job description and
+ * run in a single pass over the normalized resume text.
+ *
+ * A keyword only counts as found when it is not glued to another letter or digit on
+ * either side, so "java" matches "java." or "java/spring" but not "javascript".
+ */
+public class KeywordMatcher {
+
+    // Normalized text only contains a-z, 0-9, "+.#/" and single spaces.
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789+.#/ ";
+    private static final int SIGMA = ALPHABET.length();
+    private static final int[] CHAR_INDEX = new int[128];
+
+    static {
+        Arrays.fill(CHAR_INDEX, -1);
+        for (int i = 0; i < SIGMA; i++) CHAR_INDEX[ALPHABET.charAt(i)] = i;
+    }
+
+    private final boolean wholeWords;
+    private final int patternCount;
+    private final int matchableCount;
+    private final int maxLength;
+    private final int[] patternLength;
+    // delta[state * SIGMA + c] -> next state, fully resolved so matching never follows fail links.
+    private final int[] delta;
+    // Patterns ending at a state (including those reached through fail links), as CSR arrays.
+    private final int[] outStart;
+    private final int[] outPatterns;
+
+    private KeywordMatcher(boolean wholeWords, int patternCount, int matchableCount, int maxLength, int[] patternLength,
+                           int[] delta, int[] outStart, int[] outPatterns) {
+        this.wholeWords = wholeWords;
+        this.patternCount = patternCount;
+        this.matchableCount = matchableCount;
+        this.maxLength = maxLength;
+        this.patternLength = patternLength;
+        this.delta = delta;
+        this.outStart = outStart;
+        this.outPatterns = outPatterns;
+    }
+
+    /**
+     * Compiles the given normalized keywords. Pattern ids are list positions; blank or
+     * empty keywords are accepted but never match.
+     */
+    public static KeywordMatcher compile(List<String> keywordsNorm) {
+        return compile(keywordsNorm, true);
+    }
+
+    /**
+     * With {@code wholeWords} false every occurrence counts, like {@link String#contains};
+     * characters outside the alphabet simply break a match.
+     */
+    public static KeywordMatcher compile(List<String> keywordsNorm, boolean wholeWords) {
+        int n = keywordsNorm.size();
+        int[] lengths = new int[n];
+
+        int maxStates = 1;
+        for (String k : keywordsNorm) maxStates += k.length();
+
+        int[] go = new int[maxStates * SIGMA];
+        Arrays.fill(go, -1);
+        int[][] outs = new int[maxStates][];
+        int states = 1;
+        int matchable = 0;
+        int maxLength = 0;
+
+        for (int p = 0; p < n; p++) {
+            String k = keywordsNorm.get(p);
+            lengths[p] = k.length();
+            if (k.isBlank()) continue;
+
+            int s = 0;
+            boolean valid = true;
+            for (int i = 0; i < k.length(); i++) {
+                int c = indexOf(k.charAt(i));
+                if (c < 0) { valid = false; break; }
+                int next = go[s * SIGMA + c];
+                if (next < 0) {
+                    next = states++;
+                    go[s * SIGMA + c] = next;
+                }
+                s = next;
+            }
+            // A keyword with characters outside the alphabet can never appear in normalized text.
+            if (valid) {
+                outs[s] = append(outs[s], p);
+                matchable++;
+                maxLength = Math.max(maxLength, k.length());
+            }
+        }
+
+        int[] fail = new int[states];
+        int[] delta = new int[states * SIGMA];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 0; c < SIGMA; c++) {
+            int next = go[c];
+            if (next < 0) {
+                delta[c] = 0;
+            } else {
+                delta[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            int f = fail[s];
+            if (outs[f] != null) outs[s] = concat(outs[s], outs[f]);
+            for (int c = 0; c < SIGMA; c++) {
+                int next = go[s * SIGMA + c];
+                if (next < 0) {
+                    delta[s * SIGMA + c] = delta[f * SIGMA + c];
+                } else {
+                    delta[s * SIGMA + c] = next;
+                    fail[next] = delta[f * SIGMA + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        int[] outStart = new int[states + 1];
+        int total = 0;
+        for (int s = 0; s < states; s++) {
+            outStart[s] = total;
+            if (outs[s] != null) total += outs[s].length;
+        }
+        outStart[states] = total;
+        int[] outPatterns = new int[total];
+        for (int s = 0; s < states; s++) {
+            if (outs[s] != null) System.arraycopy(outs[s], 0, outPatterns, outStart[s], outs[s].length);
+        }
+
+        return new KeywordMatcher(wholeWords, n, matchable, maxLength, lengths, delta, outStart, outPatterns);
+    }
+
+    public int size() {
+        return patternCount;
+    }
+
+    /** Rough heap footprint of the compiled tables, used for cache weighing. */
+    public long estimatedBytes() {
+        return 4L * (delta.length + outStart.length + outPatterns.length + patternLength.length);
+    }
+
+    /**
+     * Returns the ids of all keywords found in {@code textNorm}, which must already be
+     * normalized with {@link TextUtil#normalize(String)}.
+     */
+    public BitSet match(String textNorm) {
+        BitSet found = new BitSet(patternCount);
+        if (textNorm == null || patternCount == 0) return found;
+
+        int len = textNorm.length();
+        int s = 0;
+        for (int i = 0; i < len; i++) {
+            int c = indexOf(textNorm.charAt(i));
+            if (c < 0) {
+                // Not normalized input; treat as a separator.
+                s = 0;
+                continue;
+            }
+            s = delta[s * SIGMA + c];
+            for (int o = outStart[s]; o < outStart[s + 1]; o++) {
+                int p = outPatterns[o];
+                if (found.get(p)) continue;
+                int start = i - patternLength[p] + 1;
+                if (!wholeWords) {
+                    found.set(p);
+                    continue;
+                }
+                if (start > 0 && TextUtil.isWordChar(textNorm.charAt(start - 1))) continue;
+                if (i + 1 < len && TextUtil.isWordChar(textNorm.charAt(i + 1))) continue;
+                found.set(p);
+            }
+        }
+        return found;
+    }
+
+    public Scanner scanner() {
+        return new Scanner();
+    }
+
+    public interface MatchListener {
+        /** Called for every occurrence; {@code start} counts characters fed to the scanner. */
+        void onMatch(int pattern, long start);
+    }
+
+    /**
+     * Incremental matcher for text that arrives in pieces. Feed it normalized characters
+     * (typically from a {@link StreamingNormalizer}) and call {@link #finish()} at the end.
+     */
+    public class Scanner implements StreamingNormalizer.Sink {
+
+        private final BitSet found = new BitSet(patternCount);
+        private int foundCount;
+        // Last maxLength + 1 characters, enough to look one character before any match.
+        private final char[] recent = new char[maxLength + 1];
+        private long pos;
+        private int state;
+        // State whose patterns ended on the previous character and still need the end-boundary check.
+        private int pendingState = -1;
+        private MatchListener listener;
+
+        /** Reports every occurrence, not just the first one per keyword. */
+        public Scanner withListener(MatchListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        @Override
+        public void put(char ch) {
+            if (wholeWords) resolvePending(TextUtil.isWordChar(ch));
+            recent[(int) (pos % recent.length)] = ch;
+            pos++;
+
+            int c = indexOf(ch);
+            if (c < 0) {
+                state = 0;
+                return;
+            }
+            state = delta[state * SIGMA + c];
+            if (outStart[state] == outStart[state + 1]) return;
+            if (wholeWords) pendingState = state;
+            else report(state);
+        }
+
+        private void resolvePending(boolean nextIsWordChar) {
+            if (pendingState < 0) return;
+            int s = pendingState;
+            pendingState = -1;
+            if (!nextIsWordChar) report(s);
+        }
+
+        private void report(int s) {
+            long end = pos - 1;
+            for (int o = outStart[s]; o < outStart[s + 1]; o++) {
+                int p = outPatterns[o];
+                if (found.get(p) && listener == null) continue;
+                long start = end - patternLength[p] + 1;
+                if (wholeWords && start > 0 && TextUtil.isWordChar(recent[(int) ((start - 1) % recent.length)])) continue;
+                if (!found.get(p)) {
+                    found.set(p);
+                    foundCount++;
+                }
+                if (listener != null) listener.onMatch(p, start);
+            }
+        }
+
+        /** True once every matchable keyword has been seen, so the rest of the text can be skipped. */
+        public boolean allFound() {
+            return foundCount == matchableCount;
+        }
+
+        public BitSet finish() {
+            resolvePending(false);
+            return found;
+        }
+    }
+
+    private static int indexOf(char ch) {
+        return ch < 128 ? CHAR_INDEX[ch] : -1;
+    }
+
+    private static int[] append(int[] arr, int v) {
+        if (arr == null) return new int[]{v};
+        int[] out = Arrays.copyOf(arr, arr.length + 1);
+        out[arr.length] = v;
+        return out;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (a == null) return b.clone();
+        int[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+}
@@ -0,0 +1,147 @@
+package com.itap.ats.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small weight-bounded LRU cache with an optional time-to-live. Entries are evicted
+ * least-recently-used first once the summed weight goes over {@code maxWeight}.
+ *
+ * The TTL counts from the put, not the last access. Since it is the same for every entry,
+ * entries expire in the order they were put; that order is kept in a queue so each put
+ * drops every expired entry, wherever it sits in access order, and expired entries stop
+ * counting toward the weight.
+ */
+public class LruCache<K, V> {
+
+    private static class Entry<K, V> {
+        final K key;
+        V value;
+        final long weight;
+        final long expiresAtNanos;
+        boolean removed;
+
+        Entry(K key, V value, long weight, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<K, V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    // Entries in put order, for the TTL sweep; ones since removed from the map are skipped.
+    private final ArrayDeque<Entry<K, V>> byExpiry = new ArrayDeque<>();
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruCache(long maxWeight, Duration ttl, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+        this.weigher = weigher;
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (this) {
+            Entry<K, V> e = map.get(key);
+            if (e != null && isExpired(e, System.nanoTime())) {
+                map.remove(key);
+                release(e);
+                evictions.incrementAndGet();
+                e = null;
+            }
+            if (e == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return e.value;
+        }
+    }
+
+    /**
+     * Returns the cached value or computes and stores it. The loader runs outside the
+     * lock, so two threads missing on the same key may both compute it.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V v = getIfPresent(key);
+        if (v != null) return v;
+        v = loader.apply(key);
+        put(key, v);
+        return v;
+    }
+
+    /** A value heavier than the whole cache is not stored, and drops any older value for the key. */
+    public void put(K key, V value) {
+        long w = weigher.applyAsLong(value);
+        if (w > maxWeight) {
+            invalidate(key);
+            return;
+        }
+
+        long expiresAt = ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos;
+        synchronized (this) {
+            Entry<K, V> e = new Entry<>(key, value, w, expiresAt);
+            Entry<K, V> old = map.put(key, e);
+            if (old != null) release(old);
+            weight += w;
+            if (ttlNanos != 0) byExpiry.addLast(e);
+            evict();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<K, V> old = map.remove(key);
+        if (old != null) release(old);
+    }
+
+    // The queue may hold the entry until it expires, so its value is let go now.
+    private void release(Entry<K, V> e) {
+        weight -= e.weight;
+        e.removed = true;
+        e.value = null;
+    }
+
+    private void evict() {
+        if (ttlNanos != 0) {
+            long now = System.nanoTime();
+            while (!byExpiry.isEmpty() && isExpired(byExpiry.peekFirst(), now)) {
+                Entry<K, V> e = byExpiry.pollFirst();
+                if (e.removed) continue;
+                map.remove(e.key);
+                release(e);
+                evictions.incrementAndGet();
+            }
+        }
+        Iterator<Map.Entry<K, Entry<K, V>>> it = map.entrySet().iterator();
+        while (it.hasNext() && weight > maxWeight) {
+            Entry<K, V> e = it.next().getValue();
+            it.remove();
+            release(e);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Entry<K, V> e, long now) {
+        return e.expiresAtNanos != 0 && now - e.expiresAtNanos > 0;
+    }
+
+    public synchronized int size() { return map.size(); }
+    public synchronized long weight() { return weight; }
+
+    public long hits() { return hits.get(); }
+    public long misses() { return misses.get(); }
+    public long evictions() { return evictions.get(); }
+}
@@ -0,0 +1,48 @@
+package com.itap.ats.util;
+
+/**
+ * Incremental version of {@link TextUtil#normalize(String)}: text can be fed in chunks
+ * (for example one PDF page at a time) and the normalized characters are pushed to a
+ * sink without ever building the full normalized string.
+ */
+public class StreamingNormalizer {
+
+    public interface Sink {
+        void put(char c);
+    }
+
+    private final Sink sink;
+    private boolean started;
+    private boolean pendingSpace;
+
+    public StreamingNormalizer(Sink sink) {
+        this.sink = sink;
+    }
+
+    public void reset() {
+        started = false;
+        pendingSpace = false;
+    }
+
+    public void feed(CharSequence raw) {
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            char ch = raw.charAt(i);
+            if (ch == '\u0130') {
+                // Capital dotted I: String.toLowerCase turns it into "i" plus a combining dot, which normalize() drops to a space.
+                emit('i');
+                pendingSpace = true;
+                continue;
+            }
+            char lower = Character.toLowerCase(ch);
+            if (lower != ' ' && TextUtil.isNormalChar(lower)) emit(lower);
+            else pendingSpace = true;
+        }
+    }
+
+    private void emit(char c) {
+        if (pendingSpace && started) sink.put(' ');
+        pendingSpace = false;
+        started = true;
+        sink.put(c);
+    }
+}
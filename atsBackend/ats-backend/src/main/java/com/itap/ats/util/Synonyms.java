@@ -0,0 +1,260 @@
+package com.itap.ats.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dictionary of spelling variants, abbreviations and inflections, applied to normalized
+ * tokens so that "k8s", "postgres" or "node.js" in a resume match "kubernetes",
+ * "postgresql" or "nodejs" in a job description. Keyword extraction and the resume text
+ * fed to the scorer both go through a {@link Mapper}, so both sides agree.
+ *
+ * The unit of mapping is a token, or each part of one around '/' ("postgres/redis"), and
+ * trailing dots (a sentence end) are ignored. Variants are single tokens without '/'; a
+ * canonical form may be several words.
+ *
+ * The entries are compiled once into an open-addressing table keyed by the variant's
+ * String hash, plus a bit set over the hashes of every variant prefix. Tokens are hashed
+ * as their characters stream in, and a token whose prefix is not in the bit set is passed
+ * on right away, so most words never wait for a lookup; one that gets to its end costs one
+ * table probe.
+ *
+ * One entry per line, canonical form first; '#' starts a comment:
+ * <pre>
+ * kubernetes: k8s, kube
+ * </pre>
+ */
+public final class Synonyms {
+
+    public static final Synonyms NONE = new Synonyms(new TreeMap<>());
+
+    // Longer tokens cannot be a variant and pass through unchanged.
+    private static final int MAX_TOKEN = 128;
+
+    // Table slots; null marks an empty one. Hashes are compared before the strings.
+    private final String[] variants;
+    private final int[] hashes;
+    private final char[][] canonicals;
+    // One bit per (prefix length, prefix hash), set for every prefix of a variant.
+    private final long[] prefixes;
+    private final int size;
+    private final String fingerprint;
+
+    private Synonyms(TreeMap<String, String> entries) {
+        this.size = entries.size();
+        // At most half full, so probes stay short and always reach an empty slot.
+        int slots = size == 0 ? 1 : Integer.highestOneBit(size * 2 - 1) << 1;
+        this.variants = new String[slots];
+        this.hashes = new int[slots];
+        this.canonicals = new char[slots][];
+        int prefixCount = 0;
+        for (String v : entries.keySet()) prefixCount += v.length();
+        // About 16 bits per prefix keeps false positives near 6%.
+        this.prefixes = new long[Integer.highestOneBit(Math.max(64, prefixCount * 16 - 1)) << 1 >>> 6];
+
+        MessageDigest digest = HashUtil.sha256();
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            String v = e.getKey();
+            int i = v.hashCode() & (slots - 1);
+            while (variants[i] != null) i = (i + 1) & (slots - 1);
+            variants[i] = v;
+            hashes[i] = v.hashCode();
+            canonicals[i] = e.getValue().toCharArray();
+            int h = 0;
+            for (int k = 0; k < v.length(); k++) {
+                h = 31 * h + v.charAt(k);
+                int bit = prefixBit(h, k + 1);
+                prefixes[bit >>> 6] |= 1L << bit;
+            }
+            digest.update((v + '=' + e.getValue() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        this.fingerprint = size == 0 ? "" : HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static Synonyms load(InputStream in) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static Synonyms parse(Reader in) throws IOException {
+        TreeMap<String, String> entries = new TreeMap<>();
+        List<String> canonicalForms = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(in);
+        int lineNo = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            if (line.isBlank()) continue;
+            int colon = line.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Synonyms line " + lineNo + ": expected 'canonical: variant, ...'");
+
+            String canonical = TextUtil.normalize(line.substring(0, colon));
+            if (canonical.isEmpty()) throw new IllegalArgumentException("Synonyms line " + lineNo + ": empty canonical form");
+            canonicalForms.add(canonical);
+            for (String v : line.substring(colon + 1).split(",")) {
+                String variant = TextUtil.normalize(v);
+                if (variant.isEmpty() || variant.equals(canonical)) continue;
+                if (variant.indexOf(' ') >= 0 || variant.indexOf('/') >= 0 || variant.endsWith(".")
+                        || variant.length() > MAX_TOKEN) {
+                    throw new IllegalArgumentException("Synonyms line " + lineNo + ": '" + variant
+                            + "' must be a single token of at most " + MAX_TOKEN + " characters, without '/' and not ending in '.'");
+                }
+                String before = entries.put(variant, canonical);
+                if (before != null && !before.equals(canonical)) {
+                    throw new IllegalArgumentException("Synonyms line " + lineNo + ": '" + variant
+                            + "' already maps to '" + before + "'");
+                }
+            }
+        }
+        // Mapping is a single step, so a canonical form must not be rewritten again.
+        for (String c : canonicalForms) {
+            for (String word : c.split("[ /]")) {
+                if (entries.containsKey(word)) {
+                    throw new IllegalArgumentException("Synonyms: '" + word + "' is both a variant and part of the canonical form '" + c + "'");
+                }
+            }
+        }
+        return new Synonyms(entries);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** SHA-256 over the sorted entries, empty for {@link #NONE}; changes whenever the mapping does. */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /** Maps already normalized text, for callers that hold it as a whole string. */
+    public String apply(String textNorm) {
+        if (size == 0 || textNorm == null) return textNorm;
+        StringBuilder sb = new StringBuilder(textNorm.length());
+        Mapper m = mapper(sb::append);
+        for (int i = 0; i < textNorm.length(); i++) m.put(textNorm.charAt(i));
+        m.flush();
+        return sb.toString();
+    }
+
+    /** A mapper that passes normalized characters on to {@code out}, with variants replaced. */
+    public Mapper mapper(StreamingNormalizer.Sink out) {
+        return new Mapper(out);
+    }
+
+    private int prefixBit(int hash, int length) {
+        int x = (hash ^ length * 0x9e3779b9) * 0x85ebca6b;
+        return (x ^ x >>> 15) & (prefixes.length * 64 - 1);
+    }
+
+    private boolean mayBePrefix(int hash, int length) {
+        int bit = prefixBit(hash, length);
+        return (prefixes[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private int lookup(char[] token, int length, int h) {
+        int mask = variants.length - 1;
+        for (int i = h & mask; variants[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] != h) continue;
+            String v = variants[i];
+            if (v.length() != length) continue;
+            boolean same = true;
+            for (int k = 0; k < length && same; k++) same = v.charAt(k) == token[k];
+            if (same) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Sits between a {@link StreamingNormalizer} and its sink and holds back a token only
+     * while it can still be a variant. Not thread-safe; call {@link #flush()} after the
+     * last character.
+     */
+    public final class Mapper implements StreamingNormalizer.Sink {
+
+        private final StreamingNormalizer.Sink out;
+        private final char[] token = new char[MAX_TOKEN];
+        private int length;
+        private int hash;
+        // Length and hash of the held-back token without its trailing dots.
+        private int core;
+        private int coreHash;
+        // The current token (or part) cannot be a variant and goes straight through.
+        private boolean passing;
+
+        private Mapper(StreamingNormalizer.Sink out) {
+            this.out = out;
+        }
+
+        @Override
+        public void put(char c) {
+            if (size == 0) {
+                out.put(c);
+                return;
+            }
+            if (c == ' ' || c == '/') {
+                flush();
+                out.put(c);
+                return;
+            }
+            if (passing) {
+                out.put(c);
+                return;
+            }
+            hash = 31 * hash + c;
+            // Dots are only checked with what follows them, so "postgres." still maps.
+            if ((c != '.' && !mayBePrefix(hash, length + 1)) || length == token.length) {
+                copy(0, length);
+                out.put(c);
+                length = 0;
+                core = 0;
+                passing = true;
+                return;
+            }
+            token[length++] = c;
+            if (c != '.') {
+                core = length;
+                coreHash = hash;
+            }
+        }
+
+        /** Emits the token held back, if any. */
+        public void flush() {
+            if (length > 0) {
+                int slot = core == 0 ? -1 : lookup(token, core, coreHash);
+                if (slot < 0) {
+                    copy(0, length);
+                } else {
+                    for (char c : canonicals[slot]) out.put(c);
+                    copy(core, length);
+                }
+            }
+            reset();
+        }
+
+        public void reset() {
+            length = 0;
+            hash = 0;
+            core = 0;
+            coreHash = 0;
+            passing = false;
+        }
+
+        private void copy(int from, int to) {
+            for (int i = from; i < to; i++) out.put(token[i]);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.itap.ats.util;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 public class TextUtil {
 
@@ -13,43 +12,157 @@ public class TextUtil {
             "years","year","plus","required","preferred","responsibilities","skills","knowledge"
     ));
 
-    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9+.#/ ]");
+    // Open-addressing table over STOP_WORDS so tokens can be looked up by span.
+    private static final String[] STOP_TABLE = new String[256];
 
+    static {
+        for (String w : STOP_WORDS) {
+            int i = w.hashCode() & (STOP_TABLE.length - 1);
+            while (STOP_TABLE[i] != null) i = (i + 1) & (STOP_TABLE.length - 1);
+            STOP_TABLE[i] = w;
+        }
+    }
+
+    /**
+     * Lowercases, replaces everything outside {@code a-z0-9+.#/} with a space, collapses
+     * runs of spaces and trims, in a single pass.
+     */
     public static String normalize(String s) {
         if (s == null) return "";
-        String lower = s.toLowerCase(Locale.ROOT);
-        lower = NON_WORD.matcher(lower).replaceAll(" ");
-        lower = lower.replaceAll("\\s+", " ").trim();
-        return lower;
+        CharBuffer out = new CharBuffer(s.length());
+        new StreamingNormalizer(out).feed(s);
+        return new String(out.chars, 0, out.length);
     }
 
+    /**
+     * Single words of three or more characters that are not stop words, plus every pair of
+     * consecutive such words. Pairs come first, then words, each in first-seen order and
+     * without duplicates. Results are already normalized.
+     */
     public static List<String> extractKeywords(String jobDesc) {
-        String norm = normalize(jobDesc);
+        return extractKeywords(jobDesc, Synonyms.NONE);
+    }
 
-        String[] words = norm.split(" ");
-        List<String> tokens = new ArrayList<>();
-        for (String w : words) {
-            if (w.length() < 3) continue;
-            if (STOP_WORDS.contains(w)) continue;
-            tokens.add(w);
+    /** Same, with every token mapped to its canonical form first, so variants collapse into one keyword. */
+    public static List<String> extractKeywords(String jobDesc, Synonyms synonyms) {
+        Tokenizer t = new Tokenizer(jobDesc == null ? 0 : jobDesc.length(), synonyms);
+        t.feed(jobDesc).finish();
+
+        int[] kept = new int[t.count()];
+        int n = 0;
+        for (int i = 0; i < t.count(); i++) {
+            if (t.length(i) < 3) continue;
+            if (isStopWord(t, i)) continue;
+            kept[n++] = i;
         }
 
-        List<String> phrases = new ArrayList<>();
-        for (int i = 0; i < tokens.size() - 1; i++) {
-            String phrase = tokens.get(i) + " " + tokens.get(i + 1);
-            if (tokens.get(i).length() >= 3 && tokens.get(i + 1).length() >= 3) {
-                phrases.add(phrase);
-            }
+        KeywordSet set = new KeywordSet(t, 2 * n);
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i + 1 < n; i++) {
+            if (set.add(kept[i], kept[i + 1])) out.add(phrase(t, kept[i], kept[i + 1]));
         }
+        for (int i = 0; i < n; i++) {
+            if (set.add(kept[i], -1)) out.add(t.token(kept[i]));
+        }
+        return out;
+    }
 
-        LinkedHashSet<String> set = new LinkedHashSet<>();
-        for (String p : phrases) set.add(p);
-        for (String t : tokens) set.add(t);
+    private static boolean isStopWord(Tokenizer t, int token) {
+        int mask = STOP_TABLE.length - 1;
+        for (int i = t.hash(token) & mask; STOP_TABLE[i] != null; i = (i + 1) & mask) {
+            if (t.tokenEquals(token, STOP_TABLE[i])) return true;
+        }
+        return false;
+    }
 
-        return new ArrayList<>(set);
+    private static String phrase(Tokenizer t, int a, int b) {
+        char[] c = new char[t.length(a) + 1 + t.length(b)];
+        System.arraycopy(t.text(), t.start(a), c, 0, t.length(a));
+        c[t.length(a)] = ' ';
+        System.arraycopy(t.text(), t.start(b), c, t.length(a) + 1, t.length(b));
+        return new String(c);
     }
 
     public static boolean containsWhole(String textNorm, String keywordNorm) {
-        return textNorm.contains(keywordNorm);
+        if (keywordNorm.isEmpty()) return false;
+        int from = 0;
+        while (true) {
+            int i = textNorm.indexOf(keywordNorm, from);
+            if (i < 0) return false;
+            int end = i + keywordNorm.length();
+            boolean startOk = i == 0 || !isWordChar(textNorm.charAt(i - 1));
+            boolean endOk = end == textNorm.length() || !isWordChar(textNorm.charAt(end));
+            if (startOk && endOk) return true;
+            from = i + 1;
+        }
+    }
+
+    public static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    /** True for the characters that survive {@link #normalize(String)}. */
+    public static boolean isNormalChar(char c) {
+        return isWordChar(c) || c == '+' || c == '.' || c == '#' || c == '/' || c == ' ';
+    }
+
+    private static final class CharBuffer implements StreamingNormalizer.Sink {
+        char[] chars;
+        int length;
+
+        CharBuffer(int capacity) {
+            chars = new char[Math.max(16, capacity)];
+        }
+
+        @Override
+        public void put(char c) {
+            // Only a capital dotted I expands, so the input length is almost always enough.
+            if (length == chars.length) chars = Arrays.copyOf(chars, length * 2);
+            chars[length++] = c;
+        }
+    }
+
+    /** Set of single tokens ({@code second < 0}) and token pairs, compared by content. */
+    private static final class KeywordSet {
+        private final Tokenizer t;
+        private final int[] first;
+        private final int[] second;
+        private final int[] hashes;
+        private final int[] table;
+        private int size;
+
+        KeywordSet(Tokenizer t, int capacity) {
+            this.t = t;
+            this.first = new int[capacity];
+            this.second = new int[capacity];
+            this.hashes = new int[capacity];
+            this.table = new int[Integer.highestOneBit(Math.max(4, capacity) * 4)];
+            Arrays.fill(table, -1);
+        }
+
+        boolean add(int a, int b) {
+            int h = hashOf(a, b);
+            int mask = table.length - 1;
+            int i = h & mask;
+            for (int e; (e = table[i]) >= 0; i = (i + 1) & mask) {
+                if (hashes[e] == h && (second[e] < 0) == (b < 0)
+                        && t.sameToken(first[e], a) && (b < 0 || t.sameToken(second[e], b))) {
+                    return false;
+                }
+            }
+            first[size] = a;
+            second[size] = b;
+            hashes[size] = h;
+            table[i] = size++;
+            return true;
+        }
+
+        // Same value as hashCode() of the token, or of "a b" for a pair.
+        private int hashOf(int a, int b) {
+            if (b < 0) return t.hash(a);
+            int h = 31 * t.hash(a) + ' ';
+            for (int i = 0; i < t.length(b); i++) h *= 31;
+            return h + t.hash(b);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.itap.ats.util;
+
+/**
+ * Cheap local estimate of how many tokens a BPE tokenizer (cl100k / o200k style) turns
+ * text into, without shipping a vocabulary. Letter runs count one token per six letters,
+ * digit runs one per three digits, every other visible symbol one token, and a line
+ * break one token; spaces fold into the following word. Letters outside Latin script
+ * count one token each. The estimate errs on the high side, which is the safe side for
+ * a budget.
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) return 0;
+        int tokens = 0;
+        int letters = 0;
+        int digits = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x250 && Character.isLetter(c)) {
+                if (digits > 0) {
+                    tokens += (digits + 2) / 3;
+                    digits = 0;
+                }
+                letters++;
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                if (letters > 0) {
+                    tokens += (letters + 5) / 6;
+                    letters = 0;
+                }
+                digits++;
+                continue;
+            }
+            if (letters > 0) {
+                tokens += (letters + 5) / 6;
+                letters = 0;
+            }
+            if (digits > 0) {
+                tokens += (digits + 2) / 3;
+                digits = 0;
+            }
+            if (c == '\n') tokens++;
+            else if (!Character.isWhitespace(c) && c != '\u00a0' && !Character.isLowSurrogate(c)) tokens++;
+        }
+        return tokens + (letters + 5) / 6 + (digits + 2) / 3;
+    }
+}
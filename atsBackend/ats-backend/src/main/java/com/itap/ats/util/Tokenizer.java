@@ -0,0 +1,127 @@
+package com.itap.ats.util;
+
+import java.util.Arrays;
+
+/**
+ * Normalizes text and splits it into tokens in one pass. The normalized characters go
+ * into a reusable buffer and each token is kept as a span plus its hash, which is the
+ * same value {@link String#hashCode()} would give, so no String is created per token.
+ *
+ * Given {@link Synonyms}, tokens are mapped to their canonical form before they are
+ * split, so the spans and hashes already describe the mapped text.
+ *
+ * A tokenizer can be reused with {@link #reset()}; it is not thread-safe.
+ */
+public class Tokenizer implements StreamingNormalizer.Sink {
+
+    private final StreamingNormalizer normalizer;
+    // null without synonyms
+    private final Synonyms.Mapper synonyms;
+
+    private char[] text;
+    private int length;
+
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int[] hashes = new int[64];
+    private int count;
+
+    private int tokenStart;
+    private int hash;
+
+    public Tokenizer() {
+        this(256);
+    }
+
+    public Tokenizer(int expectedLength) {
+        this(expectedLength, Synonyms.NONE);
+    }
+
+    public Tokenizer(int expectedLength, Synonyms synonyms) {
+        this.text = new char[Math.max(16, expectedLength)];
+        this.synonyms = synonyms.isEmpty() ? null : synonyms.mapper(this);
+        this.normalizer = new StreamingNormalizer(this.synonyms == null ? this : this.synonyms);
+    }
+
+    public Tokenizer reset() {
+        normalizer.reset();
+        if (synonyms != null) synonyms.reset();
+        length = 0;
+        count = 0;
+        tokenStart = 0;
+        hash = 0;
+        return this;
+    }
+
+    /** Normalizes {@code raw} and appends it; may be called once per chunk. */
+    public Tokenizer feed(CharSequence raw) {
+        if (raw != null) normalizer.feed(raw);
+        return this;
+    }
+
+    /** Closes the last token. Call once after the final {@link #feed}. */
+    public Tokenizer finish() {
+        if (synonyms != null) synonyms.flush();
+        endToken();
+        return this;
+    }
+
+    @Override
+    public void put(char c) {
+        if (length == text.length) text = Arrays.copyOf(text, length * 2);
+        if (c == ' ') {
+            endToken();
+            text[length++] = c;
+            tokenStart = length;
+        } else {
+            hash = 31 * hash + c;
+            text[length++] = c;
+        }
+    }
+
+    private void endToken() {
+        if (length == tokenStart) return;
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        starts[count] = tokenStart;
+        ends[count] = length;
+        hashes[count] = hash;
+        count++;
+        tokenStart = length;
+        hash = 0;
+    }
+
+    /** Token count; valid after {@link #finish()}. */
+    public int count() { return count; }
+    public int start(int token) { return starts[token]; }
+    public int end(int token) { return ends[token]; }
+    public int length(int token) { return ends[token] - starts[token]; }
+    public int hash(int token) { return hashes[token]; }
+
+    /** The normalized text buffer; only the first {@link #textLength()} chars are valid. */
+    public char[] text() { return text; }
+    public int textLength() { return length; }
+
+    public String token(int token) {
+        return new String(text, starts[token], length(token));
+    }
+
+    public boolean sameToken(int a, int b) {
+        return hashes[a] == hashes[b]
+                && Arrays.equals(text, starts[a], ends[a], text, starts[b], ends[b]);
+    }
+
+    /** True if the token's characters equal {@code s}. */
+    public boolean tokenEquals(int token, String s) {
+        int len = length(token);
+        if (len != s.length()) return false;
+        int off = starts[token];
+        for (int i = 0; i < len; i++) {
+            if (text[off + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+package com.itap.ats.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Postgres will not start as root.
+@DisabledIfSystemProperty(named = "user.name", matches = "root")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// The migration runs its own DDL and transaction, as it does at startup.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ContentHashMigrationTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /** resume_scan as an older deployment left it: the JD text on every row, no hashes. */
+    @BeforeEach
+    void legacyTable() {
+        jdbc.execute("alter table resume_scan drop constraint if exists fk_resume_scan_job_description");
+        jdbc.execute("alter table resume_scan drop constraint if exists fk_resume_scan_resume_file");
+        jdbc.execute("alter table resume_scan alter column job_description_hash drop not null");
+        jdbc.execute("delete from resume_scan");
+        jdbc.execute("delete from job_description");
+        jdbc.execute("alter table resume_scan add column if not exists job_description text");
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score,
+                                         job_description)
+                select gen_random_uuid(), now(), 'CV-' || i || '.pdf', 50, 50, 50, 'JD ' || (i % 7)
+                from generate_series(1, 12000) i
+                """);
+    }
+
+    private ContentHashMigration migration(boolean dropLegacyColumn) {
+        return new ContentHashMigration(jdbc, transactionManager, true, dropLegacyColumn);
+    }
+
+    /** A scan written by an instance that predates the migration, during a rolling deploy. */
+    private void insertLegacyScan(String jd) {
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score,
+                                         job_description)
+                values (gen_random_uuid(), now(), 'late.pdf', 1, 1, 1, ?)
+                """, jd);
+    }
+
+    private int count(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    @Test
+    void linksEveryScanToItsJobDescriptionAndKeepsTheColumn() {
+        migration(false).migrate();
+
+        assertEquals(0, count("select count(*) from resume_scan where job_description_hash is null"));
+        assertEquals(7, count("select count(*) from job_description"));
+        assertEquals(0, count("""
+                select count(*) from resume_scan s join job_description j on j.hash = s.job_description_hash
+                where j.text <> s.job_description
+                """));
+        assertEquals(1, count("""
+                select count(*) from information_schema.columns
+                where table_schema = current_schema() and table_name = 'resume_scan' and column_name = 'job_description'
+                """));
+        assertEquals(1, count("select count(*) from pg_constraint where conname = 'fk_resume_scan_job_description'"));
+
+        // Rows from an older instance are linked on the next start, parent included.
+        insertLegacyScan("A JD only the old instance saw");
+        migration(false).migrate();
+        assertEquals(0, count("select count(*) from resume_scan where job_description_hash is null"));
+        assertEquals(8, count("select count(*) from job_description"));
+    }
+
+    @Test
+    void dropsTheColumnOnlyWhenAskedAndAfterLinkingLateRows() {
+        migration(false).migrate();
+        insertLegacyScan("A JD only the old instance saw");
+
+        migration(true).migrate();
+
+        assertEquals(0, count("""
+                select count(*) from information_schema.columns
+                where table_schema = current_schema() and table_name = 'resume_scan' and column_name = 'job_description'
+                """));
+        assertEquals(0, count("""
+                select count(*) from resume_scan s
+                where not exists (select 1 from job_description j where j.hash = s.job_description_hash)
+                """));
+        assertEquals(1, count("select count(*) from job_description where text = 'A JD only the old instance saw'"));
+        assertEquals("NO", jdbc.queryForObject("""
+                select is_nullable from information_schema.columns
+                where table_schema = current_schema() and table_name = 'resume_scan'
+                  and column_name = 'job_description_hash'
+                """, String.class));
+    }
+}
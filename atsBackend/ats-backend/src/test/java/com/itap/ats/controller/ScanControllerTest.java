@@ -0,0 +1,112 @@
+package com.itap.ats.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Postgres will not start as root.
+@DisabledIfSystemProperty(named = "user.name", matches = "root")
+@SpringBootTest
+@AutoConfigureMockMvc
+class ScanControllerTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("scan-controller-test");
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("ats.resume-index.dir", () -> dir.resolve("resume-index").toString());
+        registry.add("ats.scan.write-behind.spill-file", () -> dir.resolve("scan-spill.log").toString());
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    private static byte[] pdf(String text) throws IOException {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                cs.newLineAtOffset(50, 700);
+                for (String line : text.split("\n")) {
+                    cs.showText(line);
+                    cs.newLineAtOffset(0, -14);
+                }
+                cs.endText();
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    void getScanReturnsWhatPostScanReturned() throws Exception {
+        MockMultipartFile resume = new MockMultipartFile("resume", "jane.pdf", "application/pdf",
+                pdf("Jane Doe\nSkills\nJava, Kafka\nExperience\nSpring Boot developer\nEducation\nBSc"));
+        String posted = mvc.perform(multipart("/api/scan").file(resume)
+                        .param("jobDescription", "Java, Spring Boot, Kafka and PostgreSQL."))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode post = mapper.readTree(posted);
+
+        String fetched = mvc.perform(get("/api/scan/" + post.get("id").asText()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode got = mapper.readTree(fetched);
+
+        assertFalse(post.get("resumeId").isNull());
+        List<String> postFields = new ArrayList<>();
+        post.fieldNames().forEachRemaining(postFields::add);
+        List<String> getFields = new ArrayList<>();
+        got.fieldNames().forEachRemaining(getFields::add);
+        assertEquals(postFields, getFields);
+        for (String field : postFields) {
+            assertEquals(post.get(field), got.get(field), field);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.itap.ats.repo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.config.JsonbColumnsMigration;
+import com.itap.ats.dto.ScanResponse;
+import com.itap.ats.dto.ScanSummary;
+import com.itap.ats.model.ResumeScan;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Postgres will not start as root.
+@DisabledIfSystemProperty(named = "user.name", matches = "root")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ResumeScanJsonQueriesTest {
+
+    private static final List<String> JSON_COLUMNS = List.of(
+            "matched_keywords_json", "missing_keywords_json", "section_checks_json", "suggestions_json");
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ResumeScanJsonQueries queries;
+
+    @BeforeEach
+    void setUp() {
+        queries = new ResumeScanJsonQueries(jdbc);
+        // The GIN indexes come from the migration, not from ddl-auto.
+        new JsonbColumnsMigration(jdbc, true).migrate();
+    }
+
+    @Test
+    void rendersTheStoredScanAsScanResponse() throws Exception {
+        ResumeScan scan = new ResumeScan();
+        scan.setId(UUID.randomUUID());
+        scan.setResumeFilename("jane.pdf");
+        scan.setJobDescription("Java, Kafka and PostgreSQL.");
+        scan.setJobDescriptionHash("a".repeat(64));
+        scan.setResumeHash("b".repeat(64));
+        scan.setResumeSizeBytes(1234);
+        scan.setTotalScore(71);
+        scan.setKeywordScore(66);
+        scan.setSectionScore(80);
+        scan.setMatchedKeywords(List.of("java", "kafka"));
+        scan.setMissingKeywords(List.of("postgresql"));
+        Map<String, Boolean> checks = new LinkedHashMap<>();
+        checks.put("skills", true);
+        checks.put("experience", true);
+        checks.put("education", false);
+        scan.setSectionChecks(checks);
+        scan.setSuggestions(List.of("Add an Education section.", "Mention \"postgresql\" where you used it."));
+        new ResumeScanBatchWriter(jdbc, new ScanContentWriter(jdbc)).insertAll(List.of(scan));
+
+        ScanResponse expected = new ScanResponse();
+        expected.id = scan.getId();
+        expected.resumeId = scan.getResumeHash();
+        expected.totalScore = 71;
+        expected.keywordScore = 66;
+        expected.sectionScore = 80;
+        expected.matchedKeywords = scan.getMatchedKeywords();
+        expected.missingKeywords = scan.getMissingKeywords();
+        expected.sectionChecks = checks;
+        expected.suggestions = scan.getSuggestions();
+        JsonNode want = mapper.valueToTree(expected);
+
+        JsonNode got = mapper.readTree(queries.findResponseJson(scan.getId()).orElseThrow());
+
+        assertEquals(want, got);
+        List<String> wantFields = new ArrayList<>();
+        want.fieldNames().forEachRemaining(wantFields::add);
+        List<String> gotFields = new ArrayList<>();
+        got.fieldNames().forEachRemaining(gotFields::add);
+        assertEquals(wantFields, gotFields);
+
+        assertTrue(queries.findResponseJson(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void findsScansMissingAKeywordThroughTheGinIndex() {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        // Every 1000th scan is missing "kafka"; the rest only miss keywords that merely contain it.
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score,
+                                         missing_keywords_json)
+                select gen_random_uuid(), ?::timestamptz + i * interval '1 minute', 'CV-' || i || '.pdf',
+                       i % 101, i % 97, i % 89,
+                       case when i % 1000 = 0 then jsonb_build_array('java', 'kafka')
+                            else jsonb_build_array('java', 'kafka streams', 'skill-' || (i % 500)) end
+                from generate_series(1, 20000) i
+                """, Timestamp.from(start));
+        jdbc.execute("analyze resume_scan");
+
+        List<ScanSummary> rows = queries.findMissingKeyword("kafka", 5);
+
+        assertEquals(List.of("CV-20000.pdf", "CV-19000.pdf", "CV-18000.pdf", "CV-17000.pdf", "CV-16000.pdf"),
+                rows.stream().map(s -> s.resumeFilename).toList());
+        assertEquals(start.plusSeconds(20000 * 60), rows.get(0).createdAt);
+        assertEquals(20000 % 101, rows.get(0).totalScore);
+        assertEquals(20, queries.findMissingKeyword("kafka", 50).size());
+        assertTrue(queries.findMissingKeyword("rust", 50).isEmpty());
+
+        String plan = String.join("\n", jdbc.queryForList("""
+                explain select id from resume_scan where missing_keywords_json @> jsonb_build_array(?::text)
+                order by created_at desc, id desc limit ?
+                """, String.class, "kafka", 5));
+        assertTrue(plan.contains("Bitmap Index Scan on idx_resume_scan_missing_keywords"), plan);
+    }
+
+    @Test
+    void migratesTextColumnsToJsonb() {
+        // resume_scan as deployments before the switch to jsonb left it.
+        jdbc.execute("drop index if exists idx_resume_scan_missing_keywords");
+        jdbc.execute("drop index if exists idx_resume_scan_matched_keywords");
+        for (String column : JSON_COLUMNS) {
+            jdbc.execute("alter table resume_scan alter column " + column + " type text using " + column + "::text");
+        }
+        UUID filled = UUID.randomUUID();
+        UUID empty = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score,
+                                         matched_keywords_json, missing_keywords_json, section_checks_json, suggestions_json)
+                values (?, now(), 'filled.pdf', 1, 1, 1, '["java"]', '["kafka"]', '{"skills":true}', '["Add Kafka."]'),
+                       (?, now(), 'empty.pdf', 1, 1, 1, '', '', '', ''),
+                       (?, now(), 'missing.pdf', 1, 1, 1, null, null, null, null)
+                """, filled, empty, missing);
+
+        new JsonbColumnsMigration(jdbc, true).migrate();
+
+        for (String column : JSON_COLUMNS) {
+            assertEquals("jsonb", jdbc.queryForObject("""
+                    select data_type from information_schema.columns
+                    where table_schema = current_schema() and table_name = 'resume_scan' and column_name = ?
+                    """, String.class, column), column);
+        }
+        assertEquals(2, jdbc.queryForObject("""
+                select count(*) from pg_indexes
+                where indexname in ('idx_resume_scan_missing_keywords', 'idx_resume_scan_matched_keywords')
+                """, Integer.class));
+        assertEquals(List.of("[\"java\"]", "[\"kafka\"]", "{\"skills\": true}", "[\"Add Kafka.\"]"),
+                jdbc.queryForObject("""
+                        select array[matched_keywords_json::text, missing_keywords_json::text,
+                                     section_checks_json::text, suggestions_json::text]
+                        from resume_scan where id = ?
+                        """, (rs, i) -> List.of((String[]) rs.getArray(1).getArray()), filled));
+        for (UUID id : List.of(empty, missing)) {
+            assertEquals(0, jdbc.queryForObject("""
+                    select num_nonnulls(matched_keywords_json, missing_keywords_json,
+                                        section_checks_json, suggestions_json)
+                    from resume_scan where id = ?
+                    """, Integer.class, id));
+        }
+        assertEquals(List.of("filled.pdf"),
+                queries.findMissingKeyword("kafka", 10).stream().map(s -> s.resumeFilename).toList());
+    }
+}
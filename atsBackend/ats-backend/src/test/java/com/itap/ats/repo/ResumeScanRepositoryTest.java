@@ -0,0 +1,164 @@
+package com.itap.ats.repo;
+
+import com.itap.ats.dto.ScanSummary;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Postgres will not start as root.
+@DisabledIfSystemProperty(named = "user.name", matches = "root")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.itap.ats.repo.ResumeScanRepositoryTest$LastSelect")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ResumeScanRepositoryTest {
+
+    private static final int SCANS = 20_000;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    /** Keeps the SQL of the last select, so the test can ask Postgres for its plan. */
+    public static class LastSelect implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("select")) LastSelect.sql = sql;
+            return sql;
+        }
+    }
+
+    @Autowired
+    ResumeScanRepository repo;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void insertScans() {
+        // Three scans share each timestamp, so pages end in the middle of a tie.
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score)
+                select gen_random_uuid(), ?::timestamptz + (i / 3) * interval '1 minute', 'CV-' || i || '.pdf',
+                       i % 101, i % 97, i % 89
+                from generate_series(1, ?) i
+                """, Timestamp.from(START), SCANS);
+        jdbc.execute("analyze resume_scan");
+    }
+
+    @Test
+    void pagesThroughEveryScanNewestFirst() {
+        List<UUID> paged = new ArrayList<>();
+        ScanSummary last = null;
+        List<ScanSummary> page;
+        do {
+            page = repo.findSummaries(last == null ? null : last.createdAt, last == null ? null : last.id,
+                    null, null, null, null, null, Limit.of(1000));
+            for (ScanSummary s : page) paged.add(s.id);
+            if (!page.isEmpty()) last = page.get(page.size() - 1);
+        } while (page.size() == 1000);
+
+        assertEquals(jdbc.queryForList("select id from resume_scan order by created_at desc, id desc", UUID.class),
+                paged);
+    }
+
+    @Test
+    void appliesEveryFilter() {
+        Instant from = START.plusSeconds(600 * 60);
+        Instant to = START.plusSeconds(6000 * 60);
+        List<ScanSummary> rows = repo.findSummaries(null, null, 40, 60, "cv-1%", from, to, Limit.of(50));
+
+        List<UUID> expected = jdbc.queryForList("""
+                select id from resume_scan
+                where total_score between 40 and 60 and lower(resume_filename) like 'cv-1%'
+                  and created_at >= ? and created_at < ?
+                order by created_at desc, id desc limit 50
+                """, UUID.class, Timestamp.from(from), Timestamp.from(to));
+        assertEquals(50, expected.size());
+        assertEquals(expected, rows.stream().map(s -> s.id).toList());
+        ScanSummary first = rows.get(0);
+        assertTrue(first.resumeFilename.startsWith("CV-1"));
+        assertTrue(first.totalScore >= 40 && first.totalScore <= 60);
+    }
+
+    @Test
+    void escapesLikeWildcardsInTheFilename() {
+        jdbc.update("""
+                insert into resume_scan (id, created_at, resume_filename, total_score, keyword_score, section_score)
+                values (gen_random_uuid(), now(), 'a_b.pdf', 1, 1, 1), (gen_random_uuid(), now(), 'axb.pdf', 1, 1, 1)
+                """);
+        List<ScanSummary> rows = repo.findSummaries(null, null, null, null, "%a\\_b%", null, null, Limit.of(50));
+
+        assertEquals(List.of("a_b.pdf"), rows.stream().map(s -> s.resumeFilename).toList());
+    }
+
+    @Test
+    void pagesAreReadFromTheCreatedAtIdIndex() {
+        ScanSummary deep = jdbc.queryForObject("""
+                select id, created_at from resume_scan order by created_at desc, id desc offset 15000 limit 1
+                """, (rs, i) -> new ScanSummary(rs.getObject(1, UUID.class), rs.getTimestamp(2).toInstant(), null, 0, 0, 0));
+
+        repo.findSummaries(null, null, null, null, null, null, null, Limit.of(50));
+        String firstPage = plan(LastSelect.sql, null, null, 50);
+        repo.findSummaries(deep.createdAt, deep.id, null, null, null, null, null, Limit.of(50));
+        String deepPage = plan(LastSelect.sql, deep.createdAt, deep.id, 50);
+
+        for (String plan : List.of(firstPage, deepPage)) {
+            assertTrue(plan.contains("Index Scan using idx_resume_scan_created_at_id"), plan);
+            assertFalse(plan.contains("Sort"), plan);
+        }
+        // A later page starts at its position in the index rather than filtering every newer row.
+        assertTrue(deepPage.contains("Index Cond"), deepPage);
+    }
+
+    /**
+     * EXPLAIN of the query Hibernate sent, with no filters. Hibernate binds each use of a
+     * parameter separately: afterCreatedAt three times, afterId, two per filter, then the limit.
+     */
+    private String plan(String sql, Instant afterCreatedAt, UUID afterId, int limit) {
+        Timestamp after = afterCreatedAt == null ? null : Timestamp.from(afterCreatedAt);
+        Object[] args = new Object[15];
+        args[0] = args[1] = args[2] = after;
+        args[3] = afterId;
+        args[14] = limit;
+        assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), sql);
+        return String.join("\n", jdbc.queryForList("explain " + sql, String.class, args));
+    }
+}
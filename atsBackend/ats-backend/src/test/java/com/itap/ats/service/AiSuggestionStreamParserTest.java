@@ -0,0 +1,54 @@
+package com.itap.ats.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.itap.ats.dto.AiSuggestionsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiSuggestionStreamParserTest {
+
+    private static final String ANSWER = "```json\n{\"improvedSummary\": \"Backend dev \\\"Java\\\" \u00e9\", "
+            + "\"skillsSuggestions\": [\"Spring Boot\", \"AWS\"], "
+            + "\"rewrittenExperienceBullets\": [], "
+            + "\"projectSuggestions\": [\"{braces} in [text]\"], "
+            + "\"keywordPlacementTips\": [\"Put keywords in Skills\"], "
+            + "\"atsWarnings\": [\"No email\"]}\n```";
+
+    @Test
+    void reportsEveryFieldOnceWhateverTheChunking() {
+        Random rnd = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            List<String> names = new ArrayList<>();
+            List<JsonNode> values = new ArrayList<>();
+            AiSuggestionStreamParser p = new AiSuggestionStreamParser((n, v) -> {
+                names.add(n);
+                values.add(v);
+            });
+            for (int i = 0; i < ANSWER.length(); ) {
+                int end = Math.min(ANSWER.length(), i + 1 + rnd.nextInt(9));
+                p.feed(ANSWER.substring(i, end));
+                i = end;
+            }
+
+            assertEquals(List.of("improvedSummary", "skillsSuggestions", "rewrittenExperienceBullets",
+                    "projectSuggestions", "keywordPlacementTips", "atsWarnings"), names);
+            AiSuggestionsResponse r = p.result();
+            assertEquals("Backend dev \"Java\" \u00e9", r.improvedSummary);
+            assertEquals(List.of("Spring Boot", "AWS"), r.skillsSuggestions);
+            assertEquals(List.of("{braces} in [text]"), r.projectSuggestions);
+            assertEquals(2, values.get(1).size());
+        }
+    }
+
+    @Test
+    void incompleteAnswerFails() {
+        AiSuggestionStreamParser p = new AiSuggestionStreamParser((n, v) -> { });
+        p.feed("{\"improvedSummary\": \"x\", \"skillsSugg");
+        assertThrows(RuntimeException.class, p::result);
+    }
+}
@@ -0,0 +1,119 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtsScorerTest {
+
+    private static final String RESUME = String.join("\n",
+            "Jane Doe",
+            "jane.doe@example.com | (555) 123-4567",
+            "",
+            "PROFESSIONAL SUMMARY",
+            "Backend engineer building Java and Spring Boot services on AWS.",
+            "",
+            "TECHNICAL SKILLS",
+            "Java, Spring Boot, PostgreSQL, Docker, Kubernetes, CI/CD",
+            "",
+            "WORK EXPERIENCE",
+            "Acme Corp - Senior Software Engineer",
+            "- Built REST APIs in Java 17 and Spring Boot.",
+            "- Migrated batch jobs to Kubernetes.",
+            "",
+            "EDUCATION",
+            "B.S. Computer Science");
+
+    private static final String JD = "We are hiring a Senior Backend Engineer with strong Java and Spring Boot "
+            + "experience. You will build REST APIs, work with PostgreSQL and Kafka, and deploy to Kubernetes on AWS. "
+            + "Terraform is a plus.";
+
+    private final AtsScorer scorer = new AtsScorer();
+
+    @Test
+    void scoresKeywordsAndSections() {
+        AtsScorer.Result r = scorer.score(RESUME, JD);
+
+        assertTrue(r.matchedKeywords.contains("java"));
+        assertTrue(r.matchedKeywords.contains("spring boot"));
+        assertTrue(r.missingKeywords.contains("kafka"));
+        assertTrue(r.missingKeywords.contains("terraform"));
+        assertEquals(List.of("Contact Info", "Summary", "Skills", "Experience", "Education", "Projects", "Certifications"),
+                List.copyOf(r.sectionChecks.keySet()));
+        assertTrue(r.sectionChecks.get("Contact Info"));
+        assertTrue(r.sectionChecks.get("Experience"));
+        assertFalse(r.sectionChecks.get("Projects"));
+        assertFalse(r.sectionChecks.get("Certifications"));
+    }
+
+    @Test
+    void chunkedInputGivesSameResult() {
+        AtsScorer.Result whole = scorer.score(RESUME, JD);
+        Random rnd = new Random(1);
+
+        for (int round = 0; round < 50; round++) {
+            AtsScorer.Accumulator acc = scorer.start(JobProfile.compile(JD));
+            for (int i = 0; i < RESUME.length(); ) {
+                int end = Math.min(RESUME.length(), i + 1 + rnd.nextInt(40));
+                acc.feed(RESUME.substring(i, end));
+                i = end;
+            }
+            AtsScorer.Result chunked = acc.finish();
+
+            assertEquals(whole.totalScore, chunked.totalScore);
+            assertEquals(whole.matchedKeywords, chunked.matchedKeywords);
+            assertEquals(whole.missingKeywords, chunked.missingKeywords);
+            assertEquals(whole.sectionChecks, chunked.sectionChecks);
+            assertEquals(whole.suggestions, chunked.suggestions);
+        }
+    }
+
+    @Test
+    void reportsCompleteOnceNothingCanChange() {
+        AtsScorer.Accumulator acc = scorer.start(JobProfile.compile("java developer"));
+        acc.feed("Jane Doe jane@example.com\nSummary\nSkills\nExperience: Java developer\n");
+        assertFalse(acc.isComplete());
+
+        acc.feed("Education\nProjects\nCertifications\n");
+        assertTrue(acc.isComplete());
+        assertEquals(100, acc.finish().totalScore);
+    }
+
+    @Test
+    void matchesVariantsThroughTheProfileSynonyms() throws IOException {
+        Synonyms synonyms = Synonyms.parse(new StringReader("kubernetes: k8s\npostgresql: postgres, psql\n"));
+        JobProfile profile = JobProfile.compile("Kubernetes, PostgreSQL", synonyms);
+        String resume = "Ran K8s clusters\nand Postgres.";
+
+        assertEquals(List.of("kubernetes", "postgresql"), scorer.score(resume, profile).matchedKeywords);
+        assertTrue(scorer.score(resume, JobProfile.compile("Kubernetes, PostgreSQL")).matchedKeywords.isEmpty());
+
+        AtsScorer.Accumulator acc = scorer.start(profile);
+        for (char c : resume.toCharArray()) acc.feed(String.valueOf(c));
+        assertEquals(List.of("kubernetes", "postgresql"), acc.finish().matchedKeywords);
+    }
+
+    @Test
+    void recordsOneSamplePerScoredResume() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtsScorer scorer = new AtsScorer();
+        scorer.bindTo(registry);
+        JobProfile profile = JobProfile.compile(JD);
+
+        scorer.score(RESUME, profile);
+        AtsScorer.Accumulator acc = scorer.start(profile);
+        for (String line : RESUME.split("\n")) acc.feed(line + "\n");
+        acc.finish();
+
+        assertEquals(2, registry.get("ats.score").timer().count());
+        assertEquals(2L * (RESUME.length() + 1) - 1, (long) registry.get("ats.resume.text_length").summary().totalAmount());
+        assertEquals(profile.getKeywords().size(), registry.get("ats.job.keywords").summary().max());
+    }
+}
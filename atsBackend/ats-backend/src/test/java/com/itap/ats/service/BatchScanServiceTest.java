@@ -0,0 +1,239 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.BatchScanItem;
+import com.itap.ats.dto.BatchScanSummary;
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.repo.ResumeScanBatchWriter;
+import com.itap.ats.util.Synonyms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchScanServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ThreadPoolTaskExecutor executor = executor();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    /** Scores every resume the same without reading it. */
+    static class FakeScanService extends ScanService {
+        FakeScanService() {
+            super(null, null, null, null, null, null, null, null, null, Synonyms.NONE, true, 50, 200);
+        }
+
+        @Override
+        String resumeIdOf(byte[] pdf) {
+            return null;
+        }
+
+        @Override
+        AtsScorer.Result scoreResume(String resumeId, byte[] pdf, JobProfile profile) {
+            AtsScorer.Result r = new AtsScorer.Result();
+            r.totalScore = 70;
+            r.keywordScore = 60;
+            r.sectionScore = 90;
+            r.matchedKeywords = List.of("java");
+            r.missingKeywords = List.of();
+            r.sectionChecks = Map.of();
+            r.suggestions = List.of();
+            return r;
+        }
+    }
+
+    /** Rejects any batch holding bad.pdf, like a filename too long for its column. */
+    static class FakeWriter extends ResumeScanBatchWriter {
+        final Set<UUID> saved = Collections.synchronizedSet(new HashSet<>());
+        volatile boolean down;
+
+        FakeWriter() {
+            super(null, null);
+        }
+
+        @Override
+        public void insertAll(List<ResumeScan> scans) {
+            if (down) throw new RuntimeException("connection refused");
+            for (ResumeScan s : scans) {
+                if (s.getResumeFilename().equals("bad.pdf")) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(255)");
+                }
+            }
+            for (ResumeScan s : scans) saved.add(s.getId());
+        }
+    }
+
+    @Test
+    void aRejectedRowFailsOnlyItsOwnItem() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        BatchScanService service = service(writer, disabledWriteBehind());
+
+        List<BatchScanItem> sent = new CopyOnWriteArrayList<>();
+        BatchScanSummary summary = service.scanBatch(uploads("a.pdf", "b.pdf", "bad.pdf", "c.pdf", "d.pdf"),
+                "Java developer", sent::add).get(10, TimeUnit.SECONDS);
+
+        assertEquals(5, summary.total);
+        assertEquals(4, summary.succeeded);
+        assertEquals(1, summary.failed);
+        BatchScanItem bad = summary.ranked.get(4);
+        assertEquals("bad.pdf", bad.resumeFilename);
+        assertNull(bad.id);
+        assertNotNull(bad.error);
+        assertEquals(5, sent.size());
+
+        Set<UUID> reported = new HashSet<>();
+        for (BatchScanItem i : summary.ranked) if (i.id != null) reported.add(i.id);
+        assertEquals(reported, writer.saved);
+    }
+
+    @Test
+    void handsRowsToWriteBehindWhileTheDatabaseIsDown() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        writer.down = true;
+        FakeWriter later = new FakeWriter();
+        ScanWriteBehind writeBehind = new ScanWriteBehind(later, true, 1000, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), dir.resolve("spill.log").toString());
+        BatchScanService service = service(writer, writeBehind);
+
+        BatchScanSummary summary = service.scanBatch(uploads("a.pdf", "b.pdf", "c.pdf", "d.pdf", "e.pdf"),
+                "Java developer", item -> {}).get(10, TimeUnit.SECONDS);
+        writeBehind.shutdown();
+
+        assertEquals(5, summary.succeeded);
+        Set<UUID> reported = new HashSet<>();
+        for (BatchScanItem i : summary.ranked) reported.add(i.id);
+        assertTrue(writer.saved.isEmpty());
+        assertEquals(reported, later.saved);
+    }
+
+    @Test
+    void withoutWriteBehindUnsavedRowsAreReportedAsFailed() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        writer.down = true;
+        BatchScanService service = service(writer, disabledWriteBehind());
+
+        BatchScanSummary summary = service.scanBatch(uploads("a.pdf", "b.pdf", "c.pdf"),
+                "Java developer", item -> {}).get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, summary.succeeded);
+        assertEquals(3, summary.failed);
+    }
+
+    @Test
+    void rejectsZipsThatExpandPastTheTotalLimit() throws Exception {
+        BatchScanService service = new BatchScanService(new FakeScanService(), jobProfiles(), new FakeWriter(),
+                disabledWriteBehind(), executor, 500, DataSize.ofKilobytes(64), DataSize.ofKilobytes(100), 2,
+                dir.toString());
+        byte[] zip = zip(40, 30 * 1024);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.readUploads(
+                List.of(new MockMultipartFile("resumes", "cvs.zip", "application/zip", zip)),
+                "Java developer"));
+        assertTrue(e.getMessage().contains("larger than the upload limit"), e.getMessage());
+        try (var left = Files.list(dir)) {
+            assertEquals(0, left.count());
+        }
+    }
+
+    @Test
+    void keepsUploadsOnDiskUntilTheBatchIsDone() throws Exception {
+        BatchScanService service = service(new FakeWriter(), disabledWriteBehind());
+        List<BatchScanService.Upload> uploads = service.readUploads(List.of(
+                new MockMultipartFile("resumes", "a.pdf", "application/pdf", new byte[100]),
+                new MockMultipartFile("resumes", "cvs.zip", "application/zip", zip(3, 1024))), "Java developer");
+
+        assertEquals(List.of("a.pdf", "cv0.pdf", "cv1.pdf", "cv2.pdf"), uploads.stream().map(u -> u.filename).toList());
+        assertEquals(1024, Files.size(uploads.get(3).file));
+        Path uploadDir = uploads.get(0).file.getParent();
+        assertEquals(dir, uploadDir.getParent());
+
+        BatchScanSummary summary = service.scanBatch(uploads, "Java developer", item -> {}).get(10, TimeUnit.SECONDS);
+        assertEquals(4, summary.succeeded);
+        assertFalse(Files.exists(uploadDir));
+    }
+
+    @Test
+    void deletesUploadsWhenTheBatchCannotStart() throws Exception {
+        JobProfileCache failing = new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofHours(1),
+                "equal", "", 40) {
+            @Override
+            public JobProfile get(String jobDescription) {
+                throw new IllegalStateException("IDF table unreadable");
+            }
+        };
+        BatchScanService service = new BatchScanService(new FakeScanService(), failing, new FakeWriter(),
+                disabledWriteBehind(), executor, 500, DataSize.ofMegabytes(10), DataSize.ofMegabytes(200), 2,
+                dir.toString());
+        List<BatchScanService.Upload> uploads = uploads("a.pdf", "b.pdf");
+        Path uploadDir = uploads.get(0).file.getParent();
+
+        assertThrows(IllegalStateException.class, () -> service.scanBatch(uploads, "Java developer", item -> {}));
+        assertFalse(Files.exists(uploadDir));
+    }
+
+    private BatchScanService service(FakeWriter writer, ScanWriteBehind writeBehind) throws Exception {
+        return new BatchScanService(new FakeScanService(), jobProfiles(), writer, writeBehind, executor,
+                500, DataSize.ofMegabytes(10), DataSize.ofMegabytes(200), 2, dir.toString());
+    }
+
+    private ScanWriteBehind disabledWriteBehind() throws Exception {
+        return new ScanWriteBehind(new FakeWriter(), false, 10, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), dir.resolve("unused.log").toString());
+    }
+
+    private static JobProfileCache jobProfiles() throws Exception {
+        return new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofHours(1), "equal", "", 40);
+    }
+
+    private List<BatchScanService.Upload> uploads(String... names) throws Exception {
+        Path uploadDir = Files.createTempDirectory(dir, "ats-batch-");
+        List<BatchScanService.Upload> uploads = new ArrayList<>();
+        for (String n : names) {
+            Path file = Files.write(uploadDir.resolve(n), n.getBytes(StandardCharsets.UTF_8));
+            uploads.add(new BatchScanService.Upload(n, file));
+        }
+        return uploads;
+    }
+
+    // Highly compressible entries, each under the per-file limit.
+    private static byte[] zip(int entries, int entryBytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries; i++) {
+                zip.putNextEntry(new ZipEntry("cv" + i + ".pdf"));
+                zip.write(new byte[entryBytes]);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static ThreadPoolTaskExecutor executor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        return executor;
+    }
+}
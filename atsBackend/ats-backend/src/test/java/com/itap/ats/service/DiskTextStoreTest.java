@@ -0,0 +1,45 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.HashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskTextStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] key(String s) {
+        return HexFormat.of().parseHex(HashUtil.sha256Hex(s));
+    }
+
+    @Test
+    void survivesReopen() throws Exception {
+        try (DiskTextStore store = new DiskTextStore(dir, 64, 1 << 20)) {
+            store.put(key("a"), "Jane Doe\nJava, Spring Boot");
+            store.put(key("b"), "R\u00e9sum\u00e9 \u2013 \u00fcn\u00efcode");
+            assertNull(store.get(key("c")));
+        }
+
+        try (DiskTextStore store = new DiskTextStore(dir, 64, 1 << 20)) {
+            assertEquals(2, store.size());
+            assertEquals("Jane Doe\nJava, Spring Boot", store.get(key("a")));
+            assertEquals("R\u00e9sum\u00e9 \u2013 \u00fcn\u00efcode", store.get(key("b")));
+        }
+    }
+
+    @Test
+    void resetsWhenFull() throws Exception {
+        try (DiskTextStore store = new DiskTextStore(dir, 8, 1 << 20)) {
+            for (int i = 0; i < 7; i++) store.put(key("k" + i), "text " + i);
+
+            assertTrue(store.size() < 7);
+            assertEquals("text 6", store.get(key("k6")));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdfTableTest {
+
+    private static final String BOILERPLATE = "Team player with excellent communication skills\n";
+    private static final List<String> CORPUS = List.of(
+            BOILERPLATE + "Java and Kafka on AWS",
+            BOILERPLATE + "Python and Django on AWS",
+            BOILERPLATE + "React and TypeScript",
+            BOILERPLATE + "Terraform and Kubernetes",
+            BOILERPLATE + "Scala and Spark",
+            BOILERPLATE + "Ruby and Rails",
+            BOILERPLATE + "Swift and iOS",
+            BOILERPLATE + "Rust and WebAssembly");
+
+    @TempDir
+    Path dir;
+
+    private final AtsScorer scorer = new AtsScorer();
+
+    private IdfTable build(int minDf) throws Exception {
+        IdfTableBuilder builder = new IdfTableBuilder();
+        CORPUS.forEach(builder::add);
+        Path file = dir.resolve("idf-" + minDf + ".bin");
+        builder.write(file, minDf);
+        assertFalse(Files.exists(dir.resolve("idf-" + minDf + ".bin.tmp")));
+        return IdfTable.open(file, Synonyms.NONE);
+    }
+
+    @Test
+    void commonKeywordsWeighLess() throws Exception {
+        IdfTable idf = build(1);
+        assertEquals(8, idf.docCount());
+        assertEquals(IdfTable.idf(8, 8), idf.idf("team player"));
+        assertEquals(IdfTable.idf(8, 2), idf.idf("aws"));
+        assertEquals(IdfTable.idf(8, 1), idf.idf("kafka"));
+        assertEquals(IdfTable.idf(8, 0), idf.idf("cobol"));
+        assertTrue(idf.idf("team player") < idf.idf("aws"));
+        assertTrue(idf.idf("aws") < idf.idf("kafka"));
+    }
+
+    @Test
+    void rareKeywordsBelowMinimumGetTheDefault() throws Exception {
+        IdfTable idf = build(2);
+        assertEquals(IdfTable.idf(8, 2), idf.idf("aws"));
+        assertEquals(idf.idf("cobol"), idf.idf("kafka"));
+        assertTrue(idf.idf("kafka") > idf.idf("aws"));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws Exception {
+        Path file = dir.resolve("not-idf.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> IdfTable.open(file, Synonyms.NONE));
+    }
+
+    @Test
+    void refusesATableBuiltWithAnotherSynonymDictionary() throws Exception {
+        Synonyms synonyms = Synonyms.load(new ByteArrayInputStream(
+                "javascript: js\nkubernetes: k8s\n".getBytes(StandardCharsets.UTF_8)));
+        IdfTableBuilder builder = new IdfTableBuilder(synonyms);
+        CORPUS.forEach(builder::add);
+        Path file = dir.resolve("idf-synonyms.bin");
+        builder.write(file, 1);
+
+        assertEquals(8, IdfTable.open(file, synonyms).docCount());
+        assertThrows(IllegalStateException.class, () -> IdfTable.open(file, Synonyms.NONE));
+        Path plain = dir.resolve("idf-1.bin");
+        build(1);
+        assertThrows(IllegalStateException.class, () -> IdfTable.open(plain, synonyms));
+    }
+
+    @Test
+    void prunesToTheRarestKeywordsInJdOrder() throws Exception {
+        IdfTable idf = build(1);
+        String jd = BOILERPLATE + "Java and Kafka on AWS";
+        JobProfile all = JobProfile.compile(jd, idf, 0);
+        assertEquals(JobProfile.compile(jd).getKeywords(), all.getKeywords());
+
+        // The five keywords only this JD has; "aws" and the boilerplate are dropped.
+        JobProfile top = JobProfile.compile(jd, idf, 5);
+        assertEquals(5, top.getKeywords().size());
+        assertTrue(top.getKeywords().containsAll(List.of("java kafka", "java", "kafka")));
+        assertFalse(top.getKeywords().contains("aws"));
+        assertFalse(top.getKeywords().contains("team player"));
+        List<String> order = all.getKeywords().stream().filter(top.getKeywords()::contains).toList();
+        assertEquals(order, top.getKeywords());
+    }
+
+    @Test
+    void weightedScoreFavorsTheDistinctiveKeywords() throws Exception {
+        IdfTable idf = build(1);
+        String jd = BOILERPLATE + "Java and Kafka on AWS";
+        String generic = "SUMMARY\nTeam player with excellent communication skills";
+        String specific = "SUMMARY\nJava Kafka AWS engineer";
+
+        JobProfile equal = JobProfile.compile(jd);
+        JobProfile weighted = JobProfile.compile(jd, idf, 0);
+        assertFalse(equal.isWeighted());
+        assertTrue(weighted.isWeighted());
+
+        assertTrue(scorer.score(generic, equal).keywordScore > scorer.score(specific, equal).keywordScore);
+        assertTrue(scorer.score(generic, weighted).keywordScore < scorer.score(specific, weighted).keywordScore);
+        // Matched and missing keywords do not depend on the weights.
+        assertEquals(scorer.score(specific, equal).missingKeywords, scorer.score(specific, weighted).missingKeywords);
+    }
+}
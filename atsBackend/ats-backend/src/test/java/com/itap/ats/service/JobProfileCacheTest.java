@@ -0,0 +1,39 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobProfileCacheTest {
+
+    private static final String JD = "Java, Spring Boot, Kafka and PostgreSQL on AWS.";
+
+    @Test
+    void compilesEachJobDescriptionOnce() throws Exception {
+        JobProfileCache profiles = new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofHours(1),
+                "equal", "", 40);
+
+        JobProfile first = profiles.get(JD);
+        // An equal string, not the same instance, still finds the cached profile.
+        JobProfile again = profiles.get(new String(JD.toCharArray()));
+
+        assertSame(first, again);
+        assertNotSame(first, profiles.get(JD + " Docker."));
+        assertEquals(1, profiles.getCache().hits());
+        assertEquals(2, profiles.getCache().misses());
+        assertEquals(2, profiles.getCache().size());
+    }
+
+    @Test
+    void aProfileTooLargeForTheCacheIsCompiledEveryTime() throws Exception {
+        JobProfileCache profiles = new JobProfileCache(Synonyms.NONE, DataSize.ofBytes(16), Duration.ofHours(1),
+                "equal", "", 40);
+
+        assertNotSame(profiles.get(JD), profiles.get(JD));
+        assertEquals(0, profiles.getCache().size());
+    }
+}
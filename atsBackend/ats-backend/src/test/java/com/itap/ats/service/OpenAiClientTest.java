@@ -0,0 +1,203 @@
+package com.itap.ats.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itap.ats.dto.AiSuggestionsResponse;
+import com.itap.ats.util.Synonyms;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiClientTest {
+
+    private static final String OK_BODY = "{\"output\":[{\"content\":[{\"type\":\"output_text\",\"text\":"
+            + "\"{\\\"improvedSummary\\\":\\\"Java developer\\\",\\\"skillsSuggestions\\\":[\\\"Spring Boot\\\"],"
+            + "\\\"atsWarnings\\\":[]}\"}]}]}";
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int failuresBeforeSuccess;
+    private volatile String okBody = OK_BODY;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/responses", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        String request = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int n = hits.incrementAndGet();
+        if (request.contains("\"stream\":true")) {
+            stream(ex);
+            return;
+        }
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+        boolean fail = n <= failuresBeforeSuccess;
+        byte[] body = (fail ? "{\"error\":\"overloaded\"}" : okBody).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(fail ? 503 : 200, body.length);
+        ex.getResponseBody().write(body);
+        ex.close();
+    }
+
+    // The answer split into deltas at awkward places, with the summary sent before the rest is written.
+    private void stream(HttpExchange ex) throws IOException {
+        String[] deltas = {"{\"improvedSum", "mary\": \"Java dev", "eloper\", \"skillsSugg",
+                "estions\": [\"Spring", " Boot\", \"AWS\"], \"atsWarnings\": []}"};
+        ex.getResponseHeaders().add("Content-Type", "text/event-stream");
+        ex.sendResponseHeaders(200, 0);
+        for (int i = 0; i < deltas.length; i++) {
+            String data = "{\"type\":\"response.output_text.delta\",\"delta\":"
+                    + new ObjectMapper().writeValueAsString(deltas[i]) + "}";
+            ex.getResponseBody().write(("event: response.output_text.delta\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+            ex.getResponseBody().flush();
+            if (i == 2) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+        ex.getResponseBody().write("event: response.completed\ndata: {\"type\":\"response.completed\"}\n\n".getBytes(StandardCharsets.UTF_8));
+        ex.close();
+    }
+
+    private OpenAiClient client(int maxInFlight) throws IOException {
+        PromptCompactor compactor = new PromptCompactor(new AtsScorer(),
+                new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofMinutes(5), "equal", "", 0), true, 3000);
+        return new OpenAiClient(compactor, "test-key", "http://127.0.0.1:" + server.getAddress().getPort() + "/v1",
+                "test-model", Duration.ofSeconds(5), 2, Duration.ofMillis(10), maxInFlight,
+                DataSize.ofMegabytes(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void parsesSuggestionsAndCachesThem() throws Exception {
+        OpenAiClient c = client(4);
+
+        AiSuggestionsResponse first = c.getSuggestions("resume", "jd").get(5, TimeUnit.SECONDS);
+        AiSuggestionsResponse second = c.getSuggestions("resume", "jd").get(5, TimeUnit.SECONDS);
+        c.getSuggestions("other resume", "jd").get(5, TimeUnit.SECONDS);
+
+        assertEquals("Java developer", first.improvedSummary);
+        assertEquals("Spring Boot", first.skillsSuggestions.get(0));
+        assertSame(first, second);
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void coalescesIdenticalRequestsInFlight() throws Exception {
+        release = new CountDownLatch(1);
+        OpenAiClient c = client(4);
+
+        CompletableFuture<AiSuggestionsResponse> a = c.getSuggestions("resume", "jd");
+        CompletableFuture<AiSuggestionsResponse> b = c.getSuggestions("resume", "jd");
+        release.countDown();
+
+        assertEquals("Java developer", a.get(5, TimeUnit.SECONDS).improvedSummary);
+        assertEquals("Java developer", b.get(5, TimeUnit.SECONDS).improvedSummary);
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void retriesServerErrors() throws Exception {
+        failuresBeforeSuccess = 2;
+        OpenAiClient c = client(4);
+
+        assertEquals("Java developer", c.getSuggestions("resume", "jd").get(5, TimeUnit.SECONDS).improvedSummary);
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void rejectsWhenTooManyCallsAreInFlight() throws Exception {
+        release = new CountDownLatch(1);
+        OpenAiClient c = client(1);
+
+        CompletableFuture<AiSuggestionsResponse> running = c.getSuggestions("resume 1", "jd");
+        assertThrows(ServiceBusyException.class, () -> c.getSuggestions("resume 2", "jd"));
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertNotNull(c.getSuggestions("resume 2", "jd").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void streamsEachFieldAsSoonAsItIsComplete() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenAiClient c = client(4);
+        c.bindTo(registry);
+        List<String> fields = new CopyOnWriteArrayList<>();
+        CountDownLatch summarySeen = new CountDownLatch(1);
+
+        release = new CountDownLatch(1);
+        CompletableFuture<AiSuggestionsResponse> done = c.streamSuggestions("resume", "jd", (name, value) -> {
+            fields.add(name);
+            if (name.equals("improvedSummary")) summarySeen.countDown();
+        });
+
+        // The summary arrives while the stub is still holding back the rest of the answer.
+        assertTrue(summarySeen.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("improvedSummary"), fields);
+        assertEquals(1, registry.get("ats.openai.in_flight").gauge().value());
+        release.countDown();
+
+        AiSuggestionsResponse resp = done.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("improvedSummary", "skillsSuggestions", "atsWarnings"), fields);
+        assertEquals("Java developer", resp.improvedSummary);
+        assertEquals(List.of("Spring Boot", "AWS"), resp.skillsSuggestions);
+        assertEquals(0, registry.get("ats.openai.in_flight").gauge().value());
+
+        // A repeat is replayed from the cache without another call.
+        List<String> again = new ArrayList<>();
+        c.streamSuggestions("resume", "jd", (name, value) -> again.add(name)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("improvedSummary", "skillsSuggestions", "atsWarnings"), again);
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void countsRetriesAndAnswersThatAreNotJson() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenAiClient c = client(4);
+        c.bindTo(registry);
+        failuresBeforeSuccess = 1;
+        okBody = "{\"output\":[{\"content\":[{\"type\":\"output_text\",\"text\":\"Sorry, I can't help.\"}]}]}";
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> c.getSuggestions("resume", "jd").get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(AiOutputException.class, e.getCause());
+        assertEquals(1, registry.get("ats.openai.retries").counter().count());
+        assertEquals(1, registry.get("ats.openai.parse_failures").counter().count());
+        assertEquals(1, registry.get("ats.openai.request").tag("outcome", "error").timer().count());
+    }
+}
@@ -0,0 +1,125 @@
+package com.itap.ats.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfTextExtractorTest {
+
+    private PdfTextExtractor extractor;
+
+    @AfterEach
+    void tearDown() {
+        if (extractor != null) extractor.shutdown();
+    }
+
+    static byte[] pdf(String... pages) throws IOException {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 11);
+                    cs.newLineAtOffset(50, 700);
+                    for (String line : text.split("\n")) {
+                        cs.showText(line);
+                        cs.newLineAtOffset(0, -14);
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    void extractsTextFromAllPages() throws IOException {
+        extractor = new PdfTextExtractor(new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(10), DataSize.ofMegabytes(1), "");
+
+        String text = extractor.extractText(new ByteArrayInputStream(pdf("Jane Doe\nSkills", "Experience\nJava developer")));
+
+        assertTrue(text.contains("Jane Doe"));
+        assertTrue(text.contains("Java developer"));
+    }
+
+    @Test
+    void pagesJoinToFullTextAndCanStopEarly() throws IOException {
+        extractor = new PdfTextExtractor(new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(10), DataSize.ofMegabytes(1), "");
+        byte[] doc = pdf("Jane Doe\nSkills", "Experience\nJava developer", "Education");
+
+        List<String> pages = new ArrayList<>();
+        extractor.extractPages(new ByteArrayInputStream(doc), pages::add);
+        assertEquals(3, pages.size());
+        assertEquals(extractor.extractText(new ByteArrayInputStream(doc)), String.join("", pages));
+
+        List<String> firstOnly = new ArrayList<>();
+        extractor.extractPages(new ByteArrayInputStream(doc), page -> {
+            firstOnly.add(page);
+            return false;
+        });
+        assertEquals(List.of(pages.get(0)), firstOnly);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        extractor = new PdfTextExtractor(new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(5), DataSize.ofMegabytes(1), "");
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] doc = pdf("Jane Doe");
+
+        // Occupy the worker and the single queue slot with streams that block until released.
+        Thread a = new Thread(() -> { try { extractor.extractText(blocking(doc, release)); } catch (RuntimeException ignored) { } });
+        Thread b = new Thread(() -> { try { extractor.extractText(blocking(doc, release)); } catch (RuntimeException ignored) { } });
+        a.start();
+        Thread.sleep(100);
+        b.start();
+        Thread.sleep(100);
+
+        assertThrows(ServiceBusyException.class, () -> extractor.extractText(new ByteArrayInputStream(doc)));
+        release.countDown();
+        a.join();
+        b.join();
+    }
+
+    @Test
+    void timesOutSlowDocuments() throws Exception {
+        extractor = new PdfTextExtractor(new SimpleMeterRegistry(), 1, 1, Duration.ofMillis(200), DataSize.ofMegabytes(1), "");
+        CountDownLatch never = new CountDownLatch(1);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> extractor.extractText(blocking(pdf("Jane Doe"), never)));
+        assertTrue(e.getMessage().contains("too long"));
+    }
+
+    private static InputStream blocking(byte[] bytes, CountDownLatch release) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+                return super.read(b, off, len);
+            }
+        };
+    }
+}
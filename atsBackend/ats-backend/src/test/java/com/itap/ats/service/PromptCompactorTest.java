@@ -0,0 +1,104 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TokenEstimator;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptCompactorTest {
+
+    private static final String JD = "Senior Backend Engineer. Java and Spring Boot, REST APIs, PostgreSQL, "
+            + "Kafka, Kubernetes on AWS. Terraform is a plus.";
+
+    private static String page(int n, String... body) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Jane Doe    |   jane.doe@example.com");
+        lines.add("");
+        lines.addAll(List.of(body));
+        lines.add("");
+        lines.add("Page " + n + " of 2");
+        return String.join("\n", lines);
+    }
+
+    private static final String RESUME = page(1,
+            "PROFESSIONAL SUMMARY",
+            "Backend engineer building   Java and Spring Boot services on AWS.",
+            "",
+            "WORK EXPERIENCE",
+            "Acme Corp - Senior Software Engineer",
+            "- Built REST APIs in Java 17 and Spring Boot.",
+            "- Organised the office book club and summer picnic.",
+            "- Migrated batch jobs to Kubernetes.",
+            "________________________________")
+            + "\n" + page(2,
+            "EDUCATION",
+            "B.S. Computer Science",
+            "",
+            "TECHNICAL SKILLS",
+            "Java, Spring Boot, PostgreSQL, Docker, Kubernetes");
+
+    private static PromptCompactor compactor(boolean enabled, int maxTokens) throws IOException {
+        return new PromptCompactor(new AtsScorer(),
+                new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofMinutes(5), "equal", "", 0), enabled, maxTokens);
+    }
+
+    @Test
+    void dropsNoiseAndRepeatsButKeepsContentInOrder() throws Exception {
+        PromptCompactor.Compacted c = compactor(true, 3000).compact(RESUME, JD);
+
+        assertEquals(String.join("\n",
+                "Jane Doe | jane.doe@example.com",
+                "PROFESSIONAL SUMMARY",
+                "Backend engineer building Java and Spring Boot services on AWS.",
+                "WORK EXPERIENCE",
+                "Acme Corp - Senior Software Engineer",
+                "- Built REST APIs in Java 17 and Spring Boot.",
+                "- Organised the office book club and summer picnic.",
+                "- Migrated batch jobs to Kubernetes.",
+                "EDUCATION",
+                "B.S. Computer Science",
+                "TECHNICAL SKILLS",
+                "Java, Spring Boot, PostgreSQL, Docker, Kubernetes"), c.resume);
+        assertTrue(c.missingKeywords.contains("kafka"));
+        assertTrue(c.tokens < c.rawTokens);
+    }
+
+    @Test
+    void fitsTheBudgetKeepingKeywordLinesFirst() throws Exception {
+        int budget = 150;
+
+        PromptCompactor.Compacted c = compactor(true, budget).compact(RESUME, JD);
+
+        assertTrue(c.tokens <= budget, c.tokens + " > " + budget);
+        assertTrue(c.resume.contains("PROFESSIONAL SUMMARY"));
+        assertTrue(c.resume.contains("- Built REST APIs in Java 17 and Spring Boot."));
+        assertFalse(c.resume.contains("book club"));
+        assertTrue(c.resume.indexOf("WORK EXPERIENCE") < c.resume.indexOf("TECHNICAL SKILLS"));
+        assertFalse(c.jobDescription.isEmpty());
+    }
+
+    @Test
+    void disabledPassesTextThrough() throws Exception {
+        PromptCompactor.Compacted c = compactor(false, 10).compact(RESUME, JD);
+
+        assertEquals(RESUME, c.resume);
+        assertEquals(JD, c.jobDescription);
+        assertEquals(c.rawTokens, c.tokens);
+    }
+
+    @Test
+    void estimatesTokensRoughlyLikeBpe() {
+        assertEquals(0, TokenEstimator.estimate(""));
+        assertEquals(1, TokenEstimator.estimate("java"));
+        assertEquals(3, TokenEstimator.estimate("Spring Boot!"));
+        assertEquals(2, TokenEstimator.estimate("2024"));
+        assertEquals(4, TokenEstimator.estimate("a\n\nb"));
+    }
+}
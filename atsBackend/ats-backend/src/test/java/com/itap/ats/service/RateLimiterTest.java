@@ -0,0 +1,131 @@
+package com.itap.ats.service;
+
+import com.itap.ats.service.RateLimiter.Tier;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private long now;
+
+    // scan: 60/min (one a second), burst 5, and ten times that for "good-key".
+    private RateLimiter limiter(int maxClients) {
+        return new RateLimiter(true, "good-key", 10, maxClients, 60, 5, 0, 6, 2, 12);
+    }
+
+    private void advanceSeconds(double seconds) {
+        now += (long) (seconds * 1e9);
+    }
+
+    private int acquire(RateLimiter limiter, Tier tier, String apiKey, String ip, int cost) {
+        return limiter.acquire(tier, apiKey, ip, cost, now);
+    }
+
+    @Test
+    void admitsTheBurstThenAsksToRetry() {
+        RateLimiter limiter = limiter(100);
+        for (int i = 0; i < 5; i++) assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+
+        assertEquals(1, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "2.2.2.2", 1));
+
+        advanceSeconds(1);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+        assertEquals(1, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+    }
+
+    @Test
+    void chargesTheWholeCostOfABatch() {
+        RateLimiter limiter = limiter(100);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 30));
+
+        // 30 tokens out of a bucket of 5 leaves it 25 seconds short of the next one.
+        assertEquals(26, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+        advanceSeconds(26);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+    }
+
+    @Test
+    void chargingAfterAdmissionCountsLikeTheWholeCost() {
+        RateLimiter limiter = limiter(100);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+        limiter.charge(Tier.SCAN, null, "1.1.1.1", 29, now);
+
+        assertEquals(26, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+        advanceSeconds(26);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1));
+    }
+
+    @Test
+    void knownApiKeysGetALargerBudget() {
+        RateLimiter limiter = limiter(100);
+        for (int i = 0; i < 50; i++) assertEquals(0, acquire(limiter, Tier.SCAN, "good-key", "1.1.1.1", 1));
+        assertTrue(acquire(limiter, Tier.SCAN, "good-key", "1.1.1.1", 1) > 0);
+
+        // An unknown key is just the caller's address.
+        for (int i = 0; i < 5; i++) assertEquals(0, acquire(limiter, Tier.SCAN, "bad-key", "1.1.1.1", 1));
+        assertTrue(acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1) > 0);
+    }
+
+    @Test
+    void globalBudgetRefundsTheClient() {
+        // ai: one request per client every 10s, 12/min (2 at once) shared by everyone.
+        RateLimiter limiter = new RateLimiter(true, "", 10, 100, 60, 5, 0, 6, 1, 12);
+        assertEquals(0, acquire(limiter, Tier.AI, null, "1.1.1.1", 1));
+        assertEquals(0, acquire(limiter, Tier.AI, null, "2.2.2.2", 1));
+        assertEquals(5, acquire(limiter, Tier.AI, null, "3.3.3.3", 1));
+
+        // The refused request did not use up 3.3.3.3's own token.
+        advanceSeconds(5);
+        assertEquals(0, acquire(limiter, Tier.AI, null, "3.3.3.3", 1));
+        assertEquals(10, acquire(limiter, Tier.AI, null, "3.3.3.3", 1));
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() throws Exception {
+        RateLimiter limiter = limiter(100);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        if (acquire(limiter, Tier.SCAN, null, "1.1.1.1", 1) == 0) admitted.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(5, admitted.get());
+    }
+
+    @Test
+    void dropsIdleClientsWhenFull() {
+        RateLimiter limiter = limiter(3);
+        for (int i = 0; i < 3; i++) acquire(limiter, Tier.SCAN, null, "10.0.0." + i, 1);
+
+        // All three are busy, so a fourth shares the overflow bucket.
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "10.0.0.9", 1));
+        assertEquals(4, limiter.trackedClients(Tier.SCAN));
+
+        advanceSeconds(2);
+        assertEquals(0, acquire(limiter, Tier.SCAN, null, "10.0.0.10", 1));
+        assertEquals(1, limiter.trackedClients(Tier.SCAN));
+    }
+}
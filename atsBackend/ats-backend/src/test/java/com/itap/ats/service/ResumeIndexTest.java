@@ -0,0 +1,230 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.ScoreResult;
+import com.itap.ats.util.Synonyms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumeIndexTest {
+
+    // Tokens with separators inside, and near-misses like "javascript" for "java".
+    private static final String[] WORDS = {
+            "java", "javascript", "spring", "boot", "spring-boot", "ci/cd", "c++", "node.js", ".net", "asp.net",
+            "aws", "k8s", "kafka", "sql", "postgresql", "rest", "apis", "go", "python3", "docker", "a.b.c.d",
+            "kubernetes", "terraform", "react", "(java)", "lead", "built", "services", "team", "2019-2023"};
+    private static final String[] GLUE = {" ", " ", " ", ", ", ". ", "\n", " - ", "/", " & "};
+    private static final String SECTIONS = "SUMMARY\nBackend engineer.\nEXPERIENCE\n";
+
+    @TempDir
+    Path dir;
+
+    private final AtsScorer scorer = new AtsScorer();
+
+    private static String text(Random rnd, int words) {
+        StringBuilder sb = new StringBuilder(rnd.nextBoolean() ? SECTIONS : "");
+        for (int i = 0; i < words; i++) {
+            String w = WORDS[rnd.nextInt(WORDS.length)];
+            sb.append(rnd.nextInt(4) == 0 ? w.toUpperCase() : w).append(GLUE[rnd.nextInt(GLUE.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static Synonyms bundledSynonyms() throws Exception {
+        try (InputStream in = ResumeIndexTest.class.getResourceAsStream("/synonyms.txt")) {
+            return Synonyms.load(in);
+        }
+    }
+
+    private static ResumeTextCache textCache() throws Exception {
+        return new ResumeTextCache(null, true, DataSize.ofMegabytes(4), "", DataSize.ofMegabytes(1), 1024);
+    }
+
+    private String add(ResumeIndex index, ResumeTextCache cache, String text) throws InterruptedException {
+        String id = ResumeTextCache.hash(text.getBytes());
+        cache.put(id, text);
+        index.add(id, text, scorer.score(text, JobProfile.compile("")).sectionScore);
+        index.awaitIndexed();
+        return id;
+    }
+
+    private static Map<String, ScoreResult> byId(List<ScoreResult> results) {
+        return results.stream().collect(Collectors.toMap(r -> r.resumeId, Function.identity()));
+    }
+
+    @Test
+    void ranksWithTheScannerScores() throws Exception {
+        Random rnd = new Random(7);
+        ResumeTextCache cache = textCache();
+        // WORDS has variants like "k8s", "python3" and ".net", so the index and the scorer must map them alike.
+        Synonyms synonyms = bundledSynonyms();
+        ResumeIndex index = new ResumeIndex(cache, synonyms, true, dir.toString(), 64, 1000);
+        Map<String, String> texts = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            String text = text(rnd, 20 + rnd.nextInt(60));
+            texts.put(add(index, cache, text), text);
+        }
+
+        IdfTableBuilder idfBuilder = new IdfTableBuilder(synonyms);
+        for (int i = 0; i < 50; i++) idfBuilder.add(text(rnd, 5 + rnd.nextInt(20)));
+        idfBuilder.write(dir.resolve("idf.bin"), 2);
+        IdfTable idf = IdfTable.open(dir.resolve("idf.bin"), synonyms);
+
+        for (int q = 0; q < 30; q++) {
+            String jd = text(rnd, 5 + rnd.nextInt(20));
+            // Every third query is IDF-weighted, half of those pruned to the top keywords.
+            JobProfile profile = q % 3 != 2 ? JobProfile.compile(jd, synonyms)
+                    : JobProfile.compile(jd, synonyms, idf, q % 2 == 0 ? 0 : 6);
+            List<ScoreResult> ranked = index.search(profile, 1000);
+            Map<String, ScoreResult> found = byId(ranked);
+
+            for (Map.Entry<String, String> e : texts.entrySet()) {
+                AtsScorer.Result expected = scorer.score(e.getValue(), profile);
+                ScoreResult r = found.get(e.getKey());
+                if (r == null) {
+                    assertTrue(expected.matchedKeywords.isEmpty(), e.getValue());
+                    continue;
+                }
+                assertEquals(expected.keywordScore, r.keywordScore, e.getValue());
+                assertEquals(expected.totalScore, r.totalScore);
+                assertEquals(expected.missingKeywords, r.missingKeywords);
+            }
+            for (int i = 1; i < ranked.size(); i++) {
+                assertTrue(ranked.get(i - 1).totalScore >= ranked.get(i).totalScore);
+            }
+            List<ScoreResult> top = index.search(profile, 5);
+            assertEquals(ranked.subList(0, Math.min(5, ranked.size())).stream().map(r -> r.resumeId).toList(),
+                    top.stream().map(r -> r.resumeId).toList());
+        }
+        index.close();
+    }
+
+    @Test
+    void survivesRestartAndCrash() throws Exception {
+        Random rnd = new Random(11);
+        ResumeTextCache cache = textCache();
+        JobProfile profile = JobProfile.compile("Java, Spring Boot, Kafka and AWS; CI/CD with Docker on Kubernetes.");
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 8, 1000);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 21; i++) ids.add(add(index, cache, text(rnd, 30)));
+        add(index, cache, cache.getIfPresent(ids.get(3)));
+        List<ScoreResult> before = index.search(profile, 100);
+        assertEquals(21, index.size());
+
+        // Not closed: the last five docs are only in memory and come back from the log.
+        ResumeIndex recovered = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 8, 1000);
+        assertEquals(21, recovered.size());
+        assertSameRanking(before, recovered.search(profile, 100));
+        recovered.close();
+
+        // Closed: the short segment was written and is read back without the cache.
+        ResumeIndex reopened = new ResumeIndex(textCache(), Synonyms.NONE, true, dir.toString(), 8, 1000);
+        assertSameRanking(before, reopened.search(profile, 100));
+        add(reopened, textCache(), text(rnd, 30));
+        assertEquals(22, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    void replaysTheLogAfterACrashWithoutTheTextCache() throws Exception {
+        Random rnd = new Random(13);
+        ResumeTextCache cache = textCache();
+        JobProfile profile = JobProfile.compile("Java, Spring Boot, Kafka and AWS; CI/CD with Docker on Kubernetes.");
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 8, 1000);
+        for (int i = 0; i < 21; i++) add(index, cache, text(rnd, 30));
+        List<ScoreResult> before = index.search(profile, 100);
+
+        // Not closed, a record torn by the crash, and the restarted process has an empty text cache.
+        Files.write(dir.resolve("seg-16.log"), new byte[]{0, 0, 0, 21, 0, 0}, StandardOpenOption.APPEND);
+        ResumeIndex recovered = new ResumeIndex(textCache(), Synonyms.NONE, true, dir.toString(), 8, 1000);
+        assertEquals(21, recovered.size());
+        assertSameRanking(before, recovered.search(profile, 100));
+
+        String added = add(recovered, textCache(), "Java and Kafka on AWS.");
+        recovered.close();
+        assertFalse(Files.exists(dir.resolve("seg-16.log")));
+        ResumeIndex reopened = new ResumeIndex(textCache(), Synonyms.NONE, true, dir.toString(), 8, 1000);
+        assertEquals(22, reopened.size());
+        assertTrue(byId(reopened.search(profile, 100)).containsKey(added));
+        reopened.close();
+    }
+
+    @Test
+    void rebuildsWhenTheSynonymsChange() throws Exception {
+        ResumeTextCache cache = textCache();
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 2, 1000);
+        String k8s = add(index, cache, "Ran services on k8s with postgres.");
+        String kubernetes = add(index, cache, "Ran services on kubernetes with postgresql.");
+        add(index, cache, "Wrote python3 scripts.");
+        index.close();
+
+        Synonyms synonyms = bundledSynonyms();
+        JobProfile profile = JobProfile.compile("Kubernetes and PostgreSQL", synonyms);
+        ResumeIndex reopened = new ResumeIndex(cache, synonyms, true, dir.toString(), 2, 1000);
+        List<ScoreResult> ranked = reopened.search(profile, 10);
+        assertEquals(2, ranked.size());
+        int expected = scorer.score("Ran services on k8s with postgres.", profile).keywordScore;
+        assertTrue(expected > 0);
+        assertEquals(expected, byId(ranked).get(k8s).keywordScore);
+        assertEquals(expected, byId(ranked).get(kubernetes).keywordScore);
+        reopened.close();
+    }
+
+    @Test
+    void refusesToDropSegmentsItCannotRebuild() throws Exception {
+        ResumeTextCache cache = textCache();
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 2, 1000);
+        String k8s = add(index, cache, "Ran services on k8s with postgres.");
+        add(index, cache, "Ran services on kubernetes with postgresql.");
+        add(index, cache, "Wrote python3 scripts.");
+        index.close();
+
+        // A restart: the in-memory text tier starts empty.
+        Synonyms synonyms = bundledSynonyms();
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ResumeIndex(textCache(), synonyms, true, dir.toString(), 2, 1000));
+        assertTrue(e.getMessage().contains("ats.extraction-cache.dir"), e.getMessage());
+        assertTrue(Files.exists(dir.resolve("seg-0.idx")));
+
+        ResumeIndex reopened = new ResumeIndex(textCache(), Synonyms.NONE, true, dir.toString(), 2, 1000);
+        assertEquals(3, reopened.size());
+        assertEquals(k8s, reopened.search(JobProfile.compile("k8s"), 10).get(0).resumeId);
+        reopened.close();
+    }
+
+    @Test
+    void keepsAnIndexFromBeforeSynonymsId() throws Exception {
+        ResumeTextCache cache = textCache();
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 2, 1000);
+        String k8s = add(index, cache, "Ran services on k8s with postgres.");
+        add(index, cache, "Wrote python3 scripts.");
+        index.close();
+        Files.delete(dir.resolve("synonyms.id"));
+
+        ResumeIndex reopened = new ResumeIndex(textCache(), bundledSynonyms(), true, dir.toString(), 2, 1000);
+        assertEquals(2, reopened.size());
+        assertEquals(k8s, reopened.search(JobProfile.compile("k8s"), 10).get(0).resumeId);
+        reopened.close();
+        assertTrue(Files.exists(dir.resolve("synonyms.id")));
+    }
+
+    private static void assertSameRanking(List<ScoreResult> expected, List<ScoreResult> actual) {
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.stream().map(r -> r.resumeId + ":" + r.totalScore + ":" + r.missingKeywords).toList(),
+                actual.stream().map(r -> r.resumeId + ":" + r.totalScore + ":" + r.missingKeywords).toList());
+    }
+}
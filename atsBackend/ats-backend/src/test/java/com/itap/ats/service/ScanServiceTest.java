@@ -0,0 +1,61 @@
+package com.itap.ats.service;
+
+import com.itap.ats.util.Synonyms;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final PdfTextExtractor extractor =
+            new PdfTextExtractor(new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(10), DataSize.ofMegabytes(1), "");
+    private final AtsScorer scorer = new AtsScorer();
+
+    @AfterEach
+    void tearDown() {
+        extractor.shutdown();
+    }
+
+    @Test
+    void aCacheMissIsScoredWhileStreamingAndCachedWhole() throws Exception {
+        ResumeTextCache cache = new ResumeTextCache(extractor, true, DataSize.ofMegabytes(4), "", DataSize.ofMegabytes(1), 1024);
+        ResumeIndex index = new ResumeIndex(cache, Synonyms.NONE, true, dir.toString(), 64, 1000);
+        ScanService service = new ScanService(extractor, cache, index, scorer, null, null, null, null, null,
+                Synonyms.NONE, true, 50, 200);
+        JobProfile profile = JobProfile.compile("Java, Spring Boot, Kafka and PostgreSQL.");
+        byte[] pdf = PdfTextExtractorTest.pdf("Jane Doe\nSkills\nJava, Kafka", "Experience\nSpring Boot developer",
+                "Education\nBSc Computer Science");
+        String id = service.resumeIdOf(pdf);
+
+        AtsScorer.Result streamed = service.scoreResume(id, pdf, profile);
+        index.awaitIndexed();
+
+        String text = extractor.extractText(new ByteArrayInputStream(pdf));
+        assertEquals(text, cache.getIfPresent(id));
+        assertEquals(1, index.size());
+        AtsScorer.Result whole = scorer.score(text, profile);
+        assertEquals(whole.totalScore, streamed.totalScore);
+        assertEquals(whole.matchedKeywords, streamed.matchedKeywords);
+        assertEquals(whole.missingKeywords, streamed.missingKeywords);
+        assertEquals(whole.sectionChecks, streamed.sectionChecks);
+        assertEquals(whole.headingOffsets, streamed.headingOffsets);
+
+        // A repeat upload is scored from the cached text.
+        AtsScorer.Result cached = service.scoreResume(id, pdf, profile);
+        index.awaitIndexed();
+        assertEquals(whole.totalScore, cached.totalScore);
+        assertEquals(1, index.size());
+        index.close();
+    }
+}
@@ -0,0 +1,195 @@
+package com.itap.ats.service;
+
+import com.itap.ats.model.ResumeScan;
+import com.itap.ats.repo.ResumeScanBatchWriter;
+import com.itap.ats.util.HashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    static class FakeWriter extends ResumeScanBatchWriter {
+        final List<List<ResumeScan>> batches = new CopyOnWriteArrayList<>();
+        volatile boolean down;
+
+        FakeWriter() {
+            super(null, null);
+        }
+
+        @Override
+        public void insertAll(List<ResumeScan> scans) {
+            if (down) throw new RuntimeException("connection refused");
+            for (ResumeScan s : scans) {
+                if (s.getResumeFilename().length() > 255) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(255)");
+                }
+            }
+            batches.add(new ArrayList<>(scans));
+        }
+
+        Set<UUID> ids() {
+            Set<UUID> ids = new HashSet<>();
+            for (List<ResumeScan> b : batches) for (ResumeScan s : b) ids.add(s.getId());
+            return ids;
+        }
+
+        int rows() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    @Test
+    void flushesQueuedScansInBatches() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        ScanWriteBehind wb = new ScanWriteBehind(writer, true, 1000, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), dir.resolve("spill.log").toString());
+
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 95; i++) {
+            ResumeScan s = scan();
+            ids.add(s.getId());
+            wb.submit(s);
+        }
+        wb.shutdown();
+
+        assertEquals(ids, writer.ids());
+        assertEquals(95, writer.rows());
+        assertTrue(writer.batches.stream().allMatch(b -> b.size() <= 10));
+    }
+
+    @Test
+    void spillsWhileDatabaseIsDownAndReplaysLater() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        writer.down = true;
+        Path spill = dir.resolve("spill.log");
+        ScanWriteBehind wb = new ScanWriteBehind(writer, true, 1000, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), spill.toString());
+
+        List<ResumeScan> scans = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ResumeScan s = scan();
+            scans.add(s);
+            wb.submit(s);
+        }
+        Path replay = dir.resolve("spill.log.replay");
+        waitFor(() -> lineCount(spill) + lineCount(replay) == 25);
+
+        writer.down = false;
+        waitFor(() -> writer.rows() == 25);
+        wb.shutdown();
+
+        Set<UUID> expected = new HashSet<>();
+        for (ResumeScan s : scans) expected.add(s.getId());
+        assertEquals(expected, writer.ids());
+        assertFalse(Files.exists(spill));
+        assertFalse(Files.exists(replay));
+
+        ResumeScan replayed = writer.batches.get(0).get(0);
+        ResumeScan original = scans.stream().filter(s -> s.getId().equals(replayed.getId())).findFirst().orElseThrow();
+        assertEquals(original.getCreatedAt(), replayed.getCreatedAt());
+        assertEquals(original.getMissingKeywords(), replayed.getMissingKeywords());
+        assertEquals(original.getSectionChecks(), replayed.getSectionChecks());
+        assertEquals(original.getJobDescription(), replayed.getJobDescription());
+        assertEquals(original.getJobDescriptionHash(), replayed.getJobDescriptionHash());
+        assertEquals(original.getResumeHash(), replayed.getResumeHash());
+        assertEquals(original.getResumeSizeBytes(), replayed.getResumeSizeBytes());
+    }
+
+    @Test
+    void deadLettersARejectedRowAndSavesTheRest() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        ScanWriteBehind wb = new ScanWriteBehind(writer, true, 1000, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), dir.resolve("spill.log").toString());
+
+        Set<UUID> good = new HashSet<>();
+        ResumeScan bad = scan();
+        bad.setResumeFilename("x".repeat(300) + ".pdf");
+        for (int i = 0; i < 10; i++) {
+            if (i == 4) {
+                wb.submit(bad);
+                continue;
+            }
+            ResumeScan s = scan();
+            good.add(s.getId());
+            wb.submit(s);
+        }
+        wb.shutdown();
+
+        assertEquals(good, writer.ids());
+        List<String> dead = Files.readAllLines(dir.resolve("spill.log.dead"));
+        assertEquals(1, dead.size());
+        assertTrue(dead.get(0).contains(bad.getId().toString()));
+        assertFalse(Files.exists(dir.resolve("spill.log")));
+    }
+
+    @Test
+    void replayMovesUnreplayableRecordsAsideAndGoesOn() throws Exception {
+        Path spill = dir.resolve("spill.log");
+        ScanSpillLog log = new ScanSpillLog(spill);
+        ResumeScan first = scan();
+        ResumeScan bad = scan();
+        bad.setResumeFilename("x".repeat(300) + ".pdf");
+        ResumeScan last = scan();
+        log.append(List.of(first, bad));
+        log.appendLine("{\"id\":\"" + UUID.randomUUID() + "\"}");
+        log.append(List.of(last));
+        log.appendLine("{\"id\":\"cut short");
+
+        FakeWriter writer = new FakeWriter();
+        ScanWriteBehind wb = new ScanWriteBehind(writer, true, 1000, 10, Duration.ofMillis(20),
+                Duration.ofMillis(50), spill.toString());
+        waitFor(() -> !Files.exists(spill) && !Files.exists(dir.resolve("spill.log.replay")));
+        wb.shutdown();
+
+        assertEquals(Set.of(first.getId(), last.getId()), writer.ids());
+        List<String> dead = Files.readAllLines(dir.resolve("spill.log.dead"));
+        assertEquals(3, dead.size());
+        assertEquals(1, dead.stream().filter(l -> l.contains(bad.getId().toString())).count());
+    }
+
+    private static ResumeScan scan() {
+        ResumeScan s = new ResumeScan();
+        s.setId(UUID.randomUUID());
+        s.setResumeFilename("cv.pdf");
+        s.setJobDescription("Java developer");
+        s.setJobDescriptionHash(HashUtil.sha256Hex("Java developer"));
+        s.setResumeHash(HashUtil.sha256Hex("cv.pdf bytes"));
+        s.setResumeSizeBytes(12);
+        s.setTotalScore(70);
+        s.setKeywordScore(60);
+        s.setSectionScore(90);
+        s.setMatchedKeywords(List.of("java"));
+        s.setMissingKeywords(List.of("spring boot", "aws"));
+        s.setSectionChecks(Map.of("Skills", true, "Education", false));
+        s.setSuggestions(List.of("Add an Education section even if it is short."));
+        return s;
+    }
+
+    private static long lineCount(Path file) {
+        try {
+            return Files.exists(file) ? Files.readAllLines(file).size() : 0;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("timed out");
+            Thread.sleep(10);
+        }
+    }
+}
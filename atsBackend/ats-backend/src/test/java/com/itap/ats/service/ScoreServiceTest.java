@@ -0,0 +1,88 @@
+package com.itap.ats.service;
+
+import com.itap.ats.dto.ScoreResult;
+import com.itap.ats.util.Synonyms;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreServiceTest {
+
+    private static final String STRONG = "SUMMARY\nJava and Spring Boot engineer on AWS.\nSKILLS\nJava, Spring Boot, Kafka, AWS";
+    private static final String WEAK = "SUMMARY\nFront-end developer.\nSKILLS\nReact, CSS";
+    private static final String JD = "Backend engineer with Java, Spring Boot, Kafka and AWS.";
+
+    private final AtsScorer scorer = new AtsScorer();
+    private final ResumeTextCache texts = textCache();
+    private final ScoreService service = new ScoreService(scorer,
+            profiles(), texts, noIndex(), 200_000, 10, 20, 200);
+
+    private static ResumeTextCache textCache() {
+        try {
+            return new ResumeTextCache(null, true, DataSize.ofMegabytes(1), "", DataSize.ofMegabytes(1), 1024);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JobProfileCache profiles() {
+        try {
+            return new JobProfileCache(Synonyms.NONE, DataSize.ofMegabytes(1), Duration.ofMinutes(5), "equal", "", 0);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResumeIndex noIndex() {
+        try {
+            return new ResumeIndex(null, Synonyms.NONE, false, "", 2048, 1000);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String cache(String text) {
+        String id = ResumeTextCache.hash(text.getBytes());
+        texts.put(id, text);
+        return id;
+    }
+
+    @Test
+    void scoresTextAndCachedResumesLikeTheScanner() {
+        AtsScorer.Result expected = scorer.score(STRONG, JD);
+
+        ScoreResult byText = service.score(STRONG, null, JD);
+        ScoreResult byId = service.score(null, cache(STRONG), JD);
+
+        for (ScoreResult r : List.of(byText, byId)) {
+            assertEquals(expected.totalScore, r.totalScore);
+            assertEquals(expected.keywordScore, r.keywordScore);
+            assertEquals(expected.sectionScore, r.sectionScore);
+            assertEquals(expected.missingKeywords, r.missingKeywords);
+        }
+        assertNull(byText.resumeId);
+        assertThrows(RuntimeException.class, () -> service.score(STRONG, cache(STRONG), JD));
+        assertThrows(RuntimeException.class, () -> service.score(null, "0".repeat(64), JD));
+    }
+
+    @Test
+    void deltaRanksCachedResumesBestFirst() {
+        String weak = cache(WEAK);
+        String strong = cache(STRONG);
+        String unknown = "f".repeat(64);
+
+        List<ScoreResult> ranked = service.rescore(List.of(weak, unknown, strong), JD);
+
+        assertEquals(List.of(strong, weak, unknown), ranked.stream().map(r -> r.resumeId).toList());
+        assertTrue(ranked.get(0).totalScore > ranked.get(1).totalScore);
+        assertNotNull(ranked.get(2).error);
+
+        // Editing the JD re-ranks the same cached texts.
+        List<ScoreResult> edited = service.rescore(List.of(weak, strong), "Front-end developer with React and CSS.");
+        assertEquals(weak, edited.get(0).resumeId);
+    }
+}
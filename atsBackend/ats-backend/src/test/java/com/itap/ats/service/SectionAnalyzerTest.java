@@ -0,0 +1,64 @@
+package com.itap.ats.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionAnalyzerTest {
+
+    // The checks as AtsScorer used to compute them, one full scan per heading.
+    private static boolean hasAnyHeading(String raw, String... headings) {
+        String lower = raw.toLowerCase(Locale.ROOT);
+        for (String h : headings) if (lower.contains(h)) return true;
+        return false;
+    }
+
+    private static boolean hasContactInfo(String raw) {
+        String lower = raw.toLowerCase(Locale.ROOT);
+        boolean hasEmail = lower.matches("(?s).*\\b[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}\\b.*");
+        boolean hasPhone = lower.matches("(?s).*\\b(\\+?1[-.\\s]?)?(\\(?\\d{3}\\)?[-.\\s]?)\\d{3}[-.\\s]?\\d{4}\\b.*");
+        return hasEmail || hasPhone;
+    }
+
+    @Test
+    void agreesWithPerHeadingScansOnRandomText() {
+        Random rnd = new Random(3);
+        String[] vocab = {"Summary", "PROFILE", "skill", "Skills", "Work", "Experience", "employ", "Employment",
+                "Education", "Project", "Projects", "Certification", "jane@example.com", "jane@", "example.com",
+                "(555)", "123-4567", "555-123-4567", "\u0130", "\n", "\r\n", "  ", "-", "java"};
+
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            int words = 1 + rnd.nextInt(30);
+            for (int i = 0; i < words; i++) {
+                sb.append(vocab[rnd.nextInt(vocab.length)]);
+                sb.append(rnd.nextInt(3) == 0 ? "" : " ");
+            }
+            String raw = sb.toString();
+            Map<String, Boolean> checks = SectionAnalyzer.analyze(raw).checks();
+
+            assertEquals(hasContactInfo(raw), checks.get("Contact Info"), raw);
+            assertEquals(hasAnyHeading(raw, "summary", "professional summary", "profile"), checks.get("Summary"), raw);
+            assertEquals(hasAnyHeading(raw, "skills", "technical skills", "core skills"), checks.get("Skills"), raw);
+            assertEquals(hasAnyHeading(raw, "experience", "work experience", "professional experience", "employment"),
+                    checks.get("Experience"), raw);
+            assertEquals(hasAnyHeading(raw, "education"), checks.get("Education"), raw);
+            assertEquals(hasAnyHeading(raw, "projects", "project experience"), checks.get("Projects"), raw);
+            assertEquals(hasAnyHeading(raw, "certifications", "certification"), checks.get("Certifications"), raw);
+        }
+    }
+
+    @Test
+    void prefersHeadingsAtLineStart() {
+        String raw = "Jane Doe\nBackend engineer with experience in Java.\n\n  Work Experience\nAcme Corp\nSkills\nJava";
+        Map<String, Integer> offsets = SectionAnalyzer.analyze(raw).headingOffsets();
+
+        assertEquals(raw.indexOf("Work Experience"), offsets.get("Experience"));
+        assertEquals(raw.indexOf("Skills"), offsets.get("Skills"));
+        assertFalse(offsets.containsKey("Education"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.itap.ats.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    @Test
+    void matchesOnlyWholeWords() {
+        KeywordMatcher m = KeywordMatcher.compile(List.of("java", "spring boot", "c++", "node.js", "sql"));
+        BitSet found = m.match(TextUtil.normalize("Javascript dev. Spring Boot, C++ and node.js/react; MySQL"));
+
+        assertFalse(found.get(0));
+        assertTrue(found.get(1));
+        assertTrue(found.get(2));
+        assertTrue(found.get(3));
+        assertFalse(found.get(4));
+    }
+
+    @Test
+    void matchesKeywordFollowedByPunctuation() {
+        KeywordMatcher m = KeywordMatcher.compile(List.of("java", "aws"));
+        BitSet found = m.match(TextUtil.normalize("Built services in Java. Deployed on AWS/GCP"));
+
+        assertTrue(found.get(0));
+        assertTrue(found.get(1));
+    }
+
+    @Test
+    void overlappingPatternsAreAllReported() {
+        KeywordMatcher m = KeywordMatcher.compile(List.of("data", "data engineering", "engineering", "ring"));
+        BitSet found = m.match("senior data engineering lead");
+
+        assertTrue(found.get(0));
+        assertTrue(found.get(1));
+        assertTrue(found.get(2));
+        assertFalse(found.get(3));
+    }
+
+    @Test
+    void blankKeywordsNeverMatch() {
+        KeywordMatcher m = KeywordMatcher.compile(List.of("", " ", "go"));
+        BitSet found = m.match("go go");
+
+        assertEquals(3, m.size());
+        assertFalse(found.get(0));
+        assertFalse(found.get(1));
+        assertTrue(found.get(2));
+    }
+
+    @Test
+    void agreesWithContainsWholeOnRandomText() {
+        Random rnd = new Random(42);
+        String[] vocab = {"java", "jav", "ava", "spring", "boot", "sql", "mysql", "c++", "c#", ".net",
+                "asp.net", "ci/cd", "k8s", "node.js", "js", "aws", "a", "10", "x.y"};
+
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            int words = 5 + rnd.nextInt(40);
+            for (int i = 0; i < words; i++) {
+                sb.append(vocab[rnd.nextInt(vocab.length)]);
+                sb.append(rnd.nextInt(5) == 0 ? "/" : " ");
+            }
+            String text = TextUtil.normalize(sb.toString());
+            List<String> keywords = TextUtil.extractKeywords(sb.toString());
+
+            BitSet found = KeywordMatcher.compile(keywords).match(text);
+            for (int i = 0; i < keywords.size(); i++) {
+                assertEquals(TextUtil.containsWhole(text, keywords.get(i)), found.get(i),
+                        "keyword '" + keywords.get(i) + "' in '" + text + "'");
+            }
+        }
+    }
+
+    @Test
+    void scannerAgreesWithMatchWhenFedInChunks() {
+        Random rnd = new Random(7);
+        String[] vocab = {"Java", "java.", "Spring", "Boot,", "SQL", "MySQL", "C++", "c#", ".NET", "\n", "\u0130nfo",
+                "ci/cd", "K8s", "node.js", "JS", "AWS", "a", "10", "x.y", "--", "\t"};
+
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            int words = 5 + rnd.nextInt(60);
+            for (int i = 0; i < words; i++) {
+                sb.append(vocab[rnd.nextInt(vocab.length)]);
+                sb.append(rnd.nextInt(4) == 0 ? "" : " ");
+            }
+            String raw = sb.toString();
+            KeywordMatcher m = KeywordMatcher.compile(TextUtil.extractKeywords(raw + " spring boot java"));
+
+            KeywordMatcher.Scanner scanner = m.scanner();
+            StringBuilder normalized = new StringBuilder();
+            StreamingNormalizer normalizer = new StreamingNormalizer(c -> {
+                normalized.append(c);
+                scanner.put(c);
+            });
+            for (int i = 0; i < raw.length(); ) {
+                int end = Math.min(raw.length(), i + 1 + rnd.nextInt(12));
+                normalizer.feed(raw.substring(i, end));
+                i = end;
+            }
+
+            assertEquals(TextUtil.normalize(raw), normalized.toString());
+            assertEquals(m.match(TextUtil.normalize(raw)), scanner.finish(), raw);
+        }
+    }
+}
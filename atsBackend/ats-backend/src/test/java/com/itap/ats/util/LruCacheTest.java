@@ -0,0 +1,137 @@
+package com.itap.ats.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    // Each value weighs its own length.
+    private static LruCache<String, String> cache(long maxWeight, Duration ttl) {
+        return new LruCache<>(maxWeight, ttl, String::length);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUntilUnderTheWeight() {
+        LruCache<String, String> c = cache(10, Duration.ZERO);
+        c.put("a", "aaaa");
+        c.put("b", "bbb");
+        c.put("c", "ccc");
+        assertEquals(10, c.weight());
+
+        c.put("d", "dd");
+
+        assertNull(c.getIfPresent("a"));
+        assertEquals("bbb", c.getIfPresent("b"));
+        assertEquals("ccc", c.getIfPresent("c"));
+        assertEquals("dd", c.getIfPresent("d"));
+        assertEquals(8, c.weight());
+        assertEquals(3, c.size());
+        assertEquals(1, c.evictions());
+
+        // One heavy put can push out several entries, oldest first.
+        c.put("e", "eeeeeeee");
+        assertEquals(2, c.size());
+        assertEquals("dd", c.getIfPresent("d"));
+        assertEquals("eeeeeeee", c.getIfPresent("e"));
+        assertEquals(3, c.evictions());
+    }
+
+    @Test
+    void aReadMakesAnEntryTheMostRecentlyUsed() {
+        LruCache<String, String> c = cache(9, Duration.ZERO);
+        c.put("a", "aaa");
+        c.put("b", "bbb");
+        c.put("c", "ccc");
+
+        assertEquals("aaa", c.getIfPresent("a"));
+        c.put("d", "ddd");
+
+        assertEquals("aaa", c.getIfPresent("a"));
+        assertNull(c.getIfPresent("b"));
+        assertEquals("ccc", c.getIfPresent("c"));
+    }
+
+    @Test
+    void replacingAValueReplacesItsWeight() {
+        LruCache<String, String> c = cache(10, Duration.ZERO);
+        c.put("a", "aaaa");
+        c.put("a", "aa");
+
+        assertEquals(2, c.weight());
+        assertEquals(1, c.size());
+        assertEquals(0, c.evictions());
+    }
+
+    @Test
+    void expiredEntriesMissAndStopCounting() throws InterruptedException {
+        LruCache<String, String> c = cache(100, Duration.ofMillis(50));
+        c.put("a", "aaaa");
+        c.put("b", "bbbb");
+        Thread.sleep(100);
+
+        assertNull(c.getIfPresent("a"));
+        assertEquals(1, c.evictions());
+        assertEquals(4, c.weight());
+
+        // The next put drops "b" too, without it being read.
+        c.put("c", "cc");
+        assertEquals(1, c.size());
+        assertEquals(2, c.weight());
+        assertEquals(2, c.evictions());
+        assertEquals("cc", c.getIfPresent("c"));
+    }
+
+    @Test
+    void aLiveEntryAtTheLeastRecentEndDoesNotShieldExpiredOnes() throws InterruptedException {
+        LruCache<String, String> c = cache(100, Duration.ofMillis(500));
+        c.put("a", "aaaa");
+        Thread.sleep(300);
+        c.put("b", "bbbb");
+        // Reading "a" leaves "b", which has not expired, at the least recent end.
+        assertEquals("aaaa", c.getIfPresent("a"));
+        Thread.sleep(300);
+
+        c.put("c", "cc");
+
+        assertEquals(2, c.size());
+        assertEquals(6, c.weight());
+        assertEquals(1, c.evictions());
+        assertEquals("bbbb", c.getIfPresent("b"));
+    }
+
+    @Test
+    void aValueHeavierThanTheCacheIsNotStored() {
+        LruCache<String, String> c = cache(4, Duration.ZERO);
+        c.put("a", "aa");
+        c.put("b", "bb");
+
+        c.put("big", "bigger");
+        assertNull(c.getIfPresent("big"));
+        assertEquals(2, c.size());
+        assertEquals(4, c.weight());
+        assertEquals(0, c.evictions());
+
+        // Nor does it leave the key's older value behind.
+        c.put("a", "aaaaa");
+        assertNull(c.getIfPresent("a"));
+        assertEquals(2, c.weight());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LruCache<String, String> c = cache(100, Duration.ZERO);
+        int[] loads = new int[1];
+
+        assertEquals("v-a", c.get("a", k -> { loads[0]++; return "v-" + k; }));
+        assertEquals("v-a", c.get("a", k -> { loads[0]++; return "v-" + k; }));
+        assertEquals("v-a", c.getIfPresent("a"));
+        assertNull(c.getIfPresent("b"));
+
+        assertEquals(1, loads[0]);
+        assertEquals(2, c.hits());
+        assertEquals(2, c.misses());
+    }
+}
@@ -0,0 +1,81 @@
+package com.itap.ats.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynonymsTest {
+
+    private static Synonyms parse(String text) throws IOException {
+        return Synonyms.parse(new StringReader(text));
+    }
+
+    private static final String DICT = """
+            # comment
+            kubernetes: K8s, kube
+            postgresql: Postgres, psql   # trailing comment
+            nodejs: Node.js
+            machine learning: ML
+            """;
+
+    @Test
+    void mapsWholeTokensOnly() throws IOException {
+        Synonyms s = parse(DICT);
+
+        assertEquals(6, s.size());
+        assertEquals("kubernetes and postgresql. nodejs", s.apply("k8s and postgres. node.js"));
+        assertEquals("kubernetes/postgresql k8sx postgresqlx", s.apply("kube/psql k8sx postgresqlx"));
+        assertEquals("machine learning engineer ...", s.apply("ml engineer ..."));
+        assertEquals("kubernetes/".repeat(40), s.apply("k8s/".repeat(40)));
+        String longToken = "k8s".repeat(50);
+        assertEquals(longToken, s.apply(longToken));
+        assertEquals("kubernetes.... ..node.js", s.apply("kube.... ..node.js"));
+        assertEquals("", Synonyms.NONE.fingerprint());
+        assertEquals("k8s", Synonyms.NONE.apply("k8s"));
+    }
+
+    @Test
+    void tokenizerMapsAcrossChunks() throws IOException {
+        Synonyms s = parse(DICT);
+        Random rnd = new Random(5);
+        String[] words = {"K8s", "Postgres,", "node.js", "Java", "ML/AI", "kube.", "psql;", "\u00a0"};
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 20; i++) sb.append(words[rnd.nextInt(words.length)]).append(' ');
+            String raw = sb.toString();
+
+            Tokenizer t = new Tokenizer(8, s);
+            for (int i = 0; i < raw.length(); i += 3) t.feed(raw.substring(i, Math.min(raw.length(), i + 3)));
+            t.finish();
+            assertEquals(s.apply(TextUtil.normalize(raw)), new String(t.text(), 0, t.textLength()), raw);
+            for (int i = 0; i < t.count(); i++) assertEquals(t.token(i).hashCode(), t.hash(i));
+        }
+    }
+
+    @Test
+    void variantsCollapseIntoOneKeyword() throws IOException {
+        List<String> keywords = TextUtil.extractKeywords("Postgres, PostgreSQL and K8s", parse(DICT));
+
+        assertEquals(List.of("postgresql postgresql", "postgresql kubernetes", "postgresql", "kubernetes"), keywords);
+    }
+
+    @Test
+    void rejectsAmbiguousEntries() {
+        assertThrows(IllegalArgumentException.class, () -> parse("postgresql: postgres\npostgis: postgres"));
+        assertThrows(IllegalArgumentException.class, () -> parse("kubernetes: k8s\nk8s cluster: kcluster"));
+        assertThrows(IllegalArgumentException.class, () -> parse("aws: amazon web services"));
+        assertThrows(IllegalArgumentException.class, () -> parse("cicd: ci/cd"));
+        assertThrows(IllegalArgumentException.class, () -> parse("just words"));
+    }
+
+    @Test
+    void fingerprintFollowsTheMapping() throws IOException {
+        assertEquals(parse(DICT).fingerprint(), parse("nodejs: node.js\n" + DICT).fingerprint());
+        assertNotEquals(parse(DICT).fingerprint(), parse(DICT + "react: reactjs").fingerprint());
+    }
+}
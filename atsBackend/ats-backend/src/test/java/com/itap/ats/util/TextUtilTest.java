@@ -0,0 +1,103 @@
+package com.itap.ats.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextUtilTest {
+
+    @Test
+    void normalizeKeepsOnlyAllowedCharacters() {
+        assertEquals("c++ node.js ci/cd c# 10 years", TextUtil.normalize("  C++, Node.js; CI/CD (C#)\t10 YEARS! "));
+        assertEquals("", TextUtil.normalize(null));
+        assertEquals("", TextUtil.normalize(" \n-- "));
+    }
+
+    @Test
+    void extractKeywordsListsPairsBeforeWords() {
+        List<String> keywords = TextUtil.extractKeywords("Java developer with Spring Boot, Java developer, AWS and Go");
+
+        assertEquals(List.of("java developer", "developer spring", "spring boot", "boot java",
+                "developer aws", "java", "developer", "spring", "boot", "aws"), keywords);
+    }
+
+    @Test
+    void tokenizerHashesMatchStringHashCode() {
+        Tokenizer t = new Tokenizer(4);
+        for (int round = 0; round < 2; round++) {
+            t.reset().feed("Senior ").feed("Java/Kotlin dev\u00a0").feed("\u0130stanbul").finish();
+
+            assertEquals(5, t.count());
+            assertEquals("senior java/kotlin dev i stanbul", new String(t.text(), 0, t.textLength()));
+            for (int i = 0; i < t.count(); i++) assertEquals(t.token(i).hashCode(), t.hash(i));
+        }
+    }
+
+    @Test
+    void agreesWithRegexImplementationOnRandomText() {
+        Random rnd = new Random(11);
+        String[] vocab = {"Java", "java", "Spring", "BOOT", "the", "and", "Experience", "C++", "c#", ".NET",
+                "ci/cd", "node.js", "go", "AWS", "10", "a", "x.y", "--", "\n", "\t", "\u00a0", "\u0130", "\u212a8s",
+                "caf\u00e9", "\ud83d\ude00", "Skills:", "k8s"};
+
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            int words = rnd.nextInt(80);
+            for (int i = 0; i < words; i++) {
+                sb.append(vocab[rnd.nextInt(vocab.length)]);
+                sb.append(rnd.nextInt(4) == 0 ? "" : " ");
+            }
+            String raw = sb.toString();
+
+            assertEquals(Legacy.normalize(raw), TextUtil.normalize(raw), raw);
+            assertEquals(Legacy.extractKeywords(raw), TextUtil.extractKeywords(raw), raw);
+        }
+    }
+
+    /** The previous regex and split based implementation. */
+    private static final class Legacy {
+
+        private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+                "a","an","the","and","or","but","if","then","else","when","where","how","what",
+                "with","without","to","from","in","on","at","for","of","as","is","are","was","were",
+                "be","been","being","this","that","these","those","we","you","your","our","they","their",
+                "will","shall","can","could","should","must","may","might","able","strong","experience",
+                "years","year","plus","required","preferred","responsibilities","skills","knowledge"
+        ));
+
+        private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9+.#/ ]");
+
+        static String normalize(String s) {
+            if (s == null) return "";
+            String lower = s.toLowerCase(Locale.ROOT);
+            lower = NON_WORD.matcher(lower).replaceAll(" ");
+            lower = lower.replaceAll("\\s+", " ").trim();
+            return lower;
+        }
+
+        static List<String> extractKeywords(String jobDesc) {
+            String norm = normalize(jobDesc);
+
+            String[] words = norm.split(" ");
+            List<String> tokens = new ArrayList<>();
+            for (String w : words) {
+                if (w.length() < 3) continue;
+                if (STOP_WORDS.contains(w)) continue;
+                tokens.add(w);
+            }
+
+            List<String> phrases = new ArrayList<>();
+            for (int i = 0; i < tokens.size() - 1; i++) {
+                phrases.add(tokens.get(i) + " " + tokens.get(i + 1));
+            }
+
+            LinkedHashSet<String> set = new LinkedHashSet<>();
+            set.addAll(phrases);
+            set.addAll(tokens);
+            return new ArrayList<>(set);
+        }
+    }
+}
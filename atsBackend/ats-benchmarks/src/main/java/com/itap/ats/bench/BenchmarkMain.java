@@ -0,0 +1,27 @@
+package com.itap.ats.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler on and writes a JSON report, by default to
+ * {@code target/jmh-result.json}. Any regular JMH command-line options (include pattern,
+ * {@code -p size=large}, {@code -rf}/{@code -rff}) are passed through and win over the
+ * defaults. Compare two reports with {@link ReportDiff}.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder opts = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class);
+        if (!cli.getResultFormat().hasValue()) opts.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) opts.result("target/jmh-result.json");
+        new Runner(opts.build()).run();
+    }
+}
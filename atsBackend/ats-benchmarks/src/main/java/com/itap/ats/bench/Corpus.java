@@ -0,0 +1,180 @@
+package com.itap.ats.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark inputs. Job descriptions ship as resources; resumes are generated
+ * deterministically so every run (and every commit) sees the same bytes.
+ *
+ * To benchmark real, anonymized resumes instead, point {@code -Dats.bench.corpus} at a
+ * directory containing {@code resume-small.pdf}, {@code resume-medium.pdf} and
+ * {@code resume-large.pdf}; any file found there replaces the generated one.
+ */
+public final class Corpus {
+
+    /** Resume sizes by page count. */
+    public static int pages(String size) {
+        switch (size) {
+            case "small": return 1;
+            case "medium": return 3;
+            case "large": return 12;
+            default: throw new IllegalArgumentException("Unknown size " + size);
+        }
+    }
+
+    private static final String[] SKILLS = {
+            "Java", "Kotlin", "Python", "Go", "TypeScript", "React", "Node.js", "Spring Boot", "Hibernate",
+            "PostgreSQL", "MySQL", "Redis", "Kafka", "RabbitMQ", "Elasticsearch", "Docker", "Kubernetes", "Helm",
+            "Terraform", "AWS", "GCP", "Lambda", "S3", "DynamoDB", "CI/CD", "Jenkins", "GitHub Actions",
+            "Prometheus", "Grafana", "gRPC", "GraphQL", "REST APIs", "microservices", "Spark", "Airflow",
+            "Linux", "Bash", "OAuth2", "JUnit", "Mockito", "Testcontainers", "C++", "C#", ".NET"
+    };
+
+    private static final String[] VERBS = {
+            "Built", "Designed", "Led", "Migrated", "Optimized", "Automated", "Reduced", "Improved", "Owned",
+            "Shipped", "Scaled", "Refactored", "Mentored", "Instrumented"
+    };
+
+    private static final String[] OBJECTS = {
+            "payment APIs", "the search service", "batch ETL jobs", "the CI pipeline", "a recommendation engine",
+            "internal tooling", "the customer portal", "data ingestion", "a reporting dashboard",
+            "the authentication layer", "release automation", "on-call runbooks"
+    };
+
+    private Corpus() {
+    }
+
+    public static String jobDescription(String size) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/jd-" + size + ".txt")) {
+            if (in == null) throw new IllegalArgumentException("Unknown JD size " + size);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Plain-text resume, one entry per page, roughly 45 lines each. */
+    public static List<String> resumePages(String size) {
+        return resumePages(new Random(size.hashCode()), pages(size));
+    }
+
+    /** A distinct one-page resume per seed, for building large collections. */
+    public static String resumeText(long seed) {
+        return String.join("", resumePages(new Random(seed), 1));
+    }
+
+    private static List<String> resumePages(Random rnd, int pageCount) {
+        List<String> pages = new ArrayList<>();
+
+        for (int p = 0; p < pageCount; p++) {
+            List<String> lines = new ArrayList<>();
+            if (p == 0) {
+                lines.add("Alex Candidate");
+                lines.add("alex.candidate@example.com | (555) 010-0199 | Springfield");
+                lines.add("");
+                lines.add("PROFESSIONAL SUMMARY");
+                lines.add(sentence(rnd, 18));
+                lines.add(sentence(rnd, 16));
+                lines.add("");
+                lines.add("TECHNICAL SKILLS");
+                lines.add(skillLine(rnd, 10));
+                lines.add(skillLine(rnd, 10));
+                lines.add("");
+                lines.add("WORK EXPERIENCE");
+            }
+            while (lines.size() < 45) {
+                lines.add("Company " + (char) ('A' + rnd.nextInt(26)) + " - Senior Software Engineer, 20"
+                        + (10 + rnd.nextInt(14)));
+                for (int b = 0; b < 5 && lines.size() < 45; b++) lines.add("- " + bullet(rnd));
+                lines.add("");
+            }
+            if (p == pageCount - 1) {
+                lines.set(lines.size() - 6, "EDUCATION");
+                lines.set(lines.size() - 5, "B.S. Computer Science, State University");
+                lines.set(lines.size() - 4, "PROJECTS");
+                lines.set(lines.size() - 3, "- " + bullet(rnd));
+                lines.set(lines.size() - 2, "CERTIFICATIONS");
+                lines.set(lines.size() - 1, "AWS Certified Developer - Associate");
+            }
+            pages.add(String.join("\n", lines) + "\n");
+        }
+        return pages;
+    }
+
+    public static String resumeText(String size) {
+        return String.join("", resumePages(size));
+    }
+
+    public static byte[] resumePdf(String size) {
+        String dir = System.getProperty("ats.bench.corpus");
+        if (dir != null && !dir.isBlank()) {
+            Path real = Path.of(dir, "resume-" + size + ".pdf");
+            if (Files.isRegularFile(real)) {
+                try {
+                    return Files.readAllBytes(real);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return toPdf(resumePages(size));
+    }
+
+    private static byte[] toPdf(List<String> pages) {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : pages) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 9);
+                    cs.newLineAtOffset(48, 750);
+                    for (String line : text.split("\n")) {
+                        cs.showText(line);
+                        cs.newLineAtOffset(0, -15.5f);
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String bullet(Random rnd) {
+        return VERBS[rnd.nextInt(VERBS.length)] + " " + OBJECTS[rnd.nextInt(OBJECTS.length)] + " using "
+                + SKILLS[rnd.nextInt(SKILLS.length)] + " and " + SKILLS[rnd.nextInt(SKILLS.length)]
+                + ", cutting latency by " + (10 + rnd.nextInt(80)) + "% for " + (1 + rnd.nextInt(40)) + "M users.";
+    }
+
+    private static String skillLine(Random rnd, int n) {
+        List<String> s = new ArrayList<>();
+        for (int i = 0; i < n; i++) s.add(SKILLS[rnd.nextInt(SKILLS.length)]);
+        return String.join(", ", s);
+    }
+
+    private static String sentence(Random rnd, int words) {
+        StringBuilder sb = new StringBuilder("Engineer with");
+        for (int i = 0; i < words; i++) {
+            sb.append(' ').append(i % 3 == 0 ? SKILLS[rnd.nextInt(SKILLS.length)] : OBJECTS[rnd.nextInt(OBJECTS.length)]);
+        }
+        return sb.append('.').toString();
+    }
+}
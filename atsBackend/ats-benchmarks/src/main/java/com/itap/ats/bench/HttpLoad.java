@@ -0,0 +1,135 @@
+package com.itap.ats.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running backend: {@code concurrency} clients each post
+ * a resume, wait for the answer and post again, for {@code duration}. Prints throughput,
+ * error counts and latency percentiles. Used to compare the platform-thread and
+ * virtual-thread modes of the same build on the same machine.
+ *
+ * <pre>
+ * java -cp ats-benchmarks/target/benchmarks.jar com.itap.ats.bench.HttpLoad \
+ *     url=http://localhost:8080 endpoint=scan concurrency=200 duration=60 warmup=10 size=medium
+ * </pre>
+ */
+public class HttpLoad {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>(Map.of(
+                "url", "http://localhost:8080", "endpoint", "scan", "concurrency", "64",
+                "duration", "30", "warmup", "5", "size", "medium"));
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq > 0) opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        String path = switch (opts.get("endpoint")) {
+            case "scan" -> "/api/scan";
+            case "ai" -> "/api/ai-suggestions";
+            default -> throw new IllegalArgumentException("endpoint must be scan or ai");
+        };
+        int concurrency = Integer.parseInt(opts.get("concurrency"));
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(opts.get("warmup"))).toNanos();
+        long runNanos = Duration.ofSeconds(Long.parseLong(opts.get("duration"))).toNanos();
+
+        String size = opts.get("size");
+        String boundary = "----ats" + UUID.randomUUID().toString().replace("-", "");
+        byte[] body = multipart(boundary, Corpus.resumePdf(size), Corpus.jobDescription(size));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(opts.get("url") + path))
+                .timeout(Duration.ofMinutes(3))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + runNanos;
+        AtomicLong ok = new AtomicLong();
+        AtomicLong busy = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int w = 0; w < concurrency; w++) {
+            long[] samples = new long[1 << 16];
+            latencies.add(samples);
+            Thread t = new Thread(() -> {
+                int n = 0;
+                while (true) {
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) break;
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 < measureFrom || t1 > end) continue;
+                    if (status == 200) {
+                        ok.incrementAndGet();
+                        if (n < samples.length) samples[n++] = t1 - t0;
+                    } else if (status == 429 || status == 503) {
+                        busy.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                if (n < samples.length) samples[n] = -1;
+            }, "load-" + w);
+            t.start();
+            workers.add(t);
+        }
+        for (Thread t : workers) t.join();
+
+        long[] all = latencies.stream()
+                .flatMapToLong(a -> Arrays.stream(a).takeWhile(v -> v > 0))
+                .sorted()
+                .toArray();
+        double seconds = runNanos / 1e9;
+        System.out.printf("endpoint=%s concurrency=%d duration=%.0fs%n", path, concurrency, seconds);
+        System.out.printf("ok=%d busy=%d failed=%d throughput=%.1f req/s%n",
+                ok.get(), busy.get(), failed.get(), ok.get() / seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                    pct(all, 0.50), pct(all, 0.95), pct(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double pct(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1e6;
+    }
+
+    private static byte[] multipart(String boundary, byte[] pdf, String jobDescription) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pdf.length + jobDescription.length() + 512);
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"resume\"; filename=\"resume.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        out.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(pdf);
+        String jd = "\r\n--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"jobDescription\"\r\n\r\n"
+                + jobDescription + "\r\n--" + boundary + "--\r\n";
+        out.writeBytes(jd.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+}
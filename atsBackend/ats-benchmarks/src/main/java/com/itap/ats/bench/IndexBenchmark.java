@@ -0,0 +1,69 @@
+package com.itap.ats.bench;
+
+import com.itap.ats.dto.ScoreResult;
+import com.itap.ats.service.JobProfile;
+import com.itap.ats.service.ResumeIndex;
+import com.itap.ats.service.ResumeTextCache;
+import com.itap.ats.util.Synonyms;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ranking every indexed resume against a JD through {@link ResumeIndex}, the query behind
+ * POST /api/score/rank. The index is built once per trial from {@code docs} generated
+ * one-page resumes, so most of them sit in memory-mapped segments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int docs;
+
+    @Param({"small", "large"})
+    public String jd;
+
+    private Path dir;
+    private ResumeIndex index;
+    private JobProfile profile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        dir = Files.createTempDirectory("ats-index-bench");
+        ResumeTextCache texts = new ResumeTextCache(null, false, DataSize.ofMegabytes(1), "", DataSize.ofMegabytes(1), 1024);
+        index = new ResumeIndex(texts, Synonyms.NONE, true, dir.toString(), 2048, 1000);
+        for (int i = 0; i < docs; i++) {
+            String text = Corpus.resumeText(i);
+            index.add(ResumeTextCache.hash(text.getBytes()), text, 80);
+            // Stay under the indexer's queue capacity.
+            if (i % 500 == 499) index.awaitIndexed();
+        }
+        index.awaitIndexed();
+        profile = JobProfile.compile(Corpus.jobDescription(jd));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public List<ScoreResult> top20() {
+        return index.search(profile, 20);
+    }
+}
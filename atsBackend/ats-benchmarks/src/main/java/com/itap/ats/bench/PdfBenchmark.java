@@ -0,0 +1,66 @@
+package com.itap.ats.bench;
+
+import com.itap.ats.service.AtsScorer;
+import com.itap.ats.service.JobProfile;
+import com.itap.ats.service.PdfTextExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF extraction on its own and the full extract-and-score pipeline (everything a scan
+ * does except persistence), both through the bounded extraction pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private PdfTextExtractor extractor;
+    private final AtsScorer scorer = new AtsScorer();
+    private byte[] pdf;
+    private JobProfile profile;
+
+    @Setup
+    public void setup() {
+        extractor = new PdfTextExtractor(new SimpleMeterRegistry(), 1, 4, Duration.ofMinutes(1),
+                DataSize.ofMegabytes(16), "");
+        pdf = Corpus.resumePdf(size);
+        profile = JobProfile.compile(Corpus.jobDescription("medium"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractor.shutdown();
+    }
+
+    @Benchmark
+    public String extractText() {
+        return extractor.extractText(new ByteArrayInputStream(pdf));
+    }
+
+    @Benchmark
+    public AtsScorer.Result extractThenScore() {
+        return scorer.score(extractor.extractText(new ByteArrayInputStream(pdf)), profile);
+    }
+
+    @Benchmark
+    public AtsScorer.Result scorePages() {
+        AtsScorer.Accumulator acc = scorer.start(profile);
+        extractor.extractPages(new ByteArrayInputStream(pdf), page -> {
+            acc.feed(page);
+            return !acc.isComplete();
+        });
+        return acc.finish();
+    }
+}
@@ -0,0 +1,63 @@
+package com.itap.ats.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON reports (for example the committed baseline and a fresh run):
+ * {@code java -cp target/benchmarks.jar com.itap.ats.bench.ReportDiff baseline.json target/jmh-result.json}
+ */
+public class ReportDiff {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: ReportDiff <before.json> <after.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> before = load(new File(args[0]));
+        Map<String, JsonNode> after = load(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %8s %14s %14s%n",
+                "benchmark", "before", "after", "change", "B/op before", "B/op after");
+        for (Map.Entry<String, JsonNode> e : after.entrySet()) {
+            JsonNode a = e.getValue();
+            JsonNode b = before.get(e.getKey());
+            double scoreAfter = a.path("primaryMetric").path("score").asDouble();
+            String unit = a.path("primaryMetric").path("scoreUnit").asText();
+            double allocAfter = a.path("secondaryMetrics").path(ALLOC).path("score").asDouble(Double.NaN);
+
+            if (b == null) {
+                System.out.printf("%-70s %14s %14s %8s %14s %14.0f%n", e.getKey(), "-",
+                        String.format("%.3f %s", scoreAfter, unit), "new", "-", allocAfter);
+                continue;
+            }
+            double scoreBefore = b.path("primaryMetric").path("score").asDouble();
+            double allocBefore = b.path("secondaryMetrics").path(ALLOC).path("score").asDouble(Double.NaN);
+            double change = scoreBefore == 0 ? 0 : (scoreAfter - scoreBefore) / scoreBefore * 100.0;
+            System.out.printf("%-70s %14s %14s %+7.1f%% %14.0f %14.0f%n", e.getKey(),
+                    String.format("%.3f %s", scoreBefore, unit), String.format("%.3f %s", scoreAfter, unit),
+                    change, allocBefore, allocAfter);
+        }
+    }
+
+    private static Map<String, JsonNode> load(File f) throws Exception {
+        Map<String, JsonNode> out = new LinkedHashMap<>();
+        for (JsonNode n : new ObjectMapper().readTree(f)) {
+            StringBuilder key = new StringBuilder(n.path("benchmark").asText().replace("com.itap.ats.bench.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = n.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> p = params.next();
+                key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+            }
+            out.put(key.toString(), n);
+        }
+        return out;
+    }
+}
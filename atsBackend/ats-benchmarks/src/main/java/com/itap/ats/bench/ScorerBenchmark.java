@@ -0,0 +1,83 @@
+package com.itap.ats.bench;
+
+import com.itap.ats.service.AtsScorer;
+import com.itap.ats.service.IdfTable;
+import com.itap.ats.service.IdfTableBuilder;
+import com.itap.ats.service.JobProfile;
+import com.itap.ats.service.SectionAnalyzer;
+import com.itap.ats.util.Synonyms;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring. {@code resume} and {@code jd} vary independently because cost depends on both
+ * the resume length and the number of keywords.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScorerBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String resume;
+
+    @Param({"small", "medium", "large"})
+    public String jd;
+
+    private final AtsScorer scorer = new AtsScorer();
+    private String resumeText;
+    private String jobDescription;
+    private JobProfile profile;
+    private JobProfile weightedProfile;
+
+    @Setup
+    public void setup() throws IOException {
+        resumeText = Corpus.resumeText(resume);
+        jobDescription = Corpus.jobDescription(jd);
+        profile = JobProfile.compile(jobDescription);
+
+        // Generated resumes stand in for a JD corpus: they share the same vocabulary.
+        IdfTableBuilder builder = new IdfTableBuilder();
+        for (long seed = 0; seed < 500; seed++) builder.add(Corpus.resumeText(seed));
+        Path file = Files.createTempFile("idf", ".bin");
+        builder.write(file, 2);
+        weightedProfile = JobProfile.compile(jobDescription, IdfTable.open(file, Synonyms.NONE), 40);
+        Files.delete(file);
+    }
+
+    /** Compiling the JD: keyword extraction plus building the matcher. */
+    @Benchmark
+    public JobProfile compileProfile() {
+        return JobProfile.compile(jobDescription);
+    }
+
+    /** Scoring against an already compiled (cached) JD profile. */
+    @Benchmark
+    public AtsScorer.Result scoreWithProfile() {
+        return scorer.score(resumeText, profile);
+    }
+
+    /** IDF-weighted scoring against the 40 rarest keywords of the JD. */
+    @Benchmark
+    public AtsScorer.Result scoreWeightedTop40() {
+        return scorer.score(resumeText, weightedProfile);
+    }
+
+    /** Scoring from scratch, as a request with a never-seen JD does. */
+    @Benchmark
+    public AtsScorer.Result scoreCold() {
+        return scorer.score(resumeText, jobDescription);
+    }
+
+    @Benchmark
+    public SectionAnalyzer sections() {
+        return SectionAnalyzer.analyze(resumeText);
+    }
+}
@@ -0,0 +1,78 @@
+package com.itap.ats.bench;
+
+import com.itap.ats.service.AtsScorer;
+import com.itap.ats.service.JobProfile;
+import com.itap.ats.util.Synonyms;
+import com.itap.ats.util.TextUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of synonym mapping: scoring and keyword extraction with no dictionary, the bundled
+ * one, and the bundled one plus 100k generated variants. Mapping is one table lookup per
+ * token, so the three should stay within noise of each other.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SynonymBenchmark {
+
+    @Param({"none", "bundled", "large"})
+    public String dictionary;
+
+    @Param({"small", "large"})
+    public String resume;
+
+    private final AtsScorer scorer = new AtsScorer();
+    private String resumeText;
+    private String jobDescription;
+    private Synonyms synonyms;
+    private JobProfile profile;
+
+    @Setup
+    public void setup() throws IOException {
+        resumeText = Corpus.resumeText(resume);
+        jobDescription = Corpus.jobDescription("medium");
+        synonyms = switch (dictionary) {
+            case "none" -> Synonyms.NONE;
+            case "bundled" -> bundled(new byte[0]);
+            case "large" -> {
+                StringBuilder sb = new StringBuilder("\n");
+                for (int i = 0; i < 50_000; i++) {
+                    sb.append("term").append(i).append(": tv").append(i).append(", tw").append(i).append('\n');
+                }
+                yield bundled(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            default -> throw new IllegalArgumentException("Unknown dictionary " + dictionary);
+        };
+        profile = JobProfile.compile(jobDescription, synonyms);
+    }
+
+    private static Synonyms bundled(byte[] extra) throws IOException {
+        try (InputStream in = new SequenceInputStream(SynonymBenchmark.class.getResourceAsStream("/synonyms.txt"),
+                new ByteArrayInputStream(extra))) {
+            return Synonyms.load(in);
+        }
+    }
+
+    /** Scoring against a cached profile; the resume text goes through the dictionary. */
+    @Benchmark
+    public AtsScorer.Result score() {
+        return scorer.score(resumeText, profile);
+    }
+
+    @Benchmark
+    public List<String> extractKeywords() {
+        return TextUtil.extractKeywords(jobDescription, synonyms);
+    }
+}
@@ -0,0 +1,39 @@
+package com.itap.ats.bench;
+
+import com.itap.ats.util.TextUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Text stages: resume normalization and JD keyword extraction. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private String resumeText;
+    private String jobDescription;
+
+    @Setup
+    public void setup() {
+        resumeText = Corpus.resumeText(size);
+        jobDescription = Corpus.jobDescription(size);
+    }
+
+    @Benchmark
+    public String normalizeResume() {
+        return TextUtil.normalize(resumeText);
+    }
+
+    @Benchmark
+    public List<String> extractKeywords() {
+        return TextUtil.extractKeywords(jobDescription);
+    }
+}
@@ -0,0 +1,186 @@
+package com.itap.ats.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold starts of the packaged backend. For every run of every variant it
+ * launches a fresh JVM against an embedded Postgres and a stub OpenAI server, and records
+ * the time from process start until {@code /actuator/health} answers, then the latency of
+ * the first and second {@code POST /api/scan}. Build the jars first with
+ * {@code mvn -Pfast-start -DskipTests install}.
+ *
+ * <pre>
+ * mvn -pl ats-loadtest exec:java -Dexec.mainClass=com.itap.ats.load.ColdStart -Dexec.args="runs=5"
+ * </pre>
+ *
+ * Variants: fat-jar ({@code java -jar} on the repackaged jar, as the Dockerfile used to
+ * run it), extracted (the same jar unpacked), aot (extracted, with Spring AOT bean
+ * definitions), cds (extracted, with the AppCDS archive) and aot-cds (both; what
+ * FAST-START.md recommends). The first two get a fresh, empty PDFBox font cache on every
+ * run, as a scaled-to-zero container would; the others use the one the training run saved.
+ *
+ * Options (key=value): variants, runs, fat-jar, dir (the fast-start directory) and
+ * timeout (seconds to wait for health). Any app.&lt;property&gt; is passed to the backend,
+ * e.g. app.ats.pdf.warm-up=false.
+ */
+public class ColdStart {
+
+    private static final List<String> VARIANTS = List.of("fat-jar", "extracted", "aot", "cds", "aot-cds");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("variants", String.join(",", VARIANTS));
+        opts.put("runs", "5");
+        opts.put("fat-jar", "ats-backend/target/ats-backend-0.0.1-exec.jar");
+        opts.put("dir", "ats-backend/target/fast-start");
+        opts.put("timeout", "120");
+        List<String> appArgs = new ArrayList<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) continue;
+            if (a.startsWith("app.")) appArgs.add("--" + a.substring(4));
+            else opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        Path fatJar = Path.of(opts.get("fat-jar")).toAbsolutePath();
+        Path dir = Path.of(opts.get("dir")).toAbsolutePath();
+        Path extracted = dir.resolve(fatJar.getFileName());
+        for (Path p : List.of(fatJar, extracted, dir.resolve("application.jsa"))) {
+            if (!Files.exists(p)) throw new IllegalStateException(p + " not found; run mvn -Pfast-start -DskipTests install first");
+        }
+        List<String> variants = Arrays.stream(opts.get("variants").split(",")).map(String::trim).toList();
+        for (String v : variants) {
+            if (!VARIANTS.contains(v)) throw new IllegalArgumentException("Unknown variant '" + v + "', expected one of " + VARIANTS);
+        }
+        int runs = Integer.parseInt(opts.get("runs"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(opts.get("timeout")));
+
+        Path work = Files.createTempDirectory("ats-coldstart");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        try (StubOpenAi stub = new StubOpenAi(0); EmbeddedPostgres pg = EmbeddedPostgres.builder().start()) {
+            String jdbcUrl = pg.getJdbcUrl("postgres", "postgres");
+            // Creates the schema, so the first measured run does not pay for it.
+            run(client, command("extracted", fatJar, extracted, dir, work, appArgs), dir, work, jdbcUrl, stub, timeout);
+
+            Map<String, long[][]> results = new LinkedHashMap<>();
+            for (String v : variants) results.put(v, new long[3][runs]);
+            // Interleaved, so drift on the machine spreads over every variant.
+            for (int r = 0; r < runs; r++) {
+                for (String v : variants) {
+                    long[] t = run(client, command(v, fatJar, extracted, dir, work, appArgs),
+                            v.equals("fat-jar") ? fatJar.getParent() : dir, work, jdbcUrl, stub, timeout);
+                    for (int k = 0; k < 3; k++) results.get(v)[k][r] = t[k];
+                    System.out.printf("run %d %-10s ready %6d ms  first scan %6d ms  second scan %5d ms%n", r + 1, v, t[0], t[1], t[2]);
+                }
+            }
+
+            System.out.printf("%nMedian of %d runs (min-max)%n", runs);
+            System.out.printf("%-10s %22s %22s %22s%n", "variant", "ready ms", "first scan ms", "second scan ms");
+            for (Map.Entry<String, long[][]> e : results.entrySet()) {
+                System.out.printf("%-10s", e.getKey());
+                for (long[] samples : e.getValue()) System.out.printf(" %22s", summary(samples));
+                System.out.println();
+            }
+        }
+    }
+
+    private static List<String> command(String variant, Path fatJar, Path extracted, Path dir, Path work,
+                                        List<String> appArgs) throws IOException {
+        List<String> cmd = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        if (variant.startsWith("aot")) cmd.add("-Dspring.aot.enabled=true");
+        if (variant.endsWith("cds")) cmd.add("-XX:SharedArchiveFile=" + dir.resolve("application.jsa"));
+        Path fontCache = variant.equals("fat-jar") || variant.equals("extracted")
+                ? Files.createTempDirectory(work, "fonts") : dir;
+        cmd.add("-Dpdfbox.fontcache=" + fontCache);
+        // Relative to the jar's directory, as the class path the archive recorded was.
+        cmd.add("-jar");
+        cmd.add((variant.equals("fat-jar") ? fatJar : extracted).getFileName().toString());
+        cmd.addAll(appArgs);
+        return cmd;
+    }
+
+    /** Ready, first scan and second scan, in ms. */
+    private static long[] run(HttpClient client, List<String> command, Path jarDir, Path work, String jdbcUrl,
+                              StubOpenAi stub, Duration timeout) throws Exception {
+        int port;
+        try (ServerSocket s = new ServerSocket(0)) {
+            port = s.getLocalPort();
+        }
+        List<String> cmd = new ArrayList<>(command);
+        cmd.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--ats.openai.base-url=" + stub.baseUrl(),
+                "--ats.extraction-cache.enabled=false",
+                "--ats.rate-limit.enabled=false",
+                "--ats.resume-index.dir=" + work.resolve("resume-index"),
+                "--ats.scan.write-behind.spill-file=" + work.resolve("scan-spill.log")));
+        ProcessBuilder pb = new ProcessBuilder(cmd).directory(jarDir.toFile()).redirectErrorStream(true)
+                .redirectOutput(work.resolve("backend.log").toFile());
+        pb.environment().put("OPENAI_API_KEY", "cold-start");
+
+        String base = "http://127.0.0.1:" + port;
+        HttpRequest health = HttpRequest.newBuilder(URI.create(base + "/actuator/health")).GET().build();
+        Workload workload = new Workload(base, "scan", 2, 1);
+        Random rnd = new Random(port);
+
+        long start = System.nanoTime();
+        Process process = pb.start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive()) throw new IllegalStateException("Backend exited; see " + work.resolve("backend.log"));
+                if (System.nanoTime() > deadline) throw new IllegalStateException("Backend not ready after " + timeout);
+                try {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) break;
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            long ready = System.nanoTime();
+            // The JVM falls back to no archive with only a warning, e.g. on a different JDK build.
+            if (Files.readString(work.resolve("backend.log")).contains("Unable to use shared archive")) {
+                throw new IllegalStateException("The CDS archive was not used; see " + work.resolve("backend.log")
+                        + ". It only works on the JDK that built it.");
+            }
+            long first = scan(client, workload, rnd);
+            long second = scan(client, workload, rnd);
+            return new long[]{(ready - start) / 1_000_000, first, second};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static long scan(HttpClient client, Workload workload, Random rnd) throws Exception {
+        long t0 = System.nanoTime();
+        HttpResponse<String> resp = client.send(workload.request(Workload.Endpoint.SCAN, rnd), HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() != 200) throw new IllegalStateException("POST /api/scan answered " + resp.statusCode() + ": " + resp.body());
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+
+    private static String summary(long[] samples) {
+        long[] s = samples.clone();
+        Arrays.sort(s);
+        return s[s.length / 2] + " (" + s[0] + "-" + s[s.length - 1] + ")";
+    }
+}
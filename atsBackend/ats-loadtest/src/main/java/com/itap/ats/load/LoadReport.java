@@ -0,0 +1,48 @@
+package com.itap.ats.load;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a load test writes to its JSON report: per concurrency step, client-side results
+ * per endpoint and what the server's pools and heap looked like meanwhile. Latencies are
+ * in milliseconds and only cover successful (200) responses.
+ */
+public class LoadReport {
+
+    public String label;
+    public String startedAt;
+    public Map<String, String> settings = new LinkedHashMap<>();
+    public List<Step> steps = new ArrayList<>();
+    // Per endpoint: the highest concurrency at which it met the SLO, and every step below too (0 if none).
+    public Map<String, Integer> sloMaxConcurrency = new LinkedHashMap<>();
+
+    public static class Step {
+        public int concurrency;
+        public double seconds;
+        public Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        public ServerStats server;
+    }
+
+    public static class EndpointStats {
+        public long ok;
+        public long busy;
+        public long failed;
+        public double throughput;
+        public double errorPct;
+        public double p50;
+        public double p95;
+        public double p99;
+        public double max;
+    }
+
+    public static class ServerStats {
+        public double hikariActiveMax;
+        public double hikariPendingMax;
+        public double tomcatBusyMax;
+        public double heapUsedMaxMb;
+        public double gcPauseMs;
+    }
+}
@@ -0,0 +1,48 @@
+package com.itap.ats.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Compares two load-test reports step by step and endpoint by endpoint, for example the
+ * last release against a candidate build run on the same machine:
+ * {@code java -cp ... com.itap.ats.load.LoadReportDiff before.json after.json}
+ */
+public class LoadReportDiff {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: LoadReportDiff <before.json> <after.json>");
+            System.exit(2);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        LoadReport before = mapper.readValue(new File(args[0]), LoadReport.class);
+        LoadReport after = mapper.readValue(new File(args[1]), LoadReport.class);
+        System.out.printf("before: %s %s%nafter:  %s %s%n%n", before.label, before.startedAt, after.label, after.startedAt);
+
+        System.out.printf("%6s %-10s %10s %10s %8s %10s %10s %8s %8s %8s%n", "conc", "endpoint",
+                "req/s bef", "req/s aft", "change", "p99 bef", "p99 aft", "change", "err% bef", "err% aft");
+        for (LoadReport.Step a : after.steps) {
+            LoadReport.Step b = before.steps.stream().filter(s -> s.concurrency == a.concurrency).findFirst().orElse(null);
+            for (Map.Entry<String, LoadReport.EndpointStats> e : a.endpoints.entrySet()) {
+                LoadReport.EndpointStats sa = e.getValue();
+                LoadReport.EndpointStats sb = b == null ? null : b.endpoints.get(e.getKey());
+                if (sb == null) {
+                    System.out.printf("%6d %-10s %10s %10.1f %8s %10s %10.1f %8s %8s %8.1f%n", a.concurrency, e.getKey(),
+                            "-", sa.throughput, "new", "-", sa.p99, "new", "-", sa.errorPct);
+                    continue;
+                }
+                System.out.printf("%6d %-10s %10.1f %10.1f %+7.1f%% %10.1f %10.1f %+7.1f%% %8.1f %8.1f%n",
+                        a.concurrency, e.getKey(), sb.throughput, sa.throughput, change(sb.throughput, sa.throughput),
+                        sb.p99, sa.p99, change(sb.p99, sa.p99), sb.errorPct, sa.errorPct);
+            }
+        }
+        System.out.printf("%nSLO max concurrency: before %s, after %s%n", before.sloMaxConcurrency, after.sloMaxConcurrency);
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100.0;
+    }
+}
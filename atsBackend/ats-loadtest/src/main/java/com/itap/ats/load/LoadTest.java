@@ -0,0 +1,297 @@
+package com.itap.ats.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.itap.ats.AtsBackendApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Boots the backend in this JVM against an embedded Postgres and a stub OpenAI server,
+ * then drives it with a weighted mix of endpoints at increasing concurrency. Each step is
+ * closed-loop: {@code concurrency} clients send a request, wait for the answer and send
+ * the next. Prints a table per step and writes a JSON report that {@link LoadReportDiff}
+ * compares across builds.
+ *
+ * <pre>
+ * mvn -pl ats-loadtest exec:java -Dexec.args="mix=scan:60,ai:25,history:15 steps=8,32,128 duration=30"
+ * </pre>
+ *
+ * Options (key=value): mix, steps, duration and warmup (seconds per step), size (resume
+ * pages: small, medium, large), resumes (distinct PDFs), ai-latency (stub answer time in
+ * ms), slo-p99 (ms), slo-errors (% of requests not answered 200), db ("embedded" or a
+ * jdbc:postgresql URL with db-user and db-password), out, label. Any app.&lt;property&gt;
+ * is passed to the backend, e.g. app.ats.pdf.threads=4.
+ *
+ * The load generator shares the JVM with the backend, so heap and GC figures include it;
+ * it allocates little next to PDF parsing.
+ */
+public class LoadTest {
+
+    private static final Map<String, Integer> PAGES = Map.of("small", 1, "medium", 3, "large", 12);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("mix", "scan:60,ai:25,history:15");
+        opts.put("steps", "8,32,128");
+        opts.put("duration", "30");
+        opts.put("warmup", "5");
+        opts.put("size", "medium");
+        opts.put("resumes", "32");
+        opts.put("ai-latency", "800");
+        opts.put("slo-p99", "2000");
+        opts.put("slo-errors", "1");
+        opts.put("db", "embedded");
+        opts.put("db-user", "postgres");
+        opts.put("db-password", "postgres");
+        opts.put("out", "target/loadtest-report.json");
+        opts.put("label", "");
+        Map<String, String> appProps = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) continue;
+            String key = a.substring(0, eq);
+            if (key.startsWith("app.")) appProps.put(key.substring(4), a.substring(eq + 1));
+            else opts.put(key, a.substring(eq + 1));
+        }
+        Integer pages = PAGES.get(opts.get("size"));
+        if (pages == null) throw new IllegalArgumentException("size must be small, medium or large");
+        int[] steps = Arrays.stream(opts.get("steps").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+        Path work = Files.createTempDirectory("ats-load");
+        EmbeddedPostgres pg = null;
+        ConfigurableApplicationContext app = null;
+        try (StubOpenAi stub = new StubOpenAi(Long.parseLong(opts.get("ai-latency")))) {
+            String jdbcUrl = opts.get("db");
+            if ("embedded".equals(jdbcUrl)) {
+                pg = EmbeddedPostgres.builder().start();
+                jdbcUrl = pg.getJdbcUrl("postgres", "postgres");
+            }
+
+            Map<String, String> props = new HashMap<>();
+            props.put("server.port", "0");
+            props.put("server.tomcat.mbeanregistry.enabled", "true");
+            props.put("spring.main.banner-mode", "off");
+            props.put("logging.level.root", "WARN");
+            // Generated resumes use the standard 14 fonts, which PDFBox warns about on every parse.
+            props.put("logging.level.org.apache.pdfbox", "ERROR");
+            props.put("spring.datasource.url", jdbcUrl);
+            props.put("spring.datasource.username", opts.get("db-user"));
+            props.put("spring.datasource.password", opts.get("db-password"));
+            props.put("OPENAI_API_KEY", "load-test");
+            props.put("ats.openai.base-url", stub.baseUrl());
+            // Every request does the full work: no extraction or AI answer is served from a cache.
+            props.put("ats.extraction-cache.enabled", "false");
+            props.put("ats.openai.cache.max-size", "0B");
+            // All load comes from one address; pass app.ats.rate-limit.enabled=true to measure the limiter.
+            props.put("ats.rate-limit.enabled", "false");
+            props.put("ats.resume-index.dir", work.resolve("resume-index").toString());
+            props.put("ats.scan.write-behind.spill-file", work.resolve("scan-spill.log").toString());
+            props.putAll(appProps);
+
+            // As command-line arguments, so they override application.properties.
+            app = new SpringApplicationBuilder(AtsBackendApplication.class).run(props.entrySet().stream()
+                    .map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            Workload workload = new Workload("http://127.0.0.1:" + port, opts.get("mix"),
+                    Integer.parseInt(opts.get("resumes")), pages);
+            ServerSampler sampler = new ServerSampler(app.getBean(MeterRegistry.class));
+
+            LoadReport report = new LoadReport();
+            report.label = opts.get("label");
+            report.startedAt = Instant.now().toString();
+            report.settings.putAll(opts);
+            appProps.forEach((k, v) -> report.settings.put("app." + k, v));
+
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            printHeader();
+            for (int concurrency : steps) {
+                LoadReport.Step step = runStep(client, workload, sampler, concurrency,
+                        Duration.ofSeconds(Long.parseLong(opts.get("warmup"))),
+                        Duration.ofSeconds(Long.parseLong(opts.get("duration"))));
+                report.steps.add(step);
+                print(step);
+            }
+
+            double sloP99 = Double.parseDouble(opts.get("slo-p99"));
+            double sloErrors = Double.parseDouble(opts.get("slo-errors"));
+            for (Workload.Endpoint e : workload.endpoints()) {
+                int max = 0;
+                for (LoadReport.Step s : report.steps) {
+                    LoadReport.EndpointStats st = s.endpoints.get(e.key);
+                    if (st == null || st.ok == 0 || st.p99 > sloP99 || st.errorPct > sloErrors) break;
+                    max = s.concurrency;
+                }
+                report.sloMaxConcurrency.put(e.key, max);
+            }
+            System.out.printf("%nSLO p99<=%.0fms, errors<=%.1f%%: highest passing concurrency %s%n",
+                    sloP99, sloErrors, report.sloMaxConcurrency);
+
+            Path out = Path.of(opts.get("out"));
+            if (out.getParent() != null) Files.createDirectories(out.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+            System.out.println("Report written to " + out.toAbsolutePath());
+        } finally {
+            if (app != null) app.close();
+            if (pg != null) pg.close();
+        }
+    }
+
+    private static LoadReport.Step runStep(HttpClient client, Workload workload, ServerSampler sampler,
+                                           int concurrency, Duration warmup, Duration duration) throws Exception {
+        List<Workload.Endpoint> endpoints = workload.endpoints();
+        int kinds = Workload.Endpoint.values().length;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        List<Worker> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            Worker worker = new Worker(client, workload, new Random(w * 7919L + concurrency), kinds, measureFrom, end);
+            worker.thread = new Thread(worker, "load-" + w);
+            worker.thread.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(w -> w.thread.start());
+        Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+        sampler.start();
+        for (Worker w : workers) w.thread.join();
+        LoadReport.ServerStats server = sampler.stop();
+
+        LoadReport.Step step = new LoadReport.Step();
+        step.concurrency = concurrency;
+        step.seconds = duration.toMillis() / 1000.0;
+        step.server = server;
+        for (Workload.Endpoint e : endpoints) {
+            int k = e.ordinal();
+            LoadReport.EndpointStats st = new LoadReport.EndpointStats();
+            int n = 0;
+            for (Worker w : workers) {
+                st.ok += w.ok[k];
+                st.busy += w.busy[k];
+                st.failed += w.failed[k];
+                n += (int) w.ok[k];
+            }
+            long[] all = new long[n];
+            int i = 0;
+            for (Worker w : workers) {
+                System.arraycopy(w.samples[k], 0, all, i, (int) w.ok[k]);
+                i += (int) w.ok[k];
+            }
+            Arrays.sort(all);
+            long total = st.ok + st.busy + st.failed;
+            st.throughput = st.ok / step.seconds;
+            st.errorPct = total == 0 ? 0 : (st.busy + st.failed) * 100.0 / total;
+            if (all.length > 0) {
+                st.p50 = pct(all, 0.50);
+                st.p95 = pct(all, 0.95);
+                st.p99 = pct(all, 0.99);
+                st.max = all[all.length - 1] / 1e6;
+            }
+            step.endpoints.put(e.key, st);
+        }
+        return step;
+    }
+
+    /** One closed-loop client. Latencies of 200 responses are kept per endpoint. */
+    private static final class Worker implements Runnable {
+
+        final HttpClient client;
+        final Workload workload;
+        final Random rnd;
+        final long measureFrom;
+        final long end;
+        final long[] ok;
+        final long[] busy;
+        final long[] failed;
+        final long[][] samples;
+        Thread thread;
+
+        Worker(HttpClient client, Workload workload, Random rnd, int kinds, long measureFrom, long end) {
+            this.client = client;
+            this.workload = workload;
+            this.rnd = rnd;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.ok = new long[kinds];
+            this.busy = new long[kinds];
+            this.failed = new long[kinds];
+            this.samples = new long[kinds][64];
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Workload.Endpoint e = workload.pick(rnd);
+                HttpRequest request = workload.request(e, rnd);
+                long t0 = System.nanoTime();
+                if (t0 >= end) break;
+                int status;
+                try {
+                    HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    status = resp.statusCode();
+                    // The stream answers 200 up front; a model failure arrives as an "error" event.
+                    if (e == Workload.Endpoint.AI_STREAM && status == 200 && !resp.body().contains("event:done")) {
+                        status = -1;
+                    }
+                } catch (Exception ex) {
+                    status = -1;
+                }
+                long t1 = System.nanoTime();
+                if (t0 < measureFrom || t1 > end) continue;
+                int k = e.ordinal();
+                if (status == 200) {
+                    int n = (int) ok[k];
+                    if (n == samples[k].length) samples[k] = Arrays.copyOf(samples[k], n * 2);
+                    samples[k][n] = t1 - t0;
+                    ok[k]++;
+                } else if (status == 429 || status == 503) {
+                    busy[k]++;
+                } else {
+                    failed[k]++;
+                }
+            }
+        }
+    }
+
+    private static double pct(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1e6;
+    }
+
+    private static void printHeader() {
+        System.out.printf("%6s %-10s %8s %6s %6s %9s %9s %9s %9s %9s%n",
+                "conc", "endpoint", "ok", "busy", "failed", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    }
+
+    private static void print(LoadReport.Step step) {
+        for (Map.Entry<String, LoadReport.EndpointStats> e : step.endpoints.entrySet()) {
+            LoadReport.EndpointStats s = e.getValue();
+            System.out.printf("%6d %-10s %8d %6d %6d %9.1f %9.1f %9.1f %9.1f %9.1f%n", step.concurrency, e.getKey(),
+                    s.ok, s.busy, s.failed, s.throughput, s.p50, s.p95, s.p99, s.max);
+        }
+        LoadReport.ServerStats s = step.server;
+        System.out.printf("%6s server: hikari active<=%.0f pending<=%.0f, tomcat busy<=%.0f, heap<=%.0fMB, gc pauses %.0fms%n",
+                "", s.hikariActiveMax, s.hikariPendingMax, s.tomcatBusyMax, s.heapUsedMaxMb, s.gcPauseMs);
+    }
+}
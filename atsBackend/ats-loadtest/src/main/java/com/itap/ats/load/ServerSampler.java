@@ -0,0 +1,74 @@
+package com.itap.ats.load;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the backend's own meters while a step runs, to show which limit was reached:
+ * Hikari connections in use and threads waiting for one, busy Tomcat threads, heap in
+ * use, and time spent in GC pauses.
+ */
+class ServerSampler {
+
+    private static final long INTERVAL_MS = 200;
+
+    private final MeterRegistry registry;
+    private volatile boolean running;
+    private Thread thread;
+    private LoadReport.ServerStats stats;
+    private double gcAtStart;
+
+    ServerSampler(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void start() {
+        stats = new LoadReport.ServerStats();
+        gcAtStart = gcPauseMs();
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "server-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    LoadReport.ServerStats stop() throws InterruptedException {
+        running = false;
+        thread.join();
+        sample();
+        stats.gcPauseMs = gcPauseMs() - gcAtStart;
+        return stats;
+    }
+
+    private void sample() {
+        stats.hikariActiveMax = Math.max(stats.hikariActiveMax, gauges("hikaricp.connections.active"));
+        stats.hikariPendingMax = Math.max(stats.hikariPendingMax, gauges("hikaricp.connections.pending"));
+        stats.tomcatBusyMax = Math.max(stats.tomcatBusyMax, gauges("tomcat.threads.busy"));
+        double heap = 0;
+        for (Gauge g : registry.find("jvm.memory.used").tag("area", "heap").gauges()) heap += g.value();
+        stats.heapUsedMaxMb = Math.max(stats.heapUsedMaxMb, heap / (1024 * 1024));
+    }
+
+    private double gauges(String name) {
+        double sum = 0;
+        for (Gauge g : registry.find(name).gauges()) sum += g.value();
+        return sum;
+    }
+
+    private double gcPauseMs() {
+        double sum = 0;
+        for (Timer t : registry.find("jvm.gc.pause").timers()) sum += t.totalTime(TimeUnit.MILLISECONDS);
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+package com.itap.ats.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the OpenAI Responses API at {@code /v1/responses}. Answers after a fixed
+ * latency plus up to 25% jitter, so the backend's AI path holds its connections and
+ * in-flight permits about as long as the real API would, without the cost or the rate
+ * limits. Streaming requests get the answer as a few text deltas spread over the same time.
+ */
+class StubOpenAi implements AutoCloseable {
+
+    private static final String ANSWER = "{\"improvedSummary\":\"Backend engineer building Java and Spring Boot "
+            + "services on AWS.\",\"skillsSuggestions\":[\"Kafka\",\"Kubernetes\",\"Terraform\"],"
+            + "\"atsWarnings\":[\"Add dates to every role.\"]}";
+    private static final int DELTAS = 4;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "stub-openai");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+
+    StubOpenAi(long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/v1/responses", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        String request = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.incrementAndGet();
+        long delay = latencyMs + (latencyMs > 0 ? ThreadLocalRandom.current().nextLong(latencyMs / 4 + 1) : 0);
+        try {
+            if (request.contains("\"stream\":true")) {
+                stream(ex, delay);
+            } else {
+                sleep(delay);
+                String text = mapper.writeValueAsString(ANSWER);
+                byte[] body = ("{\"output\":[{\"content\":[{\"type\":\"output_text\",\"text\":" + text + "}]}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().add("Content-Type", "application/json");
+                ex.sendResponseHeaders(200, body.length);
+                ex.getResponseBody().write(body);
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void stream(HttpExchange ex, long delay) throws IOException {
+        ex.getResponseHeaders().add("Content-Type", "text/event-stream");
+        ex.sendResponseHeaders(200, 0);
+        int step = (ANSWER.length() + DELTAS - 1) / DELTAS;
+        for (int from = 0; from < ANSWER.length(); from += step) {
+            sleep(delay / DELTAS);
+            String delta = ANSWER.substring(from, Math.min(ANSWER.length(), from + step));
+            String data = "{\"type\":\"response.output_text.delta\",\"delta\":" + mapper.writeValueAsString(delta) + "}";
+            ex.getResponseBody().write(("event: response.output_text.delta\ndata: " + data + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            ex.getResponseBody().flush();
+        }
+        ex.getResponseBody().write("event: response.completed\ndata: {\"type\":\"response.completed\"}\n\n"
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,173 @@
+package com.itap.ats.load;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The requests a load test sends: a weighted mix of endpoints, and a pool of distinct
+ * generated resume PDFs so every upload is parsed (with the extraction cache off) instead
+ * of being served from one cached text.
+ */
+class Workload {
+
+    enum Endpoint {
+        SCAN("scan", "/api/scan"),
+        AI("ai", "/api/ai-suggestions"),
+        AI_STREAM("ai-stream", "/api/ai-suggestions/stream"),
+        HISTORY("history", "/api/scans?limit=50");
+
+        final String key;
+        final String path;
+
+        Endpoint(String key, String path) {
+            this.key = key;
+            this.path = path;
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint e : values()) if (e.key.equals(key)) return e;
+            throw new IllegalArgumentException("Unknown endpoint '" + key + "', expected scan, ai, ai-stream or history");
+        }
+    }
+
+    static final String JOB_DESCRIPTION = "Senior Backend Engineer. We build the services behind our hiring "
+            + "platform in Java 17 and Spring Boot, on PostgreSQL and Kafka, deployed to Kubernetes on AWS. "
+            + "You will design REST APIs, own CI/CD pipelines, tune SQL and JVM performance, and mentor the team. "
+            + "Experience with Terraform, Docker, Redis, observability (Prometheus, Grafana) and microservices "
+            + "is a plus. Strong communication skills and a bachelor's degree in Computer Science required.";
+
+    private static final String[] SKILLS = {"Java", "Spring Boot", "PostgreSQL", "Kafka", "Kubernetes", "AWS",
+            "Docker", "Terraform", "REST APIs", "CI/CD", "Redis", "Prometheus", "Grafana", "Python", "React",
+            "Microservices", "SQL", "Linux", "Git", "gRPC", "TypeScript", "Go", "Elasticsearch", "RabbitMQ"};
+    private static final String[] VERBS = {"Built", "Designed", "Led", "Migrated", "Optimized", "Owned",
+            "Automated", "Scaled", "Reduced latency of", "Introduced"};
+    private static final String[] THINGS = {"payment services", "the search pipeline", "batch jobs",
+            "the order API", "internal tooling", "the data platform", "a reporting service", "deployment pipelines"};
+    private static final int LINES_PER_PAGE = 46;
+
+    private final String baseUrl;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final List<byte[]> scanBodies = new ArrayList<>();
+    private final String boundary = "----ats" + UUID.randomUUID().toString().replace("-", "");
+
+    /** {@code mix} is "scan:60,ai:25,history:15"; weights need not add up to 100. */
+    Workload(String baseUrl, String mix, int resumes, int pages) throws IOException {
+        this.baseUrl = baseUrl;
+        Map<Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            weights.merge(Endpoint.of(kv[0].trim()), kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1, Integer::sum);
+        }
+        cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (Map.Entry<Endpoint, Integer> e : weights.entrySet()) {
+            if (e.getValue() <= 0) continue;
+            total += e.getValue();
+            cumulativeWeights[endpoints.size()] = total;
+            endpoints.add(e.getKey());
+        }
+        if (endpoints.isEmpty()) throw new IllegalArgumentException("mix has no endpoint with a positive weight");
+
+        for (int i = 0; i < resumes; i++) {
+            scanBodies.add(multipart(resumePdf(i, pages), JOB_DESCRIPTION));
+        }
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    Endpoint pick(Random rnd) {
+        int r = rnd.nextInt(cumulativeWeights[endpoints.size() - 1]);
+        for (int i = 0; ; i++) if (r < cumulativeWeights[i]) return endpoints.get(i);
+    }
+
+    HttpRequest request(Endpoint endpoint, Random rnd) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.path))
+                .timeout(Duration.ofMinutes(3));
+        if (endpoint == Endpoint.HISTORY) return b.GET().build();
+        byte[] body = scanBodies.get(rnd.nextInt(scanBodies.size()));
+        return b.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    /** A resume with {@code pages} pages of plausible text, different for every seed. */
+    static byte[] resumePdf(long seed, int pages) throws IOException {
+        Random rnd = new Random(seed);
+        List<String> lines = new ArrayList<>();
+        lines.add("Candidate " + seed);
+        lines.add("candidate" + seed + "@example.com | (555) 010-" + String.format("%04d", seed % 10000));
+        lines.add("PROFESSIONAL SUMMARY");
+        lines.add("Software engineer with " + (3 + rnd.nextInt(12)) + " years of backend experience.");
+        lines.add("TECHNICAL SKILLS");
+        lines.add(skills(rnd, 10));
+        lines.add("WORK EXPERIENCE");
+        while (lines.size() < pages * LINES_PER_PAGE - 3) {
+            if (rnd.nextInt(8) == 0) lines.add("Company " + rnd.nextInt(1000) + " - Software Engineer, 20" + (10 + rnd.nextInt(15)));
+            else lines.add("- " + VERBS[rnd.nextInt(VERBS.length)] + " " + THINGS[rnd.nextInt(THINGS.length)]
+                    + " with " + skills(rnd, 2) + ".");
+        }
+        lines.add("EDUCATION");
+        lines.add("B.S. Computer Science");
+
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int p = 0; p * LINES_PER_PAGE < lines.size(); p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 10);
+                    cs.setLeading(15);
+                    cs.newLineAtOffset(50, 740);
+                    for (int i = p * LINES_PER_PAGE; i < Math.min(lines.size(), (p + 1) * LINES_PER_PAGE); i++) {
+                        cs.showText(lines.get(i));
+                        cs.newLine();
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String skills(Random rnd, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(SKILLS[rnd.nextInt(SKILLS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private byte[] multipart(byte[] pdf, String jobDescription) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pdf.length + jobDescription.length() + 512);
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"resume\"; filename=\"resume.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        out.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(pdf);
+        String jd = "\r\n--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"jobDescription\"\r\n\r\n"
+                + jobDescription + "\r\n--" + boundary + "--\r\n";
+        out.writeBytes(jd.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+}